@@ -0,0 +1,48 @@
+package com.nbu.medicalrecordf104458.datagen;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// One prepared insert whose rows are queued until flush(). The caller flushes, so rows referenced by a foreign key
+// can be sent before the rows that reference them
+public class BatchInsert implements AutoCloseable {
+
+    private final PreparedStatement statement;
+
+    private int pending;
+    private long rows;
+
+    public BatchInsert(Connection connection, String sql) throws SQLException {
+        this.statement = connection.prepareStatement(sql);
+    }
+
+    // Binds the values in column order and queues the row
+    public void add(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            statement.setObject(i + 1, values[i]);
+        }
+
+        statement.addBatch();
+        pending++;
+        rows++;
+    }
+
+    public void flush() throws SQLException {
+        if (pending > 0) {
+            statement.executeBatch();
+            pending = 0;
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        flush();
+        statement.close();
+    }
+
+}
@@ -0,0 +1,486 @@
+package com.nbu.medicalrecordf104458.datagen;
+
+import lombok.Getter;
+import org.flywaydb.core.Flyway;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Bulk-loads a synthetic dataset straight through JDBC, run it with ./gradlew generateData -Pdatagen.<setting>=...
+// Every table draws from its own stream split off the seed, so a run into an empty database always produces the
+// same rows. Ids continue after the highest existing id and the id sequences are moved past them at the end,
+// the application should not be running meanwhile
+public class DataGenerator {
+
+    // Part of the appointments a patient has with their own GP, the rest go to any doctor
+    private static final double FAMILY_DOCTOR_VISIT_SHARE = 0.4;
+    private static final long UNIFIED_CIVIL_NUMBER_BASE = 8_000_000_000L;
+
+    private static final String[] FIRST_NAMES = {
+            "Ivan", "Georgi", "Dimitar", "Nikolay", "Petar", "Stefan", "Aleksandar", "Todor", "Martin", "Hristo",
+            "Maria", "Elena", "Ivanka", "Teodora", "Yordanka", "Desislava", "Gergana", "Viktoria", "Nadezhda", "Radka"
+    };
+    private static final String[] LAST_NAMES = {
+            "Ivanov", "Georgiev", "Dimitrov", "Petrov", "Nikolov", "Hristov", "Stoyanov", "Todorov", "Iliev", "Angelov"
+    };
+    private static final String[] SPECIALIZATIONS = {
+            "Cardiology", "Dermatology", "Endocrinology", "Gastroenterology", "Neurology", "Oncology",
+            "Ophthalmology", "Orthopedics", "Otolaryngology", "Pediatrics", "Psychiatry", "Pulmonology",
+            "Rheumatology", "Urology", "Nephrology", "Allergology", "Gynecology", "Hematology"
+    };
+    private static final String[] MEDICINES = {
+            "Paracetamol", "Ibuprofen", "Amoxicillin", "Azithromycin", "Metformin", "Bisoprolol", "Omeprazole",
+            "Cetirizine", "Salbutamol", "Atorvastatin", "Prednisolone", "Losartan"
+    };
+    private static final String[] FREQUENCIES = {
+            "Once a day", "Twice a day", "Three times a day", "Every 8 hours", "Before sleep", "When needed"
+    };
+    private static final String QUERY_INDEXES = "db/migration/common/V2__add_query_indexes.sql";
+    private static final Pattern CREATE_INDEX = Pattern.compile("create index (\\w+) on (\\w+)");
+    private static final String FILL_APPOINTMENT_VIEW = "db/migration/%s/V7__fill_appointment_view.sql";
+    private static final String[] SEQUENCE_TABLES = {
+            "specialization", "diagnose", "treatment", "doctor", "patient", "sick_leave", "appointment"
+    };
+
+    private final GeneratorSettings settings;
+    private final Map<String, Long> insertedRows = new LinkedHashMap<>();
+
+    // Every table gets consecutive ids from its first id on, in the order the settings count them
+    @Getter
+    private long specializationFirstId;
+    @Getter
+    private long diagnoseFirstId;
+    private long treatmentFirstId;
+    @Getter
+    private long doctorFirstId;
+    @Getter
+    private long gpFirstId;
+    @Getter
+    private long patientFirstId;
+    // Family doctor rank of every generated patient, their GP visits go there
+    private int[] familyDoctorRanks;
+
+    public DataGenerator(GeneratorSettings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        GeneratorSettings settings = GeneratorSettings.fromSystemProperties();
+
+        migrate(settings);
+
+        try (Connection connection = DriverManager.getConnection(
+                settings.getUrl(), settings.getUsername(), settings.getPassword())) {
+            long start = System.nanoTime();
+            Map<String, Long> rows = new DataGenerator(settings).generate(connection);
+            double minutes = (System.nanoTime() - start) / 60e9;
+            long total = rows.values().stream().mapToLong(Long::longValue).sum();
+
+            rows.forEach((table, count) -> System.out.printf("%-26s %,12d rows%n", table, count));
+            System.out.printf("%-26s %,12d rows in %.1f s, %,.0f rows per minute%n",
+                    "total", total, minutes * 60, total / minutes);
+        }
+    }
+
+    // The same migrations the application runs, so the generator can fill an empty database on its own
+    public static void migrate(GeneratorSettings settings) {
+        Flyway.configure()
+                .dataSource(settings.getUrl(), settings.getUsername(), settings.getPassword())
+                .locations("classpath:db/migration/common", "classpath:db/migration/" + vendorOf(settings.getUrl()))
+                .load()
+                .migrate();
+    }
+
+    // Inserts the whole dataset on the given connection and returns the rows written per table.
+    // The query indexes are dropped for the load and built once at the end, keeping them up to date row by row
+    // halves the insert rate
+    public Map<String, Long> generate(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        List<String> queryIndexes = queryIndexes();
+        connection.setAutoCommit(false);
+        dropIndexes(connection, queryIndexes);
+
+        try {
+            SplittableRandom seed = new SplittableRandom(settings.getSeed());
+
+            generateSpecializations(connection);
+            generateDiagnoses(connection);
+            generateTreatments(connection, seed.split());
+            generateDoctors(connection, seed.split());
+            generatePatients(connection, seed.split());
+            generateAppointments(connection, seed.split());
+            fillAppointmentView(connection);
+            advanceSequences(connection);
+        } finally {
+            // A failed batch is not committed, the indexes come back either way
+            connection.rollback();
+            createIndexes(connection, queryIndexes);
+            connection.setAutoCommit(autoCommit);
+        }
+
+        return insertedRows;
+    }
+
+    private void generateSpecializations(Connection connection) throws SQLException {
+        specializationFirstId = nextId(connection, "specialization");
+
+        try (BatchInsert specializations = new BatchInsert(connection,
+                "insert into specialization (id, name, for_deletion) values (?, ?, ?)")) {
+            for (int i = 0; i < settings.getSpecializations(); i++) {
+                long id = specializationFirstId + i;
+                specializations.add(id, numbered(SPECIALIZATIONS, (int) (id - 1)), false);
+                flushIfBatchEnd(connection, i, specializations);
+            }
+
+            specializations.flush();
+            connection.commit();
+            insertedRows.put("specialization", specializations.getRows());
+        }
+    }
+
+    // Named like ICD codes after their id, A00.0, B00.0 ... Z99.0, A00.1. The lowest id is the most frequent diagnose
+    private void generateDiagnoses(Connection connection) throws SQLException {
+        diagnoseFirstId = nextId(connection, "diagnose");
+
+        try (BatchInsert diagnoses = new BatchInsert(connection,
+                "insert into diagnose (id, name, description, for_deletion) values (?, ?, ?, ?)")) {
+            for (int i = 0; i < settings.getDiagnoses(); i++) {
+                long id = diagnoseFirstId + i;
+                String code = String.format("%c%02d.%d", (char) ('A' + (id - 1) % 26), (id - 1) / 26 % 100, (id - 1) / 2600);
+                diagnoses.add(id, "Diagnose " + code, "Synthetic diagnose with code " + code, false);
+                flushIfBatchEnd(connection, i, diagnoses);
+            }
+
+            diagnoses.flush();
+            connection.commit();
+            insertedRows.put("diagnose", diagnoses.getRows());
+        }
+    }
+
+    private void generateTreatments(Connection connection, SplittableRandom random) throws SQLException {
+        treatmentFirstId = nextId(connection, "treatment");
+
+        try (BatchInsert treatments = new BatchInsert(connection,
+                "insert into treatment (id, medicine_name, dosage_amount, frequency, version) values (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < settings.getTreatments(); i++) {
+                treatments.add(treatmentFirstId + i, numbered(MEDICINES, i), (1 + random.nextInt(20)) * 50 + " mg",
+                        pick(FREQUENCIES, random), 0L);
+                flushIfBatchEnd(connection, i, treatments);
+            }
+
+            treatments.flush();
+            connection.commit();
+            insertedRows.put("treatment", treatments.getRows());
+        }
+    }
+
+    // Specialists first and GPs after them, every doctor has one or two specializations
+    private void generateDoctors(Connection connection, SplittableRandom random) throws SQLException {
+        int total = settings.getDoctors() + settings.getGeneralPractitioners();
+        doctorFirstId = nextId(connection, "doctor");
+        gpFirstId = doctorFirstId + settings.getDoctors();
+
+        try (BatchInsert doctors = new BatchInsert(connection,
+                "insert into doctor (id, doctor_type, name, for_deletion, version) values (?, ?, ?, ?, ?)");
+             BatchInsert specializations = new BatchInsert(connection,
+                     "insert into doctor_specialization (doctor_id, specialization_id) values (?, ?)")) {
+            for (int i = 0; i < total; i++) {
+                long id = doctorFirstId + i;
+                doctors.add(id, id < gpFirstId ? "Doctor" : "GP", "Dr. " + personName(random), false, 0L);
+
+                int first = random.nextInt(settings.getSpecializations());
+                specializations.add(id, specializationFirstId + first);
+
+                if (settings.getSpecializations() > 1 && random.nextInt(4) == 0) {
+                    int second = (first + 1 + random.nextInt(settings.getSpecializations() - 1))
+                            % settings.getSpecializations();
+                    specializations.add(id, specializationFirstId + second);
+                }
+
+                if (isBatchEnd(i)) {
+                    doctors.flush();
+                    specializations.flush();
+                    connection.commit();
+                }
+            }
+
+            doctors.flush();
+            specializations.flush();
+            connection.commit();
+            insertedRows.put("doctor", doctors.getRows());
+            insertedRows.put("doctor_specialization", specializations.getRows());
+        }
+    }
+
+    // GP list sizes follow the Zipf distribution, gpListSkew 0 spreads the patients evenly
+    private void generatePatients(Connection connection, SplittableRandom random) throws SQLException {
+        ZipfDistribution gpRanks = new ZipfDistribution(settings.getGeneralPractitioners(), settings.getGpListSkew());
+        patientFirstId = nextId(connection, "patient");
+        familyDoctorRanks = new int[settings.getPatients()];
+
+        try (BatchInsert patients = new BatchInsert(connection,
+                "insert into patient (id, name, unified_civil_number, family_doctor_id, last_insurance_payment_date,"
+                        + " for_deletion, version) values (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < settings.getPatients(); i++) {
+                long id = patientFirstId + i;
+                familyDoctorRanks[i] = gpRanks.sample(random);
+
+                // Some paid within the last 6 months, some did not
+                LocalDate lastPayment = settings.getEndDate().minusDays(random.nextInt(365));
+
+                patients.add(id, personName(random), UNIFIED_CIVIL_NUMBER_BASE + id, gpFirstId + familyDoctorRanks[i],
+                        lastPayment, false, 0L);
+                flushIfBatchEnd(connection, i, patients);
+            }
+
+            patients.flush();
+            connection.commit();
+            insertedRows.put("patient", patients.getRows());
+        }
+    }
+
+    private void generateAppointments(Connection connection, SplittableRandom random) throws SQLException {
+        ZipfDistribution diagnoseRanks = new ZipfDistribution(settings.getDiagnoses(), settings.getDiagnoseSkew());
+        ZipfDistribution patientRanks = new ZipfDistribution(settings.getPatients(), settings.getPatientVisitSkew());
+        int doctorsCount = settings.getDoctors() + settings.getGeneralPractitioners();
+        long days = ChronoUnit.DAYS.between(settings.getStartDate(), settings.getEndDate()) + 1;
+        long appointmentFirstId = nextId(connection, "appointment");
+        long sickLeaveId = nextId(connection, "sick_leave");
+        int progressStep = Math.max(settings.getAppointments() / 10, 1);
+
+        try (BatchInsert sickLeaves = new BatchInsert(connection,
+                "insert into sick_leave (id, start_date, end_date, version) values (?, ?, ?, ?)");
+             BatchInsert appointments = new BatchInsert(connection,
+                     "insert into appointment (id, visit_date, doctor_id, patient_id, sick_leave_id, version)"
+                             + " values (?, ?, ?, ?, ?, ?)");
+             BatchInsert diagnoses = new BatchInsert(connection,
+                     "insert into appointments_diagnoses (appointment_id, diagnose_id) values (?, ?)");
+             BatchInsert treatments = new BatchInsert(connection,
+                     "insert into appointments_treatments (appointment_id, treatment_id) values (?, ?)")) {
+            for (int i = 0; i < settings.getAppointments(); i++) {
+                long id = appointmentFirstId + i;
+                LocalDate visitDate = settings.getStartDate().plusDays(random.nextLong(days));
+                int patientRank = patientRanks.sample(random);
+                long doctorId = random.nextDouble() < FAMILY_DOCTOR_VISIT_SHARE
+                        ? gpFirstId + familyDoctorRanks[patientRank]
+                        : doctorFirstId + random.nextInt(doctorsCount);
+
+                Long sickLeave = null;
+                if (random.nextDouble() < sickLeaveProbability(visitDate)) {
+                    sickLeave = sickLeaveId++;
+                    sickLeaves.add(sickLeave, visitDate, visitDate.plusDays(3 + random.nextInt(12)), 0L);
+                }
+
+                appointments.add(id, visitDate, doctorId, patientFirstId + patientRank, sickLeave, 0L);
+
+                // One diagnose for most visits, up to three
+                double extraDiagnoses = random.nextDouble();
+                int diagnosesCount = Math.min(extraDiagnoses < 0.05 ? 3 : extraDiagnoses < 0.3 ? 2 : 1,
+                        settings.getDiagnoses());
+                addDistinct(diagnoses, id, diagnoseFirstId, diagnosesCount, () -> diagnoseRanks.sample(random));
+
+                int treatmentsCount = Math.min(random.nextInt(3), settings.getTreatments());
+                addDistinct(treatments, id, treatmentFirstId, treatmentsCount,
+                        () -> random.nextInt(settings.getTreatments()));
+
+                // Sick leaves before the appointments that point to them, the join tables after both
+                if (isBatchEnd(i)) {
+                    sickLeaves.flush();
+                    appointments.flush();
+                    diagnoses.flush();
+                    treatments.flush();
+                    connection.commit();
+                }
+
+                if ((i + 1) % progressStep == 0) {
+                    System.out.printf("%,d of %,d appointments%n", i + 1, settings.getAppointments());
+                }
+            }
+
+            sickLeaves.flush();
+            appointments.flush();
+            diagnoses.flush();
+            treatments.flush();
+            connection.commit();
+            insertedRows.put("sick_leave", sickLeaves.getRows());
+            insertedRows.put("appointment", appointments.getRows());
+            insertedRows.put("appointments_diagnoses", diagnoses.getRows());
+            insertedRows.put("appointments_treatments", treatments.getRows());
+        }
+    }
+
+    // The average rate scaled by a cosine over the year, highest on the peak day
+    private double sickLeaveProbability(LocalDate visitDate) {
+        double phase = 2 * Math.PI * (visitDate.getDayOfYear() - settings.getSickLeavePeakDayOfYear()) / 365.25;
+        double probability = settings.getSickLeaveRate() * (1 + settings.getSickLeaveSeasonality() * Math.cos(phase));
+
+        return Math.max(0, Math.min(1, probability));
+    }
+
+    // Links an appointment to count different rows, draws again on a repeat
+    private void addDistinct(BatchInsert links, long appointmentId, long firstId, int count,
+                             IntSupplier sampler) throws SQLException {
+        int[] picked = new int[count];
+
+        for (int added = 0; added < count; ) {
+            int rank = sampler.getAsInt();
+            boolean repeated = false;
+
+            for (int j = 0; j < added; j++) {
+                repeated |= picked[j] == rank;
+            }
+
+            if (!repeated) {
+                picked[added++] = rank;
+                links.add(appointmentId, firstId + rank);
+            }
+        }
+    }
+
+    // The loaded appointments bypass the application, their read model rows are added by the statements of the
+    // migration that filled it for the appointments that existed before it
+    private void fillAppointmentView(Connection connection) throws SQLException {
+        String script = String.join("\n", readScript(String.format(FILL_APPOINTMENT_VIEW, isMySql(connection) ? "mysql" : "h2")));
+        long rows = 0;
+
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : script.split(";")) {
+                String withoutComments = sql.replaceAll("(?m)^--.*$", "").strip();
+
+                if (!withoutComments.isEmpty()) {
+                    rows += Math.max(statement.executeUpdate(withoutComments), 0);
+                }
+            }
+        }
+
+        connection.commit();
+        insertedRows.put("appointment_view", rows);
+    }
+
+    // Hibernate continues every sequence after the generated ids, in the blocks of 50 it allocates
+    private void advanceSequences(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : SEQUENCE_TABLES) {
+                long next = nextId(connection, table);
+
+                statement.executeUpdate(isMySql(connection)
+                        ? "update " + table + "_seq set next_val = " + next
+                        : "alter sequence " + table + "_seq restart with " + next);
+            }
+        }
+
+        connection.commit();
+    }
+
+    // The create index statements of the migration that added the query indexes, the ones the load can do without
+    private List<String> queryIndexes() {
+        return readScript(QUERY_INDEXES).stream()
+                .filter(line -> CREATE_INDEX.matcher(line).lookingAt())
+                .toList();
+    }
+
+    private List<String> readScript(String location) {
+        try (InputStream script = DataGenerator.class.getClassLoader().getResourceAsStream(location)) {
+            if (script == null) {
+                throw new IllegalStateException(location + " is not on the classpath.");
+            }
+
+            return new BufferedReader(new InputStreamReader(script, StandardCharsets.UTF_8)).lines().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void dropIndexes(Connection connection, List<String> createStatements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String create : createStatements) {
+                Matcher index = CREATE_INDEX.matcher(create);
+                index.lookingAt();
+
+                statement.executeUpdate(isMySql(connection)
+                        ? "drop index " + index.group(1) + " on " + index.group(2)
+                        : "drop index " + index.group(1));
+            }
+        }
+
+        connection.commit();
+    }
+
+    private void createIndexes(Connection connection, List<String> createStatements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String create : createStatements) {
+                statement.executeUpdate(create.replaceAll(";\\s*$", ""));
+            }
+        }
+
+        connection.commit();
+    }
+
+    private boolean isMySql(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("MySQL");
+    }
+
+    private void flushIfBatchEnd(Connection connection, int index, BatchInsert insert) throws SQLException {
+        if (isBatchEnd(index)) {
+            insert.flush();
+            connection.commit();
+        }
+    }
+
+    private boolean isBatchEnd(int index) {
+        return (index + 1) % settings.getBatchSize() == 0;
+    }
+
+    private long nextId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select coalesce(max(id), 0) + 1 from " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static String personName(SplittableRandom random) {
+        return pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random);
+    }
+
+    private static String pick(String[] values, SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Cardiology, Dermatology ... Cardiology 2, Dermatology 2 ... keeps the unique names unique across runs
+    private static String numbered(String[] names, int index) {
+        int round = index / names.length;
+
+        return names[index % names.length] + (round == 0 ? "" : " " + (round + 1));
+    }
+
+    private static String vendorOf(String url) {
+        if (url.startsWith("jdbc:h2:")) {
+            return "h2";
+        }
+        if (url.startsWith("jdbc:mysql:")) {
+            return "mysql";
+        }
+
+        throw new IllegalArgumentException("Only H2 and MySQL urls are supported, got " + url);
+    }
+
+}
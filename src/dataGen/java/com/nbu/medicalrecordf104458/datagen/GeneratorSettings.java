@@ -0,0 +1,78 @@
+package com.nbu.medicalrecordf104458.datagen;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// Everything a generator run depends on. The same settings and seed always produce the same rows.
+// Every value can be changed with -Pdatagen.<name>, e.g. -Pdatagen.patients=5000000 -Pdatagen.seed=7
+@Getter
+@Builder(toBuilder = true)
+public class GeneratorSettings {
+
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private final long seed;
+
+    private final int specializations;
+    private final int diagnoses;
+    private final int treatments;
+    private final int doctors;
+    private final int generalPractitioners;
+    private final int patients;
+    private final int appointments;
+
+    // Zipf exponent of the diagnose ranks, 0 picks every diagnose equally often
+    private final double diagnoseSkew;
+    // Zipf exponent of the GP ranks when patients pick a family doctor, 0 gives every GP the same list size
+    private final double gpListSkew;
+    // Zipf exponent of the patient ranks, frequent visitors against patients seen once
+    private final double patientVisitSkew;
+
+    // Share of appointments that issue a sick leave, on average over the year
+    private final double sickLeaveRate;
+    // 0 for no season, 1 for twice the average rate at the peak and none half a year later
+    private final double sickLeaveSeasonality;
+    private final int sickLeavePeakDayOfYear;
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    private final int batchSize;
+
+    public static GeneratorSettings fromSystemProperties() {
+        return GeneratorSettings.builder()
+                // H2 file next to the build output by default, for MySQL add rewriteBatchedStatements=true to the url
+                .url(System.getProperty("datagen.url", "jdbc:h2:file:./build/datagen/medical-record"))
+                .username(System.getProperty("datagen.username", "sa"))
+                .password(System.getProperty("datagen.password", ""))
+                .seed(Long.getLong("datagen.seed", 42L))
+                .specializations(Integer.getInteger("datagen.specializations", 40))
+                .diagnoses(Integer.getInteger("datagen.diagnoses", 2_000))
+                .treatments(Integer.getInteger("datagen.treatments", 500))
+                .doctors(Integer.getInteger("datagen.doctors", 2_000))
+                .generalPractitioners(Integer.getInteger("datagen.generalPractitioners", 1_000))
+                .patients(Integer.getInteger("datagen.patients", 100_000))
+                .appointments(Integer.getInteger("datagen.appointments", 1_000_000))
+                .diagnoseSkew(doubleProperty("datagen.diagnoseSkew", 1.1))
+                .gpListSkew(doubleProperty("datagen.gpListSkew", 0.5))
+                .patientVisitSkew(doubleProperty("datagen.patientVisitSkew", 0.8))
+                .sickLeaveRate(doubleProperty("datagen.sickLeaveRate", 0.15))
+                .sickLeaveSeasonality(doubleProperty("datagen.sickLeaveSeasonality", 0.6))
+                .sickLeavePeakDayOfYear(Integer.getInteger("datagen.sickLeavePeakDayOfYear", 30))
+                .startDate(LocalDate.parse(System.getProperty("datagen.startDate", "2020-01-01")))
+                .endDate(LocalDate.parse(System.getProperty("datagen.endDate", "2024-12-31")))
+                .batchSize(Integer.getInteger("datagen.batchSize", 1_000))
+                .build();
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+}
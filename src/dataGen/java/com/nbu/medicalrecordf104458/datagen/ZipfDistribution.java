@@ -0,0 +1,37 @@
+package com.nbu.medicalrecordf104458.datagen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Ranks 0..size-1 where rank k is drawn with a probability proportional to 1 / (k + 1)^exponent.
+// The cumulative weights are computed once, every sample is a binary search over them
+public class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    public ZipfDistribution(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("A distribution needs at least one rank.");
+        }
+
+        cumulative = new double[size];
+        double total = 0;
+
+        for (int rank = 0; rank < size; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= total;
+        }
+    }
+
+    public int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+
+        // Not found gives -(insertion point) - 1, the first rank whose cumulative weight is above the draw
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+}
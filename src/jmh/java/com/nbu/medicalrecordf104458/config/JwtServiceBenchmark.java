@@ -0,0 +1,79 @@
+package com.nbu.medicalrecordf104458.config;
+
+import com.nbu.medicalrecordf104458.model.user.Role;
+import com.nbu.medicalrecordf104458.model.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Tokens validated per second the way the auth filter does it, before and after the single parse
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET_KEY = "363105074a5a0855f0855e349119a89b4fae817359a24267b08f3e6d7a0cb484";
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        user = User.builder()
+                .email("doctor@mail.com")
+                .password("password")
+                .role(Role.DOCTOR)
+                .build();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validateSingleParse() {
+        Claims claims = jwtService.validateToken(token);
+        return jwtService.isTokenValid(claims, user);
+    }
+
+    // The previous flow - the username, then the username again and the expiration,
+    // each with a freshly decoded key and a freshly built parser
+    @Benchmark
+    public boolean validateThreeParses() {
+        String username = parsePreviously(token).getSubject();
+        boolean valid = parsePreviously(token).getSubject().equals(user.getUsername())
+                && !parsePreviously(token).getExpiration().before(new Date());
+        return username != null && valid;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    private static Claims parsePreviously(String token) {
+        return Jwts
+                .parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.nbu.medicalrecordf104458.mapper;
+
+import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.queries.AppointmentIdPairDto;
+import com.nbu.medicalrecordf104458.model.AppointmentView;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.SickLeave;
+import com.nbu.medicalrecordf104458.model.Treatment;
+import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Mapping cost without the database - the join table reads of addLinkedIds answer from precomputed rows,
+// so only the grouping and the DTO building are measured
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DoctorAppointmentMapperBenchmark {
+
+    private static final int DIAGNOSES_PER_APPOINTMENT = 3;
+    private static final int TREATMENTS_PER_APPOINTMENT = 2;
+
+    // A page of the keyset listing and a full patient history
+    @Param({"20", "1000"})
+    private int appointmentsCount;
+
+    private DoctorAppointmentMapper mapper;
+    private List<DoctorAppointment> appointments;
+    private List<AppointmentView> views;
+
+    @Setup
+    public void setUp() {
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+
+        Patient patient = new Patient();
+        patient.setId(1L);
+
+        appointments = new ArrayList<>(appointmentsCount);
+        views = new ArrayList<>(appointmentsCount);
+        List<AppointmentIdPairDto> diagnosePairs = new ArrayList<>();
+        List<AppointmentIdPairDto> treatmentPairs = new ArrayList<>();
+
+        for (long id = 1; id <= appointmentsCount; id++) {
+            DoctorAppointment appointment = new DoctorAppointment();
+            appointment.setId(id);
+            appointment.setVersion(0L);
+            appointment.setVisitDate(LocalDate.of(2025, 1, 1).plusDays(id % 365));
+            appointment.setDoctor(doctor);
+            appointment.setPatient(patient);
+            appointment.setDiagnoses(new HashSet<>());
+
+            for (long i = 1; i <= DIAGNOSES_PER_APPOINTMENT; i++) {
+                Diagnose diagnose = new Diagnose();
+                diagnose.setId(i);
+                appointment.getDiagnoses().add(diagnose);
+                diagnosePairs.add(pair(id, i));
+            }
+
+            for (long i = 1; i <= TREATMENTS_PER_APPOINTMENT; i++) {
+                Treatment treatment = new Treatment();
+                treatment.setId(i);
+                appointment.getTreatments().add(treatment);
+                treatmentPairs.add(pair(id, i));
+            }
+
+            if (id % 10 == 0) {
+                SickLeave sickLeave = new SickLeave();
+                sickLeave.setId(id);
+                appointment.setSickLeave(sickLeave);
+            }
+
+            appointments.add(appointment);
+            views.add(new AppointmentView(id, 0L, appointment.getVisitDate(), doctor.getId(), doctor.getName(),
+                    patient.getId(), patient.getName(), appointment.getSickLeave() == null ? null : id));
+        }
+
+        mapper = new DoctorAppointmentMapper(null, null, null, null, null,
+                appointmentRepository(diagnosePairs, treatmentPairs));
+    }
+
+    // Per appointment, the way single reads and writes map their result
+    @Benchmark
+    public List<AppointmentDto> convertToDto() {
+        List<AppointmentDto> dtos = new ArrayList<>(appointments.size());
+
+        for (DoctorAppointment appointment : appointments) {
+            dtos.add(mapper.convertToDto(appointment));
+        }
+
+        return dtos;
+    }
+
+    // The projection the view rows are written from, then mapped the way the view reads are
+    @Benchmark
+    public List<AppointmentDto> addLinkedIds() {
+        return mapper.addLinkedIds(views).stream()
+                .map(mapper::convertToDto)
+                .toList();
+    }
+
+    // Only the two join table reads are called by addLinkedIds, the batches are small enough to return every row
+    private static DoctorAppointmentRepository appointmentRepository(List<AppointmentIdPairDto> diagnosePairs,
+                                                                     List<AppointmentIdPairDto> treatmentPairs) {
+        return (DoctorAppointmentRepository) Proxy.newProxyInstance(
+                DoctorAppointmentRepository.class.getClassLoader(),
+                new Class<?>[]{DoctorAppointmentRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findDiagnoseIdPairs" -> diagnosePairs;
+                    case "findTreatmentIdPairs" -> treatmentPairs;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static AppointmentIdPairDto pair(Long appointmentId, Long linkedId) {
+        return new AppointmentIdPairDto() {
+            @Override
+            public Long getAppointmentId() {
+                return appointmentId;
+            }
+
+            @Override
+            public Long getLinkedId() {
+                return linkedId;
+            }
+        };
+    }
+
+}
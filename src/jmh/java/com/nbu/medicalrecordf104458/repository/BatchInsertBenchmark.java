@@ -0,0 +1,144 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Appointment rows inserted per second with IDENTITY ids against pooled-lo sequence ids and JDBC batches of 50,
+// the settings of application.properties. An in-memory H2 has no network round trip per statement,
+// so on MySQL the gap is wider than here
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchInsertBenchmark {
+
+    private static final int ROWS_PER_TRANSACTION = 1000;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(IdentityAppointment.class)
+                .addAnnotatedClass(PooledAppointment.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:batch-insert;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50")
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+                .setProperty(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, "pooled-lo")
+                .buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    // Keeps the tables from growing over the whole run
+    @TearDown(Level.Iteration)
+    public void deleteRows() {
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("delete from IdentityAppointment").executeUpdate();
+            session.createMutationQuery("delete from PooledAppointment").executeUpdate();
+        });
+    }
+
+    // The previous ids - Hibernate sends every insert on its own to read the generated key back
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void identityIds() {
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                session.persist(new IdentityAppointment(LocalDate.of(2025, 1, 1).plusDays(i % 365), i));
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void pooledLoBatchedIds() {
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                session.persist(new PooledAppointment(LocalDate.of(2025, 1, 1).plusDays(i % 365), i));
+            }
+        });
+    }
+
+    // The appointment columns without the associations, the ids are the only difference between the two
+    @Entity(name = "IdentityAppointment")
+    @Table(name = "identity_appointment")
+    public static class IdentityAppointment {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(name = "visit_date", nullable = false)
+        private LocalDate visitDate;
+
+        @Column(name = "patient_id", nullable = false)
+        private long patientId;
+
+        protected IdentityAppointment() {
+        }
+
+        IdentityAppointment(LocalDate visitDate, long patientId) {
+            this.visitDate = visitDate;
+            this.patientId = patientId;
+        }
+
+    }
+
+    @Entity(name = "PooledAppointment")
+    @Table(name = "pooled_appointment")
+    public static class PooledAppointment {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_appointment_seq")
+        @SequenceGenerator(name = "pooled_appointment_seq", sequenceName = "pooled_appointment_seq", allocationSize = 50)
+        private Long id;
+
+        @Column(name = "visit_date", nullable = false)
+        private LocalDate visitDate;
+
+        @Column(name = "patient_id", nullable = false)
+        private long patientId;
+
+        protected PooledAppointment() {
+        }
+
+        PooledAppointment(LocalDate visitDate, long patientId) {
+            this.visitDate = visitDate;
+            this.patientId = patientId;
+        }
+
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.nbu.medicalrecordf104458.service;
+
+import com.nbu.medicalrecordf104458.dto.queries.SickLeaveMonthCountDto;
+import com.nbu.medicalrecordf104458.repository.SickLeaveRepository;
+import com.nbu.medicalrecordf104458.service.implementation.SickLeaveServiceImpl;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// getMonthWithMostSickLeaves before and after the grouping moved into the database, both against an in-memory H2.
+// The service runs the repository's own query, the previous flow loads every sick leave and groups it in the JVM.
+// There is no network between H2 and the JVM, so on MySQL moving every row costs more than here
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SickLeaveMonthBenchmark {
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    @Param({"1000", "100000"})
+    private int sickLeavesCount;
+
+    private SessionFactory sessionFactory;
+    private SickLeaveService sickLeaveService;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        // H2 would otherwise hand back the last result of a query as long as the table hasn't changed
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(MonthSickLeave.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL,
+                        "jdbc:h2:mem:sick-leave-month;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50")
+                .buildSessionFactory();
+
+        sessionFactory.inTransaction(session -> {
+            for (int i = 1; i <= sickLeavesCount; i++) {
+                LocalDate startDate = LocalDate.of(2020, 1, 1).plusDays(i % 1825);
+                session.persist(new MonthSickLeave(startDate, startDate.plusDays(7)));
+
+                if (i % INSERT_BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+        });
+
+        String busiestMonthQuery = SickLeaveRepository.class
+                .getMethod("findMonthlySickLeaveCountsByCountDesc", Limit.class)
+                .getAnnotation(Query.class)
+                .value();
+
+        sickLeaveService = new SickLeaveServiceImpl(null, null, sickLeaveRepository(busiestMonthQuery), null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public String databaseGrouping() {
+        return sickLeaveService.getMonthWithMostSickLeaves();
+    }
+
+    // The previous flow - every sick leave loaded, copied into a set and grouped by month in memory
+    @Benchmark
+    public String inMemoryGrouping() {
+        Set<MonthSickLeave> allSickLeaves = new HashSet<>(sessionFactory.fromTransaction(session ->
+                session.createSelectionQuery("from SickLeave", MonthSickLeave.class).getResultList()));
+
+        Map<YearMonth, Long> monthCounts = allSickLeaves.stream()
+                .collect(Collectors.groupingBy(
+                        sickLeave -> YearMonth.from(sickLeave.startDate),
+                        Collectors.counting()
+                ));
+
+        return monthCounts.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(entry -> String.format(
+                        "The most sick leaves were issued in %s %d, with a total of %d sick leaves.",
+                        entry.getKey().getMonth().getDisplayName(TextStyle.FULL, Locale.getDefault()),
+                        entry.getKey().getYear(),
+                        entry.getValue()
+                ))
+                .orElse("There are no records of sick leaves.");
+    }
+
+    // Runs the busiest-month query of SickLeaveRepository in a transaction of its own, like the repository would
+    private SickLeaveRepository sickLeaveRepository(String busiestMonthQuery) {
+        return (SickLeaveRepository) Proxy.newProxyInstance(
+                SickLeaveRepository.class.getClassLoader(),
+                new Class<?>[]{SickLeaveRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findMonthlySickLeaveCountsByCountDesc")) {
+                        Limit limit = (Limit) args[0];
+                        return sessionFactory.fromTransaction(session -> session
+                                .createSelectionQuery(busiestMonthQuery, SickLeaveMonthCountDto.class)
+                                .setMaxResults(limit.max())
+                                .getResultList());
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    // The sick leave columns without the appointment, under the entity name the repository query uses
+    @Entity(name = "SickLeave")
+    @Table(name = "sick_leave", indexes = @Index(name = "idx_sick_leave_start_date", columnList = "start_date"))
+    public static class MonthSickLeave {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sick_leave_seq")
+        @SequenceGenerator(name = "sick_leave_seq", sequenceName = "sick_leave_seq", allocationSize = 50)
+        private Long id;
+
+        @Column(name = "start_date", nullable = false)
+        private LocalDate startDate;
+
+        @Column(name = "end_date", nullable = false)
+        private LocalDate endDate;
+
+        protected MonthSickLeave() {
+        }
+
+        MonthSickLeave(LocalDate startDate, LocalDate endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.nbu.medicalrecordf104458.utility;
+
+import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.InvalidDateException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Every date-range request is checked here. A valid range should cost close to nothing, a rejected one is
+// dominated by building the exception and its stack trace
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateValidatorBenchmark {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup
+    public void setUp() {
+        startDate = LocalDate.of(2025, 1, 1);
+        endDate = LocalDate.of(2025, 1, 31);
+    }
+
+    @Benchmark
+    public LocalDate validRange() {
+        DateValidator.validateDateRange(startDate, endDate);
+        return endDate;
+    }
+
+    @Benchmark
+    public InvalidDateException invalidRange() {
+        try {
+            DateValidator.validateDateRange(endDate, startDate);
+            return null;
+        } catch (InvalidDateException e) {
+            return e;
+        }
+    }
+
+}
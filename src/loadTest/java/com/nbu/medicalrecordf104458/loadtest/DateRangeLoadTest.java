@@ -0,0 +1,255 @@
+package com.nbu.medicalrecordf104458.loadtest;
+
+import com.nbu.medicalrecordf104458.config.JwtService;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.Specialization;
+import com.nbu.medicalrecordf104458.model.user.Role;
+import com.nbu.medicalrecordf104458.model.user.User;
+import com.nbu.medicalrecordf104458.repository.DiagnoseRepository;
+import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
+import com.nbu.medicalrecordf104458.repository.DoctorRepository;
+import com.nbu.medicalrecordf104458.repository.GeneralPractitionerRepository;
+import com.nbu.medicalrecordf104458.repository.PatientRepository;
+import com.nbu.medicalrecordf104458.repository.SpecializationRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Fires concurrent requests at the DoctorAppointmentController date-range endpoints and prints the latency
+// percentiles. The subclasses boot the application in one execution mode each, compare their p99 lines.
+// Concurrency and request count can be changed with -DloadTest.concurrency and -DloadTest.requests
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=warn",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=warn"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public abstract class DateRangeLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadTest.concurrency", 200);
+    private static final int REQUESTS = Integer.getInteger("loadTest.requests", 4000);
+    private static final int DOCTORS_COUNT = 10;
+    private static final int APPOINTMENTS_COUNT = 5000;
+    private static final LocalDate FIRST_VISIT_DATE = LocalDate.of(2024, 1, 1);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private SpecializationRepository specializationRepository;
+    @Autowired
+    private DiagnoseRepository diagnoseRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private GeneralPractitionerRepository gpRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private DoctorAppointmentRepository appointmentRepository;
+    @Autowired
+    private AppointmentViewService viewService;
+
+    private final List<Long> doctorIds = new ArrayList<>();
+    private final AtomicInteger emptyResponses = new AtomicInteger();
+    private String token;
+
+    protected abstract String modeName();
+
+    @BeforeAll
+    public void seed() {
+        Specialization specialization = new Specialization();
+        specialization.setName("Cardiology");
+        specialization = specializationRepository.save(specialization);
+
+        Diagnose diagnose = new Diagnose();
+        diagnose.setName("Flu");
+        diagnose.setDescription("A contagious respiratory illness caused by influenza viruses.");
+        diagnose = diagnoseRepository.save(diagnose);
+
+        GeneralPractitioner gp = new GeneralPractitioner();
+        gp.setName("Dr. Lichen Lekar");
+        gp.setSpecializations(new HashSet<>(Set.of(specialization)));
+        gp = gpRepository.save(gp);
+
+        Patient patient = new Patient();
+        patient.setName("Pacient Pacientov");
+        patient.setFamilyDoctor(gp);
+        patient.setLastInsurancePayment(LocalDate.of(2025, 1, 31));
+        patient.setUnifiedCivilNumber(1234L);
+        patient = patientRepository.save(patient);
+
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < DOCTORS_COUNT; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setName("Dr. Doctor " + i);
+            doctor.setSpecializations(new HashSet<>(Set.of(specialization)));
+            doctors.add(doctorRepository.save(doctor));
+            doctorIds.add(doctors.get(i).getId());
+        }
+
+        List<DoctorAppointment> appointments = new ArrayList<>();
+        for (int i = 0; i < APPOINTMENTS_COUNT; i++) {
+            DoctorAppointment appointment = new DoctorAppointment();
+            appointment.setVisitDate(FIRST_VISIT_DATE.plusDays(i % 365));
+            appointment.setDoctor(doctors.get(i % DOCTORS_COUNT));
+            appointment.setPatient(patient);
+            appointment.setDiagnoses(new HashSet<>(Set.of(diagnose)));
+            appointments.add(appointment);
+        }
+        appointmentRepository.saveAll(appointments);
+
+        // The endpoints read appointment_view, which the repository saves above don't fill. The rebuild needs an
+        // admin, the authentication is made up for the setup
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "load-test", null, List.of(new SimpleGrantedAuthority(Role.ADMIN.name()))));
+
+        try {
+            viewService.rebuildAppointmentView();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        // The identity claims are enough to authenticate, the admin doesn't need a row of its own
+        token = jwtService.generateToken(User.builder()
+                .email("admin@mail.com")
+                .password("password")
+                .role(Role.ADMIN)
+                .build());
+    }
+
+    @Test
+    public void dateRangeEndpoints_underConcurrentLoad() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        Random random = new Random(42);
+
+        // Warm up, so the JIT and the connection pool don't end up in the measurement
+        runRequests(client, random, CONCURRENCY, Math.min(REQUESTS, 1000));
+
+        List<Long> betweenDates = Collections.synchronizedList(new ArrayList<>());
+        List<Long> doctorAndBetweenDates = Collections.synchronizedList(new ArrayList<>());
+        List<Callable<Integer>> requests = new ArrayList<>();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            LocalDate startDate = FIRST_VISIT_DATE.plusDays(random.nextInt(330));
+            LocalDate endDate = startDate.plusDays(7);
+
+            if (i % 2 == 0) {
+                requests.add(timed(client, "/doctor-appointments/between-dates/" + startDate + "/" + endDate, betweenDates));
+            } else {
+                Long doctorId = doctorIds.get(random.nextInt(doctorIds.size()));
+                requests.add(timed(client, "/doctor-appointments/doctor-and-between-dates/" + doctorId + "/" + startDate + "/" + endDate,
+                        doctorAndBetweenDates));
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Integer> statuses = execute(requests, CONCURRENCY);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        assertThat(statuses).containsOnly(200);
+        // Every window has visits of every doctor, an empty list means the reads missed the seeded rows
+        assertThat(emptyResponses).hasValue(0);
+
+        System.out.printf("[%s] %d requests, %d concurrent, %.0f requests/s%n", modeName(), REQUESTS, CONCURRENCY, REQUESTS / seconds);
+        report("between-dates", betweenDates);
+        report("doctor-and-between-dates", doctorAndBetweenDates);
+    }
+
+    private void runRequests(HttpClient client, Random random, int concurrency, int count) throws Exception {
+        List<Callable<Integer>> requests = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            LocalDate startDate = FIRST_VISIT_DATE.plusDays(random.nextInt(330));
+            requests.add(timed(client, "/doctor-appointments/between-dates/" + startDate + "/" + startDate.plusDays(7),
+                    new ArrayList<>()));
+        }
+
+        execute(requests, concurrency);
+    }
+
+    private Callable<Integer> timed(HttpClient client, String path, List<Long> latencies) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+
+        return () -> {
+            long start = System.nanoTime();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            latencies.add(System.nanoTime() - start);
+
+            if (response.body().equals("[]")) {
+                emptyResponses.incrementAndGet();
+            }
+
+            return response.statusCode();
+        };
+    }
+
+    // The clients are platform threads in both modes, only the server side changes
+    private List<Integer> execute(List<Callable<Integer>> requests, int concurrency) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+
+        try {
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> future : executor.invokeAll(requests)) {
+                statuses.add(future.get());
+            }
+            return statuses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void report(String endpoint, List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+
+        System.out.printf("[%s] %-26s p50 %7.2f ms   p99 %7.2f ms   max %7.2f ms%n", modeName(), endpoint,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted.get(sorted.size() - 1) / 1_000_000.0);
+    }
+
+    private double percentile(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+
+}
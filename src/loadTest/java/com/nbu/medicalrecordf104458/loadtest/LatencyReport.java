@@ -0,0 +1,67 @@
+package com.nbu.medicalrecordf104458.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latencies per endpoint in HdrHistograms, 3 significant digits from a microsecond up.
+// print() gives the summary table, write() one .hgrm file per endpoint - the full percentile distribution
+// in milliseconds, which the HdrHistogram plotter can draw against the .hgrm files of an earlier run
+public class LatencyReport {
+
+    private static final double NANOS_PER_MILLISECOND = 1_000_000.0;
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long nanos, int status) {
+        histograms.computeIfAbsent(endpoint, name -> new ConcurrentHistogram(3)).recordValue(nanos);
+
+        if (status >= 400) {
+            failures.computeIfAbsent(endpoint, name -> new LongAdder()).increment();
+        }
+    }
+
+    public long getFailures() {
+        return failures.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public void print(String title, double seconds) {
+        long total = histograms.values().stream().mapToLong(Histogram::getTotalCount).sum();
+
+        System.out.printf("[%s] %d requests in %.1f s, %.0f requests/s%n", title, total, seconds, total / seconds);
+        System.out.printf("[%s] %-28s %8s %9s %9s %9s %9s %9s %9s %6s%n", title, "endpoint", "count", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+
+        new TreeMap<>(histograms).forEach((endpoint, histogram) -> System.out.printf(
+                "[%s] %-28s %8d %9.0f %9.2f %9.2f %9.2f %9.2f %9.2f %6d%n", title, endpoint,
+                histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()),
+                failures.containsKey(endpoint) ? failures.get(endpoint).sum() : 0));
+    }
+
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                entry.getValue().outputPercentileDistribution(out, NANOS_PER_MILLISECOND);
+            }
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLISECOND;
+    }
+
+}
@@ -0,0 +1,318 @@
+package com.nbu.medicalrecordf104458.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nbu.medicalrecordf104458.datagen.DataGenerator;
+import com.nbu.medicalrecordf104458.datagen.GeneratorSettings;
+import com.nbu.medicalrecordf104458.datagen.ZipfDistribution;
+import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.auth.RegisterDoctorDto;
+import com.nbu.medicalrecordf104458.dto.auth.RegisterPatientDto;
+import com.nbu.medicalrecordf104458.dto.auth.RegisterUserDto;
+import com.nbu.medicalrecordf104458.model.user.Role;
+import com.nbu.medicalrecordf104458.model.user.User;
+import com.nbu.medicalrecordf104458.repository.user.UserRepository;
+import com.nbu.medicalrecordf104458.service.UserService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Boots the application on an embedded database filled by the synthetic data generator, registers ADMIN, DOCTOR and
+// PATIENT users through the UserService for their tokens, and drives a weighted mix of reads and writes across the
+// three roles. Prints a latency table per endpoint and writes the HdrHistogram distributions to
+// build/reports/load-test/mixed-workload, run it before and after a change and compare the two.
+// -DloadTest.concurrency, .requests, .warmup, .usersPerRole, .patients, .appointments and .doctors size the run,
+// -DloadTest.weight.<endpoint>=<n> changes the mix (0 leaves the endpoint out), -Ddatagen.* the generated data.
+// Every client loops request after request, so a stalled server also slows the load down - the latencies are what a
+// fixed number of busy users would see, not what an open arrival rate would
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:mixed-load-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=warn",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=warn"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class MixedWorkloadLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadTest.concurrency", 50);
+    private static final int REQUESTS = Integer.getInteger("loadTest.requests", 20_000);
+    private static final int WARMUP_REQUESTS = Integer.getInteger("loadTest.warmup", 2_000);
+    private static final int USERS_PER_ROLE = Integer.getInteger("loadTest.usersPerRole", 5);
+    private static final Path REPORT_DIRECTORY = Path.of("build", "reports", "load-test", "mixed-workload");
+    private static final String PASSWORD = "load-test-password";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private GeneratorSettings settings;
+    private DataGenerator generator;
+    private ZipfDistribution diagnoseRanks;
+
+    private final List<LoadUser> admins = new ArrayList<>();
+    private final List<LoadUser> doctors = new ArrayList<>();
+    private final List<LoadUser> patients = new ArrayList<>();
+
+    // A user of the endpoint's role, id is the doctor or patient behind the account
+    private record LoadUser(String token, Long id) {
+    }
+
+    private record Endpoint(String name, List<LoadUser> users, int weight,
+                            BiFunction<SplittableRandom, LoadUser, HttpRequest.Builder> request) {
+    }
+
+    @BeforeAll
+    public void seed() throws Exception {
+        settings = GeneratorSettings.fromSystemProperties().toBuilder()
+                .patients(Integer.getInteger("loadTest.patients", 2_000))
+                .appointments(Integer.getInteger("loadTest.appointments", 50_000))
+                .doctors(Integer.getInteger("loadTest.doctors", 100))
+                .generalPractitioners(Math.max(Integer.getInteger("loadTest.doctors", 100) / 2, 1))
+                .build();
+        generator = new DataGenerator(settings);
+        diagnoseRanks = new ZipfDistribution(settings.getDiagnoses(), settings.getDiagnoseSkew());
+
+        try (Connection connection = dataSource.getConnection()) {
+            generator.generate(connection);
+        }
+
+        registerUsers();
+    }
+
+    @Test
+    public void mixedWorkload_underConcurrentLoad() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        SplittableRandom random = new SplittableRandom(settings.getSeed());
+        List<Endpoint> mix = endpoints();
+
+        // Warm up, so the JIT, the caches and the connection pool don't end up in the measurement
+        run(client, mix, WARMUP_REQUESTS, random);
+
+        long start = System.nanoTime();
+        LatencyReport report = run(client, mix, REQUESTS, random);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        report.print("mixed-workload", seconds);
+        report.write(REPORT_DIRECTORY);
+
+        assertThat(report.getFailures()).isZero();
+    }
+
+    // Registering needs an admin, the first one registers with an authentication made up for the setup
+    private void registerUsers() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "load-test", null, List.of(new SimpleGrantedAuthority(Role.ADMIN.name()))));
+
+        try {
+            for (int i = 0; i < USERS_PER_ROLE; i++) {
+                admins.add(new LoadUser(userService.registerAdmin(RegisterUserDto.builder()
+                        .email("admin" + i + "@load.test")
+                        .password(PASSWORD)
+                        .role(Role.ADMIN)
+                        .build()).getToken(), null));
+
+                String doctorEmail = "doctor" + i + "@load.test";
+                String doctorToken = userService.registerDoctor(RegisterDoctorDto.builder()
+                        .name("Dr. Load Test " + i)
+                        .specializationIds(Set.of(generator.getSpecializationFirstId()))
+                        .email(doctorEmail)
+                        .password(PASSWORD)
+                        .build()).getToken();
+                doctors.add(new LoadUser(doctorToken, registered(doctorEmail).getDoctor().getId()));
+
+                String patientEmail = "patient" + i + "@load.test";
+                String patientToken = userService.registerPatient(RegisterPatientDto.builder()
+                        .name("Load Test Patient " + i)
+                        .unifiedCivilNumber(9_000_000_000L + i)
+                        .lastInsurancePayment(settings.getEndDate())
+                        .familyDoctorId(generator.getGpFirstId() + i % settings.getGeneralPractitioners())
+                        .email(patientEmail)
+                        .password(PASSWORD)
+                        .build()).getToken();
+                patients.add(new LoadUser(patientToken, registered(patientEmail).getPatient().getId()));
+            }
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // The doctors write appointments for the registered patients, so the patients' own reads grow during the run
+    private List<Endpoint> endpoints() {
+        List<Endpoint> endpoints = List.of(
+                endpoint("appointments-between-dates", admins, 3, (random, user) -> {
+                    LocalDate startDate = randomDate(random, 7);
+                    return get("/doctor-appointments/between-dates/" + startDate + "/" + startDate.plusDays(7));
+                }),
+                endpoint("appointments-page", admins, 2, (random, user) -> get(
+                        "/doctor-appointments/page?afterVisitDate=" + randomDate(random, 0) + "&afterId=0&size=50")),
+                endpoint("patients-by-diagnose", admins, 1, (random, user) -> get(
+                        "/patients/patients-by-diagnose/" + randomDiagnoseId(random))),
+                endpoint("most-common-diagnoses", admins, 1, (random, user) -> get("/diagnoses/most-common-diagnoses")),
+                endpoint("gp-patients-count", admins, 1, (random, user) -> get("/general-practitioners/patients-count")),
+                endpoint("sick-leaves-histogram", admins, 1, (random, user) -> {
+                    LocalDate startDate = randomDate(random, 90);
+                    return get("/sick-leaves/monthly-histogram/" + startDate + "/" + startDate.plusDays(90));
+                }),
+                endpoint("doctor-between-dates", doctors, 3, (random, user) -> {
+                    LocalDate startDate = randomDate(random, 30);
+                    return get("/doctor-appointments/doctor-and-between-dates/" + randomDoctorId(random) + "/"
+                            + startDate + "/" + startDate.plusDays(30));
+                }),
+                endpoint("patient-by-id", doctors, 3, (random, user) -> get(
+                        "/patients/" + (generator.getPatientFirstId() + random.nextInt(settings.getPatients())))),
+                endpoint("create-appointment", doctors, 1, (random, user) -> post("/doctor-appointments/",
+                        newAppointment(random, user))),
+                endpoint("own-patient", patients, 2, (random, user) -> get("/patients/" + user.id())),
+                endpoint("own-appointments", patients, 2, (random, user) -> get("/patients/" + user.id() + "/appointments")),
+                endpoint("own-insurance-status", patients, 1, (random, user) -> get(
+                        "/patients/" + user.id() + "/insurance-status"))
+        );
+
+        return endpoints.stream()
+                .filter(endpoint -> endpoint.weight() > 0)
+                .toList();
+    }
+
+    private Endpoint endpoint(String name, List<LoadUser> users, int defaultWeight,
+                              BiFunction<SplittableRandom, LoadUser, HttpRequest.Builder> request) {
+        return new Endpoint(name, users, Integer.getInteger("loadTest.weight." + name, defaultWeight), request);
+    }
+
+    // Every client draws its endpoints, users and parameters from its own stream split off the seed
+    private LatencyReport run(HttpClient client, List<Endpoint> mix, int requests, SplittableRandom random)
+            throws Exception {
+        LatencyReport report = new LatencyReport();
+        AtomicInteger remaining = new AtomicInteger(requests);
+        int totalWeight = mix.stream().mapToInt(Endpoint::weight).sum();
+        List<Callable<Void>> clients = new ArrayList<>();
+
+        for (int i = 0; i < CONCURRENCY; i++) {
+            SplittableRandom clientRandom = random.split();
+
+            clients.add(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    Endpoint endpoint = pick(mix, clientRandom.nextInt(totalWeight));
+                    LoadUser user = endpoint.users().get(clientRandom.nextInt(endpoint.users().size()));
+                    HttpRequest request = endpoint.request().apply(clientRandom, user)
+                            .header("Authorization", "Bearer " + user.token())
+                            .build();
+
+                    long start = System.nanoTime();
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    report.record(endpoint.name(), System.nanoTime() - start, response.statusCode());
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+
+        try {
+            for (Future<Void> future : executor.invokeAll(clients)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return report;
+    }
+
+    private Endpoint pick(List<Endpoint> mix, int draw) {
+        for (Endpoint endpoint : mix) {
+            draw -= endpoint.weight();
+
+            if (draw < 0) {
+                return endpoint;
+            }
+        }
+
+        throw new IllegalStateException("The draw is outside of the total weight.");
+    }
+
+    private String newAppointment(SplittableRandom random, LoadUser doctor) {
+        AppointmentDto appointment = new AppointmentDto();
+        appointment.setVisitDate(randomDate(random, 0));
+        appointment.setDoctorId(doctor.id());
+        appointment.setPatientId(patients.get(random.nextInt(patients.size())).id());
+        appointment.setDiagnoses(Set.of(randomDiagnoseId(random)));
+
+        try {
+            return objectMapper.writeValueAsString(appointment);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Skewed like the generated appointments, the frequent diagnoses are the ones asked about most
+    private long randomDiagnoseId(SplittableRandom random) {
+        return generator.getDiagnoseFirstId() + diagnoseRanks.sample(random);
+    }
+
+    private long randomDoctorId(SplittableRandom random) {
+        return generator.getDoctorFirstId()
+                + random.nextInt(settings.getDoctors() + settings.getGeneralPractitioners());
+    }
+
+    // A date in the generated range that leaves room for a window of the given days after it
+    private LocalDate randomDate(SplittableRandom random, int windowDays) {
+        long days = ChronoUnit.DAYS.between(settings.getStartDate(), settings.getEndDate()) - windowDays;
+        return settings.getStartDate().plusDays(random.nextLong(Math.max(days, 1)));
+    }
+
+    private User registered(String email) {
+        return userRepository.findByEmail(email).orElseThrow();
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.nbu.medicalrecordf104458.loadtest;
+
+// The default mode - every request holds one of Tomcat's platform threads
+public class PlatformThreadsDateRangeLoadTest extends DateRangeLoadTest {
+
+    @Override
+    protected String modeName() {
+        return "platform-threads";
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.nbu.medicalrecordf104458.loadtest;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.ActiveProfiles;
+
+// Needs the build to run on 21, ./gradlew loadTest -PjavaVersion=21
+@ActiveProfiles("virtual-threads")
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class VirtualThreadsDateRangeLoadTest extends DateRangeLoadTest {
+
+    @Override
+    protected String modeName() {
+        return "virtual-threads";
+    }
+
+}
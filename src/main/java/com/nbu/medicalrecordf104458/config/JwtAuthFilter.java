@@ -1,5 +1,8 @@
 package com.nbu.medicalrecordf104458.config;
 
+import com.nbu.medicalrecordf104458.model.user.AuthenticatedUser;
+import com.nbu.medicalrecordf104458.model.user.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,6 +26,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(
@@ -32,6 +36,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
+        final Claims claims;
         final String userEmail;
 
         //The bearer token always starts with the key word Bearer
@@ -41,12 +46,20 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
+        // Parsed and verified once, everything below reads the same claims
+        claims = jwtService.validateToken(jwt);
+        userEmail = claims.getSubject();
 
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+            UserDetails userDetails = jwtService.extractAuthenticatedUser(claims);
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            // Tokens issued before the identity claims were added still need the user lookup
+            if (userDetails == null) {
+                userDetails = principalCache.get(userEmail, claims.getIssuedAt(),
+                        email -> AuthenticatedUser.from((User) userDetailsService.loadUserByUsername(email)));
+            }
+
+            if (jwtService.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities()
                 );
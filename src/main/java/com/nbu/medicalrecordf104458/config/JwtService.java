@@ -1,6 +1,10 @@
 package com.nbu.medicalrecordf104458.config;
 
+import com.nbu.medicalrecordf104458.model.user.AuthenticatedUser;
+import com.nbu.medicalrecordf104458.model.user.Role;
+import com.nbu.medicalrecordf104458.model.user.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -16,8 +20,18 @@ import java.util.function.Function;
 @Service
 public class JwtService {
 
+    private static final String ROLE_CLAIM = "role";
+    private static final String DOCTOR_ID_CLAIM = "doctorId";
+    private static final String PATIENT_ID_CLAIM = "patientId";
+
     private static final String SECRET_KEY = "363105074a5a0855f0855e349119a89b4fae817359a24267b08f3e6d7a0cb484";
 
+    // Both are immutable and thread-safe, so they are built once instead of on every parse
+    private final SecretKey signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+    private final JwtParser parser = Jwts.parser()
+            .verifyWith(signInKey)
+            .build();
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -28,7 +42,21 @@ public class JwtService {
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> identityClaims = new HashMap<>();
+
+        // Who the user is, so the requests with this token don't have to load the user
+        if (userDetails instanceof User user) {
+            identityClaims.put(ROLE_CLAIM, user.getRole().name());
+
+            if (user.getDoctor() != null) {
+                identityClaims.put(DOCTOR_ID_CLAIM, user.getDoctor().getId());
+            }
+            if (user.getPatient() != null) {
+                identityClaims.put(PATIENT_ID_CLAIM, user.getPatient().getId());
+            }
+        }
+
+        return generateToken(identityClaims, userDetails);
     }
 
     public String generateToken(
@@ -46,31 +74,53 @@ public class JwtService {
                 .compact();
     }
 
+    // Verifies the signature once, the returned claims can be checked and read without parsing the token again
+    public Claims validateToken(String token) {
+        return extractAllClaims(token);
+    }
+
+    // Null for tokens issued without the identity claims
+    public AuthenticatedUser extractAuthenticatedUser(Claims claims) {
+        String role = claims.get(ROLE_CLAIM, String.class);
+
+        if (role == null) {
+            return null;
+        }
+
+        return new AuthenticatedUser(
+                claims.getSubject(),
+                Role.valueOf(role),
+                extractId(claims, DOCTOR_ID_CLAIM),
+                extractId(claims, PATIENT_ID_CLAIM)
+        );
+    }
+
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(validateToken(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return (claims.getSubject().equals(userDetails.getUsername())) && !isTokenExpired(claims);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
+    }
+
+    // JSON numbers come back as Integer or Long depending on their size
+    private Long extractId(Claims claims, String claimName) {
+        Number id = claims.get(claimName, Number.class);
+        return id != null ? id.longValue() : null;
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSignInKey())
-                .build()
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
     private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signInKey;
     }
 
 }
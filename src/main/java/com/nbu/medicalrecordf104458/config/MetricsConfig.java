@@ -0,0 +1,32 @@
+package com.nbu.medicalrecordf104458.config;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.AbstractRepositoryMetadata;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The repository calls are timed by Spring Boot as spring.data.repository.invocations, tagged with the repository,
+// the method, the state and the exception. The entity tag is added here, so they can be grouped like the services
+@Configuration
+public class MetricsConfig {
+
+    private final Map<Class<?>, Tag> entityTags = new ConcurrentHashMap<>();
+
+    @Bean
+    public RepositoryTagsProvider repositoryTagsProvider() {
+        DefaultRepositoryTagsProvider defaultTagsProvider = new DefaultRepositoryTagsProvider();
+
+        return invocation -> Tags.of(defaultTagsProvider.repositoryTags(invocation))
+                .and(entityTags.computeIfAbsent(invocation.getRepositoryInterface(), repositoryInterface ->
+                        Tag.of("entity", AbstractRepositoryMetadata.getMetadata(repositoryInterface)
+                                .getDomainType()
+                                .getSimpleName())));
+    }
+
+}
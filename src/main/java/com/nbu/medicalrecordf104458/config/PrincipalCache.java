@@ -0,0 +1,85 @@
+package com.nbu.medicalrecordf104458.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+// Keeps the users behind recently seen tokens, so authenticated requests don't look the user up every time.
+// Published with Micrometer's Caffeine meters under cache=principals
+@Component
+public class PrincipalCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "principals";
+    private static final int MAX_SIZE = 10_000;
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    private final Cache<Key, UserDetails> principals;
+
+    public PrincipalCache() {
+        this(Ticker.systemTicker(), ForkJoinPool.commonPool(), MAX_SIZE, TIME_TO_LIVE);
+    }
+
+    // The ticker and the executor the evictions run on are passed in by the tests
+    PrincipalCache(Ticker ticker, Executor executor, int maxSize, Duration timeToLive) {
+        this.principals = Caffeine.newBuilder()
+                .ticker(ticker)
+                .executor(executor)
+                .maximumSize(maxSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+    }
+
+    // Requests with the same token wait for one lookup instead of each doing their own. Whatever the loader throws
+    // is passed on and nothing is cached
+    public UserDetails get(String email, Date issuedAt, Function<String, UserDetails> loader) {
+        return principals.get(new Key(email, issuedAt == null ? 0 : issuedAt.getTime()), key -> loader.apply(email));
+    }
+
+    // Drops every token's entry for the user, the next request loads it again
+    public void invalidate(String email) {
+        principals.asMap().keySet().removeIf(key -> key.email().equals(email));
+    }
+
+    // Inside a transaction the entry is dropped once it commits, dropped before that a concurrent request could
+    // cache the user from the old rows again
+    public void invalidateAfterCommit(String email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(email);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(email);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, principals, CACHE_NAME);
+    }
+
+    public long size() {
+        return principals.estimatedSize();
+    }
+
+    private record Key(String email, long issuedAt) {
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.nbu.medicalrecordf104458.config;
+
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.Specialization;
+import com.nbu.medicalrecordf104458.model.Treatment;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions.Catalog;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Moves the ETag versions in ResourceVersions on once a transaction that changed them commits. Hooked into Hibernate
+// instead of the services, so the appointment and doctor writes that change a catalog's appointment and doctor ids
+// through the join tables are covered as well
+@Component
+@RequiredArgsConstructor
+public class ResourceVersionListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    private static final Map<Class<?>, Catalog> CATALOGS = Map.of(
+            Diagnose.class, Catalog.DIAGNOSES,
+            Specialization.class, Catalog.SPECIALIZATIONS,
+            Treatment.class, Catalog.TREATMENTS
+    );
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ResourceVersions resourceVersions;
+    private final Map<String, Set<Catalog>> collectionCatalogs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        entityChanged(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        entityChanged(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        entityChanged(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        collectionChanged(event);
+    }
+
+    // The versions are moved on from the events above, after the commit, not from Hibernate's post-commit callbacks
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void entityChanged(EventSource session, EntityPersister persister, Object id) {
+        Class<?> entityClass = persister.getMappedClass();
+        Catalog catalog = catalogOf(entityClass);
+
+        if (catalog != null) {
+            afterCommit(session, () -> resourceVersions.catalogChanged(catalog));
+        } else if (entityClass == Patient.class) {
+            afterCommit(session, () -> resourceVersions.patientChanged((Long) id));
+        }
+    }
+
+    // The collection's own persister isn't reachable from every event, so any collection change of an entity
+    // moves on all catalogs its collections point to or that it is itself
+    private void collectionChanged(AbstractCollectionEvent event) {
+        for (Catalog catalog : collectionCatalogs.computeIfAbsent(event.getAffectedOwnerEntityName(),
+                ownerName -> findCollectionCatalogs(event.getSession().getFactory().getMappingMetamodel(), ownerName))) {
+            afterCommit(event.getSession(), () -> resourceVersions.catalogChanged(catalog));
+        }
+    }
+
+    // A join table row belongs to both of its sides, so either the owner or the element can be the catalog
+    private Set<Catalog> findCollectionCatalogs(MappingMetamodel metamodel, String ownerName) {
+        Class<?> ownerClass = metamodel.getEntityDescriptor(ownerName).getMappedClass();
+        Set<Catalog> catalogs = EnumSet.noneOf(Catalog.class);
+
+        metamodel.forEachCollectionDescriptor(persister -> {
+            if (persister.getOwnerEntityPersister().getMappedClass().isAssignableFrom(ownerClass)) {
+                Catalog ownerCatalog = catalogOf(ownerClass);
+                // getElementClass only covers arrays, the element descriptor has the class of every collection
+                Catalog elementCatalog = catalogOf(
+                        persister.getAttributeMapping().getElementDescriptor().getJavaType().getJavaTypeClass());
+
+                if (ownerCatalog != null) {
+                    catalogs.add(ownerCatalog);
+                }
+                if (elementCatalog != null) {
+                    catalogs.add(elementCatalog);
+                }
+            }
+        });
+
+        return catalogs;
+    }
+
+    // Not every collection element has a class, an embeddable or a basic value may not
+    private Catalog catalogOf(Class<?> type) {
+        return type != null ? CATALOGS.get(type) : null;
+    }
+
+    // Moving a version on before the commit would let a request still reading the old rows tag them with the new one
+    private void afterCommit(EventSource session, Runnable action) {
+        session.getActionQueue().registerProcess((success, completedSession) -> {
+            if (success) {
+                action.run();
+            }
+        });
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.nbu.medicalrecordf104458.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -41,6 +42,9 @@ public class SecurityConfig {
                                 .requestMatchers("/api/v1/auth/register-patient/**").hasAuthority("ADMIN")
                                 .requestMatchers("/api/v1/auth/authenticate/**").permitAll()
 
+                                // Only served on the management port, which is for the metrics scraper
+                                .requestMatchers(EndpointRequest.toAnyEndpoint()).permitAll()
+
                                 // Admins can do everything
                                 // Doctors can view all sick leaves, patients, doctors, treatments, appointments and diagnoses
                                 // Patients can only view their own info about appointments
@@ -0,0 +1,55 @@
+package com.nbu.medicalrecordf104458.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+// Times every public *ServiceImpl method as medical.service, tagged with the entity the service is for, the method
+// and the exception it threw, like the repository timers. Ordered before the retries and the transaction, so a timing
+// includes the commit and every attempt. Stream results are timed until they are returned, not until consumed
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+    public static final String METRIC_NAME = "medical.service";
+
+    private static final String SERVICE_SUFFIX = "ServiceImpl";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.nbu.medicalrecordf104458.service.implementation.*ServiceImpl.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "None";
+
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .tag("entity", entityOf(ClassUtils.getUserClass(joinPoint.getTarget())))
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    // DoctorAppointmentServiceImpl is timed as DoctorAppointment. The signature would name the interface instead
+    private String entityOf(Class<?> serviceClass) {
+        String name = serviceClass.getSimpleName();
+
+        return name.endsWith(SERVICE_SUFFIX) ? name.substring(0, name.length() - SERVICE_SUFFIX.length()) : name;
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.nbu.medicalrecordf104458.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+// The transaction starts before the @PreAuthorize checks run, so a check and the method it guards share
+// one persistence context - an appointment or sick leave loaded by the check isn't queried again by the method.
+// Retries go around the transaction, a version conflict found at commit is retried in a new one.
+// Only the ServiceMetricsAspect timers come before them
+@Configuration
+@EnableRetry(order = Ordered.HIGHEST_PRECEDENCE + 1)
+@EnableTransactionManagement(order = Ordered.HIGHEST_PRECEDENCE + 2)
+public class TransactionConfig {
+}
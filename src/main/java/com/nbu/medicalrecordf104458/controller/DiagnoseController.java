@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Set;
 
@@ -25,8 +26,14 @@ public class DiagnoseController {
     private final DiagnoseService diagnoseService;
 
     @GetMapping("/")
-    public ResponseEntity<Set<DiagnoseDto>> getAllDiagnoses() {
-        return ResponseEntity.ok(diagnoseService.getAllDiagnoses());
+    public ResponseEntity<Set<DiagnoseDto>> getAllDiagnoses(WebRequest request) {
+        String eTag = diagnoseService.getDiagnosesETag();
+
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        return ResponseEntity.ok().eTag(eTag).body(diagnoseService.getAllDiagnoses());
     }
 
     @GetMapping("/{id}")
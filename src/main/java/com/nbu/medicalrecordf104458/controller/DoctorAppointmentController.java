@@ -1,10 +1,20 @@
 package com.nbu.medicalrecordf104458.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentImportResultDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentPageDto;
+import com.nbu.medicalrecordf104458.service.AppointmentImportService;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
 import com.nbu.medicalrecordf104458.service.DoctorAppointmentService;
+import com.nbu.medicalrecordf104458.utility.AppointmentImportFormat;
+import com.nbu.medicalrecordf104458.utility.NdjsonWriter;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,9 +22,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.Reader;
 import java.time.LocalDate;
 import java.util.Set;
 
@@ -23,13 +38,55 @@ import java.util.Set;
 @RestController
 public class DoctorAppointmentController {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final DoctorAppointmentService appointmentService;
+    private final AppointmentImportService importService;
+    private final AppointmentViewService viewService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/")
     public ResponseEntity<Set<AppointmentDto>> getAllAppointments() {
         return ResponseEntity.ok(appointmentService.getAllAppointments());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<AppointmentPageDto> getAppointmentsPage(@RequestParam(required = false) LocalDate afterVisitDate,
+                                                                  @RequestParam(required = false) Long afterId,
+                                                                  @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(appointmentService.getAppointmentsPage(afterVisitDate, afterId, size));
+    }
+
+    // Newline-delimited JSON, one appointment per line, ordered by visit date
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllAppointments() {
+        StreamingResponseBody body = outputStream -> appointmentService.streamAllAppointments(
+                appointmentDto -> NdjsonWriter.writeLine(objectMapper, outputStream, appointmentDto));
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // Bulk import, one appointment per line - invalid lines are reported and skipped, the rest is saved
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<AppointmentImportResultDto> importAppointmentsFromNdjson(Reader body,
+                                                                                  @RequestParam(defaultValue = "1000") int chunkSize) {
+        return ResponseEntity.ok(importService.importAppointments(new BufferedReader(body), AppointmentImportFormat.NDJSON, chunkSize));
+    }
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<AppointmentImportResultDto> importAppointmentsFromCsv(Reader body,
+                                                                               @RequestParam(defaultValue = "1000") int chunkSize) {
+        return ResponseEntity.ok(importService.importAppointments(new BufferedReader(body), AppointmentImportFormat.CSV, chunkSize));
+    }
+
+    // Recovery - builds the appointment read model again from the appointments, answers with the number of rows
+    @PostMapping("/view/rebuild")
+    public ResponseEntity<Long> rebuildAppointmentView() {
+        return ResponseEntity.ok(viewService.rebuildAppointmentView());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<AppointmentDto> getAppointmentById(@PathVariable Long id) {
         return ResponseEntity.ok(appointmentService.getAppointmentById(id));
@@ -41,11 +98,19 @@ public class DoctorAppointmentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdAppointment);
     }
 
+    // An If-Match of an older version is refused with 412 instead of overwriting the changes made since
     @PutMapping("/{id}")
-    public ResponseEntity<AppointmentDto> updateAppointment(@PathVariable Long id,
-                                                            @Valid @RequestBody AppointmentDto appointmentDto) {
+    public ResponseEntity<AppointmentDto> updateAppointment(@PathVariable Long id, @Valid @RequestBody AppointmentDto appointmentDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            appointmentDto.setVersion(VersionValidator.fromETag(ifMatch, "appointment", id));
+        }
+
         AppointmentDto updatedAppointment = appointmentService.updateAppointment(id, appointmentDto);
-        return ResponseEntity.ok(updatedAppointment);
+
+        return ResponseEntity.ok()
+                .eTag(VersionValidator.toETag("appointment", id, updatedAppointment.getVersion()))
+                .body(updatedAppointment);
     }
 
     @DeleteMapping("/{id}")
@@ -1,10 +1,13 @@
 package com.nbu.medicalrecordf104458.controller;
 
 import com.nbu.medicalrecordf104458.dto.queries.DoctorAppointmentsCountDto;
+import com.nbu.medicalrecordf104458.dto.queries.DoctorSickLeavesCountDto;
 import com.nbu.medicalrecordf104458.dto.DoctorDto;
 import com.nbu.medicalrecordf104458.service.DoctorService;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,6 +16,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -43,10 +47,15 @@ public class DoctorController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<DoctorDto> updateDoctor(@PathVariable Long id, @Valid @RequestBody DoctorDto dto) {
+    public ResponseEntity<DoctorDto> updateDoctor(@PathVariable Long id, @Valid @RequestBody DoctorDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            dto.setVersion(VersionValidator.fromETag(ifMatch, "doctor", id));
+        }
+
         DoctorDto updatedDto = doctorService.updateDoctor(id, dto);
 
-        return ResponseEntity.ok(updatedDto);
+        return ResponseEntity.ok().eTag(VersionValidator.toETag("doctor", id, updatedDto.getVersion())).body(updatedDto);
     }
 
     @DeleteMapping("/{id}")
@@ -84,8 +93,8 @@ public class DoctorController {
     }
 
     @GetMapping("/doctors-with-most-sick-leaves")
-    public ResponseEntity<Set<DoctorDto>> getDoctorsWithMostSickLeaves() {
-        Set<DoctorDto> doctors = doctorService.findDoctorsWithMostSickLeaves();
+    public ResponseEntity<Set<DoctorSickLeavesCountDto>> getDoctorsWithMostSickLeaves() {
+        Set<DoctorSickLeavesCountDto> doctors = doctorService.findDoctorsWithMostSickLeaves();
         return ResponseEntity.ok(doctors);
     }
 
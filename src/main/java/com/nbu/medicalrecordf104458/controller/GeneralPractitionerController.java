@@ -3,8 +3,10 @@ package com.nbu.medicalrecordf104458.controller;
 import com.nbu.medicalrecordf104458.dto.GeneralPractitionerDto;
 import com.nbu.medicalrecordf104458.dto.queries.GpPatientsCountDto;
 import com.nbu.medicalrecordf104458.service.GeneralPractitionerService;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -43,10 +46,15 @@ public class GeneralPractitionerController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<GeneralPractitionerDto> updateDoctor(@PathVariable Long id, @Valid @RequestBody GeneralPractitionerDto dto) {
+    public ResponseEntity<GeneralPractitionerDto> updateDoctor(@PathVariable Long id, @Valid @RequestBody GeneralPractitionerDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            dto.getDoctor().setVersion(VersionValidator.fromETag(ifMatch, "doctor", id));
+        }
+
         GeneralPractitionerDto updatedDto = gpService.updateDoctor(id, dto);
 
-        return ResponseEntity.ok(updatedDto);
+        return ResponseEntity.ok().eTag(VersionValidator.toETag("doctor", id, updatedDto.getDoctor().getVersion())).body(updatedDto);
     }
 
     @DeleteMapping("/{id}")
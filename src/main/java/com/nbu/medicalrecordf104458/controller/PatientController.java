@@ -1,11 +1,16 @@
 package com.nbu.medicalrecordf104458.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nbu.medicalrecordf104458.dto.AppointmentDto;
 import com.nbu.medicalrecordf104458.dto.PatientDto;
 import com.nbu.medicalrecordf104458.service.PatientService;
+import com.nbu.medicalrecordf104458.utility.NdjsonWriter;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,8 +18,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Set;
 
@@ -24,6 +32,7 @@ import java.util.Set;
 public class PatientController {
 
     private final PatientService patientService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/")
     public ResponseEntity<Set<PatientDto>> getAllPatients() {
@@ -31,8 +40,14 @@ public class PatientController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PatientDto> getPatientById(@PathVariable Long id) {
-        return ResponseEntity.ok(patientService.getPatientById(id));
+    public ResponseEntity<PatientDto> getPatientById(@PathVariable Long id, WebRequest request) {
+        String eTag = patientService.getPatientETag(id);
+
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        return ResponseEntity.ok().eTag(eTag).body(patientService.getPatientById(id));
     }
 
     @PostMapping("/")
@@ -43,10 +58,15 @@ public class PatientController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<PatientDto> updatePatient(@PathVariable Long id, @Valid @RequestBody PatientDto dto) {
+    public ResponseEntity<PatientDto> updatePatient(@PathVariable Long id, @Valid @RequestBody PatientDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            dto.setVersion(VersionValidator.fromETag(ifMatch, "patient", id));
+        }
+
         PatientDto updatedDto = patientService.updatePatient(id, dto);
 
-        return ResponseEntity.ok(updatedDto);
+        return ResponseEntity.ok().eTag(VersionValidator.toETag("patient", id, updatedDto.getVersion())).body(updatedDto);
     }
 
     @DeleteMapping("/{id}")
@@ -86,4 +106,15 @@ public class PatientController {
         return ResponseEntity.ok(visits);
     }
 
+    // Newline-delimited JSON, one visit per line oldest first, with diagnoses, treatments and sick leave inlined
+    @GetMapping("/{id}/history/export")
+    public ResponseEntity<StreamingResponseBody> exportPatientHistory(@PathVariable Long id) {
+        StreamingResponseBody body = outputStream -> patientService.streamVisitHistory(
+                id, entry -> NdjsonWriter.writeLine(objectMapper, outputStream, entry));
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
 }
@@ -1,9 +1,12 @@
 package com.nbu.medicalrecordf104458.controller;
 
 import com.nbu.medicalrecordf104458.dto.SickLeaveDto;
+import com.nbu.medicalrecordf104458.dto.queries.SickLeaveMonthCountDto;
 import com.nbu.medicalrecordf104458.service.SickLeaveService;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -12,9 +15,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Set;
 
 @AllArgsConstructor
@@ -42,10 +48,15 @@ public class SickLeaveController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<SickLeaveDto> updateSickLeave(@PathVariable Long id, @Valid @RequestBody SickLeaveDto sickLeaveDto) {
+    public ResponseEntity<SickLeaveDto> updateSickLeave(@PathVariable Long id, @Valid @RequestBody SickLeaveDto sickLeaveDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            sickLeaveDto.setVersion(VersionValidator.fromETag(ifMatch, "sick-leave", id));
+        }
+
         SickLeaveDto updatedDto = sickLeaveService.updateSickLeave(id, sickLeaveDto);
 
-        return ResponseEntity.ok(updatedDto);
+        return ResponseEntity.ok().eTag(VersionValidator.toETag("sick-leave", id, updatedDto.getVersion())).body(updatedDto);
     }
 
     @DeleteMapping("/{id}")
@@ -61,4 +72,9 @@ public class SickLeaveController {
         return ResponseEntity.ok(result);
     }
 
+    @GetMapping("/monthly-histogram/{startDate}/{endDate}")
+    public ResponseEntity<List<SickLeaveMonthCountDto>> getMonthlySickLeavesHistogram(@PathVariable LocalDate startDate, @PathVariable LocalDate endDate) {
+        return ResponseEntity.ok(sickLeaveService.getMonthlySickLeavesHistogram(startDate, endDate));
+    }
+
 }
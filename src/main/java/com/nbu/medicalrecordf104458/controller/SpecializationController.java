@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Set;
 
@@ -25,8 +26,14 @@ public class SpecializationController {
     private final SpecializationService specializationService;
 
     @GetMapping("/")
-    public ResponseEntity<Set<SpecializationDto>> getAllSpecializations() {
-        return ResponseEntity.ok(specializationService.getAllSpecializations());
+    public ResponseEntity<Set<SpecializationDto>> getAllSpecializations(WebRequest request) {
+        String eTag = specializationService.getSpecializationsETag();
+
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        return ResponseEntity.ok().eTag(eTag).body(specializationService.getAllSpecializations());
     }
 
     @GetMapping("/{id}")
@@ -2,11 +2,14 @@ package com.nbu.medicalrecordf104458.controller;
 
 import com.nbu.medicalrecordf104458.dto.TreatmentDto;
 import com.nbu.medicalrecordf104458.service.TreatmentService;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Set;
 
@@ -18,8 +21,14 @@ public class TreatmentController {
     private final TreatmentService treatmentService;
 
     @GetMapping("/")
-    public ResponseEntity<Set<TreatmentDto>> getAllTreatments() {
-        return ResponseEntity.ok(treatmentService.getAllTreatments());
+    public ResponseEntity<Set<TreatmentDto>> getAllTreatments(WebRequest request) {
+        String eTag = treatmentService.getTreatmentsETag();
+
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        return ResponseEntity.ok().eTag(eTag).body(treatmentService.getAllTreatments());
     }
 
     @GetMapping("/{id}")
@@ -35,10 +44,15 @@ public class TreatmentController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<TreatmentDto> updateTreatment(@PathVariable Long id, @Valid @RequestBody TreatmentDto dto) {
+    public ResponseEntity<TreatmentDto> updateTreatment(@PathVariable Long id, @Valid @RequestBody TreatmentDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            dto.setVersion(VersionValidator.fromETag(ifMatch, "treatment", id));
+        }
+
         TreatmentDto updatedDto = treatmentService.updateTreatment(id, dto);
 
-        return ResponseEntity.ok(updatedDto);
+        return ResponseEntity.ok().eTag(VersionValidator.toETag("treatment", id, updatedDto.getVersion())).body(updatedDto);
     }
 
     @DeleteMapping("/{id}")
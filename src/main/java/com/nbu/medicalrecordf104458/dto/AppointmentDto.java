@@ -35,4 +35,11 @@ public class AppointmentDto {
 
     private Long sickLeaveId;
 
+    private Long version;
+
+    // Filled in the responses, ignored in the requests
+    private String doctorName;
+
+    private String patientName;
+
 }
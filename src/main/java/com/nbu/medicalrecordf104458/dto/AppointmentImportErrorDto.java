@@ -0,0 +1,18 @@
+package com.nbu.medicalrecordf104458.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentImportErrorDto {
+
+    private long lineNumber;
+
+    private String message;
+
+}
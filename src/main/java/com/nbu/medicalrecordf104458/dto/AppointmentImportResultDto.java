@@ -0,0 +1,22 @@
+package com.nbu.medicalrecordf104458.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentImportResultDto {
+
+    private long importedCount;
+
+    // One entry per rejected line, ordered by line number
+    private List<AppointmentImportErrorDto> errors = new ArrayList<>();
+
+}
@@ -0,0 +1,25 @@
+package com.nbu.medicalrecordf104458.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentPageDto {
+
+    private List<AppointmentDto> appointments = new ArrayList<>();
+
+    // Cursor of the next page - both are null when this is the last page
+    private LocalDate nextVisitDate;
+
+    private Long nextId;
+
+}
@@ -22,4 +22,6 @@ public class DoctorDto {
     @NotEmpty(message = "Doctor should have at least one specialization")
     private Set<Long> specializationIds;
 
+    private Long version;
+
 }
@@ -25,4 +25,6 @@ public class SickLeaveDto {
     @NotNull(message = "A sick leave must have an appointment")
     private Long doctorAppointmentId;
 
+    private Long version;
+
 }
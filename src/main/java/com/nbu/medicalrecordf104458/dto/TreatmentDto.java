@@ -28,4 +28,6 @@ public class TreatmentDto {
 
     private Set<Long> appointmentIds = new HashSet<>();
 
+    private Long version;
+
 }
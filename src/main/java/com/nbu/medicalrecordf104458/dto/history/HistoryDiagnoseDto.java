@@ -0,0 +1,20 @@
+package com.nbu.medicalrecordf104458.dto.history;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryDiagnoseDto {
+
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+}
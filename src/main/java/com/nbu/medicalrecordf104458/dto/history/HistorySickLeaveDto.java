@@ -0,0 +1,22 @@
+package com.nbu.medicalrecordf104458.dto.history;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistorySickLeaveDto {
+
+    private Long id;
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+}
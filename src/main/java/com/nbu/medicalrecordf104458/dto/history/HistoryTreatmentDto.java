@@ -0,0 +1,22 @@
+package com.nbu.medicalrecordf104458.dto.history;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryTreatmentDto {
+
+    private Long id;
+
+    private String medicineName;
+
+    private String dosageAmount;
+
+    private String frequency;
+
+}
@@ -0,0 +1,34 @@
+package com.nbu.medicalrecordf104458.dto.history;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// One visit of a patient with everything that was recorded on it
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientHistoryEntryDto {
+
+    private Long appointmentId;
+
+    private LocalDate visitDate;
+
+    private Long doctorId;
+
+    private String doctorName;
+
+    private List<HistoryDiagnoseDto> diagnoses = new ArrayList<>();
+
+    private List<HistoryTreatmentDto> treatments = new ArrayList<>();
+
+    // Null when no sick leave was issued on this visit
+    private HistorySickLeaveDto sickLeave;
+
+}
@@ -0,0 +1,10 @@
+package com.nbu.medicalrecordf104458.dto.queries;
+
+// Row of a many-to-many join table of appointments - the appointment id and the id on the other side
+public interface AppointmentIdPairDto {
+
+    Long getAppointmentId();
+
+    Long getLinkedId();
+
+}
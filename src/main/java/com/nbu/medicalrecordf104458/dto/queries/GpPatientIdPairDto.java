@@ -0,0 +1,10 @@
+package com.nbu.medicalrecordf104458.dto.queries;
+
+// A patient id with the id of its family doctor
+public interface GpPatientIdPairDto {
+
+    Long getGpId();
+
+    Long getPatientId();
+
+}
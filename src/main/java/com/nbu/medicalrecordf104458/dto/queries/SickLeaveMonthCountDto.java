@@ -0,0 +1,20 @@
+package com.nbu.medicalrecordf104458.dto.queries;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SickLeaveMonthCountDto {
+
+    private Integer year;
+
+    private Integer month;
+
+    private Long sickLeavesCount;
+
+}
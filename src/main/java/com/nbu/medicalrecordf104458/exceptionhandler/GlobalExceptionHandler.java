@@ -4,6 +4,8 @@ import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.DoctorSecurityEx
 import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.InvalidDateException;
 import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.PatientSecurityException;
 import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.SickLeaveAlreadyExistsException;
+import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.StaleVersionException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import jakarta.persistence.EntityNotFoundException;
@@ -54,4 +56,15 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ex.getMessage());
     }
 
+    @ExceptionHandler(StaleVersionException.class)
+    public ResponseEntity<String> handleStaleVersionException(StaleVersionException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(ex.getMessage());
+    }
+
+    // Another request committed a change to the same row first, and retrying didn't help or wasn't safe
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("The record was changed by another request, reload it and try again.");
+    }
+
 }
@@ -0,0 +1,11 @@
+package com.nbu.medicalrecordf104458.exceptionhandler.exceptions;
+
+import jakarta.persistence.PersistenceException;
+
+public class StaleVersionException extends PersistenceException {
+
+    public StaleVersionException(String message) {
+        super(message);
+    }
+
+}
@@ -1,10 +1,18 @@
 package com.nbu.medicalrecordf104458.mapper;
 
 import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.history.HistoryDiagnoseDto;
+import com.nbu.medicalrecordf104458.dto.history.HistorySickLeaveDto;
+import com.nbu.medicalrecordf104458.dto.history.HistoryTreatmentDto;
+import com.nbu.medicalrecordf104458.dto.history.PatientHistoryEntryDto;
+import com.nbu.medicalrecordf104458.dto.queries.AppointmentIdPairDto;
+import com.nbu.medicalrecordf104458.model.AppointmentView;
 import com.nbu.medicalrecordf104458.model.Diagnose;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.SickLeave;
 import com.nbu.medicalrecordf104458.model.Treatment;
 import com.nbu.medicalrecordf104458.repository.DiagnoseRepository;
+import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
 import com.nbu.medicalrecordf104458.repository.DoctorRepository;
 import com.nbu.medicalrecordf104458.repository.PatientRepository;
 import com.nbu.medicalrecordf104458.repository.SickLeaveRepository;
@@ -13,17 +21,30 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Component
 public class DoctorAppointmentMapper {
 
+    // Keeps the IN lists of the join table queries at a size every database accepts
+    private static final int ID_BATCH_SIZE = 1000;
+
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
     private final DiagnoseRepository diagnoseRepository;
     private final TreatmentRepository treatmentRepository;
     private final SickLeaveRepository sickLeaveRepository;
+    private final DoctorAppointmentRepository appointmentRepository;
 
     public AppointmentDto convertToDto(DoctorAppointment appointment) {
         AppointmentDto dto = new AppointmentDto();
@@ -31,7 +52,10 @@ public class DoctorAppointmentMapper {
         dto.setId(appointment.getId());
         dto.setVisitDate(appointment.getVisitDate());
         dto.setDoctorId(appointment.getDoctor().getId());
+        dto.setDoctorName(appointment.getDoctor().getName());
         dto.setPatientId(appointment.getPatient().getId());
+        dto.setPatientName(appointment.getPatient().getName());
+        dto.setVersion(appointment.getVersion());
 
         dto.setDiagnoses(appointment.getDiagnoses().stream()
                 .map(Diagnose::getId)
@@ -50,6 +74,81 @@ public class DoctorAppointmentMapper {
         return dto;
     }
 
+    public AppointmentDto convertToDto(AppointmentView view) {
+        AppointmentDto dto = new AppointmentDto();
+
+        dto.setId(view.getAppointmentId());
+        dto.setVisitDate(view.getVisitDate());
+        dto.setDoctorId(view.getDoctorId());
+        dto.setDoctorName(view.getDoctorName());
+        dto.setPatientId(view.getPatientId());
+        dto.setPatientName(view.getPatientName());
+        dto.setDiagnoses(new HashSet<>(view.getDiagnoseIds()));
+        dto.setTreatments(new HashSet<>(view.getTreatmentIds()));
+        dto.setSickLeaveId(view.getSickLeaveId());
+        dto.setVersion(view.getVersion());
+
+        return dto;
+    }
+
+    // Completes rows built by the projection queries with the ids from the join tables
+    public List<AppointmentView> addLinkedIds(List<AppointmentView> views) {
+        List<Long> appointmentIds = views.stream()
+                .map(AppointmentView::getAppointmentId)
+                .toList();
+
+        Map<Long, Set<Long>> diagnoseIds = findLinkedIds(appointmentIds, appointmentRepository::findDiagnoseIdPairs);
+        Map<Long, Set<Long>> treatmentIds = findLinkedIds(appointmentIds, appointmentRepository::findTreatmentIdPairs);
+
+        for (AppointmentView view : views) {
+            view.setDiagnoseIds(new TreeSet<>(diagnoseIds.getOrDefault(view.getAppointmentId(), Set.of())));
+            view.setTreatmentIds(new TreeSet<>(treatmentIds.getOrDefault(view.getAppointmentId(), Set.of())));
+        }
+
+        return views;
+    }
+
+    // Same join table reads as addLinkedIds - the known maps are filled as diagnoses and treatments get loaded,
+    // so passing them to the next call only loads the ones that weren't seen yet
+    public List<PatientHistoryEntryDto> convertToHistoryEntries(Collection<DoctorAppointment> appointments,
+                                                                Map<Long, HistoryDiagnoseDto> knownDiagnoses,
+                                                                Map<Long, HistoryTreatmentDto> knownTreatments) {
+        List<Long> appointmentIds = appointments.stream()
+                .map(DoctorAppointment::getId)
+                .toList();
+
+        Map<Long, Set<Long>> diagnoseIds = findLinkedIds(appointmentIds, appointmentRepository::findDiagnoseIdPairs);
+        Map<Long, Set<Long>> treatmentIds = findLinkedIds(appointmentIds, appointmentRepository::findTreatmentIdPairs);
+
+        loadMissing(diagnoseIds, knownDiagnoses, diagnoseRepository::findAllById, Diagnose::getId,
+                diagnose -> new HistoryDiagnoseDto(diagnose.getId(), diagnose.getName(), diagnose.getDescription()));
+        loadMissing(treatmentIds, knownTreatments, treatmentRepository::findAllById, Treatment::getId,
+                treatment -> new HistoryTreatmentDto(treatment.getId(), treatment.getMedicineName(),
+                        treatment.getDosageAmount(), treatment.getFrequency()));
+
+        List<PatientHistoryEntryDto> entries = new ArrayList<>(appointments.size());
+
+        for (DoctorAppointment appointment : appointments) {
+            PatientHistoryEntryDto entry = new PatientHistoryEntryDto();
+
+            entry.setAppointmentId(appointment.getId());
+            entry.setVisitDate(appointment.getVisitDate());
+            entry.setDoctorId(appointment.getDoctor().getId());
+            entry.setDoctorName(appointment.getDoctor().getName());
+            entry.setDiagnoses(lookUp(diagnoseIds.get(appointment.getId()), knownDiagnoses));
+            entry.setTreatments(lookUp(treatmentIds.get(appointment.getId()), knownTreatments));
+
+            SickLeave sickLeave = appointment.getSickLeave();
+            if (sickLeave != null) {
+                entry.setSickLeave(new HistorySickLeaveDto(sickLeave.getId(), sickLeave.getStartDate(), sickLeave.getEndDate()));
+            }
+
+            entries.add(entry);
+        }
+
+        return entries;
+    }
+
     public DoctorAppointment convertToEntity(AppointmentDto dto) {
         DoctorAppointment appointment = new DoctorAppointment();
 
@@ -61,10 +160,7 @@ public class DoctorAppointmentMapper {
         appointment.setPatient(patientRepository.findById(dto.getPatientId())
                 .orElseThrow(() -> new EntityNotFoundException("No Patient found with id: " + dto.getPatientId())));
 
-        appointment.setDiagnoses(dto.getDiagnoses().stream()
-                .map(id -> diagnoseRepository.findById(id)
-                        .orElseThrow(() -> new EntityNotFoundException("No Diagnose found with id: " + id)))
-                .collect(Collectors.toSet()));
+        appointment.setDiagnoses(findDiagnoses(dto.getDiagnoses(), List.of()));
 
         if (dto.getSickLeaveId() != null) {
             appointment.setSickLeave(sickLeaveRepository.findById(dto.getSickLeaveId())
@@ -72,13 +168,84 @@ public class DoctorAppointmentMapper {
         }
 
         if (!dto.getTreatments().isEmpty()) {
-            appointment.setTreatments(dto.getTreatments().stream()
-                    .map(id -> treatmentRepository.findById(id)
-                            .orElseThrow(() -> new EntityNotFoundException("No Treatment found with id: " + id)))
-                    .collect(Collectors.toSet()));
+            appointment.setTreatments(findTreatments(dto.getTreatments(), List.of()));
         }
 
         return appointment;
     }
 
+    // Resolves all ids with at most one query - diagnoses that are already loaded are reused
+    public Set<Diagnose> findDiagnoses(Set<Long> ids, Collection<Diagnose> loaded) {
+        return findAllByIds(ids, loaded, Diagnose::getId, diagnoseRepository::findAllById, "Diagnose");
+    }
+
+    // Resolves all ids with at most one query - treatments that are already loaded are reused
+    public Set<Treatment> findTreatments(Set<Long> ids, Collection<Treatment> loaded) {
+        return findAllByIds(ids, loaded, Treatment::getId, treatmentRepository::findAllById, "Treatment");
+    }
+
+    private Map<Long, Set<Long>> findLinkedIds(List<Long> appointmentIds,
+                                               Function<List<Long>, List<AppointmentIdPairDto>> pairsFinder) {
+        Map<Long, Set<Long>> linkedIds = new HashMap<>();
+
+        for (int from = 0; from < appointmentIds.size(); from += ID_BATCH_SIZE) {
+            List<Long> batch = appointmentIds.subList(from, Math.min(from + ID_BATCH_SIZE, appointmentIds.size()));
+
+            for (AppointmentIdPairDto pair : pairsFinder.apply(batch)) {
+                linkedIds.computeIfAbsent(pair.getAppointmentId(), id -> new HashSet<>()).add(pair.getLinkedId());
+            }
+        }
+
+        return linkedIds;
+    }
+
+    private <T, D> void loadMissing(Map<Long, Set<Long>> linkedIds, Map<Long, D> known,
+                                    Function<Set<Long>, List<T>> finder, Function<T, Long> idGetter,
+                                    Function<T, D> converter) {
+        Set<Long> missing = linkedIds.values().stream()
+                .flatMap(Set::stream)
+                .filter(id -> !known.containsKey(id))
+                .collect(Collectors.toSet());
+
+        if (!missing.isEmpty()) {
+            finder.apply(missing).forEach(entity -> known.put(idGetter.apply(entity), converter.apply(entity)));
+        }
+    }
+
+    private <D> List<D> lookUp(Set<Long> ids, Map<Long, D> known) {
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+
+        return ids.stream()
+                .sorted()
+                .map(known::get)
+                .collect(Collectors.toList());
+    }
+
+    private <T> Set<T> findAllByIds(Set<Long> ids, Collection<T> loaded, Function<T, Long> idGetter,
+                                    Function<Set<Long>, List<T>> finder, String entityName) {
+        Map<Long, T> found = new HashMap<>();
+
+        for (T entity : loaded) {
+            if (ids.contains(idGetter.apply(entity))) {
+                found.put(idGetter.apply(entity), entity);
+            }
+        }
+
+        Set<Long> notLoaded = new HashSet<>(ids);
+        notLoaded.removeAll(found.keySet());
+
+        if (!notLoaded.isEmpty()) {
+            finder.apply(notLoaded).forEach(entity -> found.put(idGetter.apply(entity), entity));
+            notLoaded.removeAll(found.keySet());
+        }
+
+        if (!notLoaded.isEmpty()) {
+            throw new EntityNotFoundException("No " + entityName + " found with ids: " + new TreeSet<>(notLoaded));
+        }
+
+        return new HashSet<>(found.values());
+    }
+
 }
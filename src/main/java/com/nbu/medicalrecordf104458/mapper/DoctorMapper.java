@@ -21,6 +21,7 @@ public class DoctorMapper {
 
         dto.setId(doctor.getId());
         dto.setName(doctor.getName());
+        dto.setVersion(doctor.getVersion());
 
         if (!doctor.getSpecializations().isEmpty()) {
             dto.setSpecializationIds(doctor.getSpecializations().stream()
@@ -1,6 +1,7 @@
 package com.nbu.medicalrecordf104458.mapper;
 
 import com.nbu.medicalrecordf104458.dto.GeneralPractitionerDto;
+import com.nbu.medicalrecordf104458.dto.queries.GpPatientIdPairDto;
 import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
 import com.nbu.medicalrecordf104458.model.Patient;
 import com.nbu.medicalrecordf104458.repository.PatientRepository;
@@ -9,6 +10,13 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @AllArgsConstructor
@@ -33,6 +41,34 @@ public class GeneralPractitionerMapper {
         return dto;
     }
 
+    // Same as convertToDto, but the patient ids of all GPs are read with one query instead of loading the patients
+    public List<GeneralPractitionerDto> convertToDtos(Collection<GeneralPractitioner> gps) {
+        List<Long> gpIds = gps.stream()
+                .map(GeneralPractitioner::getId)
+                .toList();
+
+        Map<Long, Set<Long>> patientIds = new HashMap<>();
+
+        if (!gpIds.isEmpty()) {
+            for (GpPatientIdPairDto pair : patientRepository.findGpPatientIdPairs(gpIds)) {
+                patientIds.computeIfAbsent(pair.getGpId(), id -> new HashSet<>()).add(pair.getPatientId());
+            }
+        }
+
+        List<GeneralPractitionerDto> dtos = new ArrayList<>(gps.size());
+
+        for (GeneralPractitioner gp : gps) {
+            GeneralPractitionerDto dto = new GeneralPractitionerDto();
+
+            dto.setDoctor(doctorMapper.convertToDto(gp));
+            dto.setPatients(patientIds.getOrDefault(gp.getId(), new HashSet<>()));
+
+            dtos.add(dto);
+        }
+
+        return dtos;
+    }
+
     public GeneralPractitioner convertToEntity(GeneralPractitionerDto dto) {
         GeneralPractitioner gp = new GeneralPractitioner();
 
@@ -22,6 +22,7 @@ public class PatientMapper {
         patientDto.setUnifiedCivilNumber(patient.getUnifiedCivilNumber());
         patientDto.setLastInsurancePayment(patient.getLastInsurancePayment());
         patientDto.setFamilyDoctorId(patient.getFamilyDoctor().getId());
+        patientDto.setVersion(patient.getVersion());
 
         return patientDto;
     }
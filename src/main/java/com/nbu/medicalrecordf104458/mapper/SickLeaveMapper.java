@@ -21,6 +21,7 @@ public class SickLeaveMapper {
         sickLeaveDto.setStartDate(sickLeave.getStartDate());
         sickLeaveDto.setEndDate(sickLeave.getEndDate());
         sickLeaveDto.setDoctorAppointmentId(sickLeave.getDoctorAppointment().getId());
+        sickLeaveDto.setVersion(sickLeave.getVersion());
 
         return sickLeaveDto;
     }
@@ -23,6 +23,7 @@ public class TreatmentMapper {
         dto.setMedicineName(treatment.getMedicineName());
         dto.setDosageAmount(treatment.getDosageAmount());
         dto.setFrequency(treatment.getFrequency());
+        dto.setVersion(treatment.getVersion());
 
         if (!treatment.getAppointments().isEmpty()) {
             dto.setAppointmentIds(treatment.getAppointments().stream()
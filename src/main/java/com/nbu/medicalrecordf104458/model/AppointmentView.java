@@ -0,0 +1,77 @@
+package com.nbu.medicalrecordf104458.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Read model of an appointment, everything the appointment reads return in one row so they don't join the doctor,
+// patient, sick leave and join tables. AppointmentViewService writes it in the transaction of every change
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "appointment_view", indexes = {
+        @Index(name = "idx_appointment_view_visit_date_id", columnList = "visit_date, appointment_id"),
+        @Index(name = "idx_appointment_view_doctor_visit_date", columnList = "doctor_id, visit_date"),
+        @Index(name = "idx_appointment_view_patient_visit_date", columnList = "patient_id, visit_date")
+})
+public class AppointmentView {
+
+    @Id
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+
+    // A copy of the appointment's version, not a lock on this row
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "visit_date", nullable = false)
+    private LocalDate visitDate;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "doctor_name", nullable = false)
+    private String doctorName;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "patient_name", nullable = false)
+    private String patientName;
+
+    @Column(name = "sick_leave_id")
+    private Long sickLeaveId;
+
+    @Convert(converter = IdListConverter.class)
+    @Column(name = "diagnose_ids", nullable = false, length = 4000)
+    private Set<Long> diagnoseIds = new TreeSet<>();
+
+    @Convert(converter = IdListConverter.class)
+    @Column(name = "treatment_ids", nullable = false, length = 4000)
+    private Set<Long> treatmentIds = new TreeSet<>();
+
+    // Used by the projection queries of AppointmentViewRepository, the id lists are added from the join tables
+    public AppointmentView(Long appointmentId, Long version, LocalDate visitDate, Long doctorId, String doctorName,
+                           Long patientId, String patientName, Long sickLeaveId) {
+        this.appointmentId = appointmentId;
+        this.version = version;
+        this.visitDate = visitDate;
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.patientId = patientId;
+        this.patientName = patientName;
+        this.sickLeaveId = sickLeaveId;
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.nbu.medicalrecordf104458.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -8,11 +9,14 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -22,10 +26,13 @@ import java.util.Set;
 @NoArgsConstructor
 @Entity
 @Table(name = "diagnose")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "diagnose")
 public class Diagnose {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "diagnose_seq")
+    @SequenceGenerator(name = "diagnose_seq", sequenceName = "diagnose_seq", allocationSize = 50)
     private Long id;
 
     @NotEmpty(message = "Diagnose name cannot be empty")
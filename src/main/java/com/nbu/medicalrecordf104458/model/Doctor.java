@@ -5,9 +5,11 @@ import jakarta.persistence.Column;
 import jakarta.persistence.DiscriminatorColumn;
 import jakarta.persistence.DiscriminatorType;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
 import jakarta.persistence.JoinColumn;
@@ -15,7 +17,9 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -29,13 +33,20 @@ import java.util.Set;
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE) // Single table for both types
 @DiscriminatorColumn(name = "doctor_type", discriminatorType = DiscriminatorType.STRING)
 @Entity
-@Table(name = "doctor")
+@Table(name = "doctor", indexes = {
+        @Index(name = "idx_doctor_type_deleted", columnList = "doctor_type, for_deletion")
+})
 public class Doctor {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "doctor_seq")
+    @SequenceGenerator(name = "doctor_seq", sequenceName = "doctor_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotEmpty(message = "Doctor name cannot be empty")
     @Column(name = "name", nullable = false)
     private String name;
@@ -54,7 +65,8 @@ public class Doctor {
     @Column(name = "for_deletion", nullable = false)
     private boolean deleted = false;
 
-    @OneToOne
+    // Only the security side reads the account, the listings must not load it per row
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 
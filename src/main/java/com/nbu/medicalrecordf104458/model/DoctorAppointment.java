@@ -5,12 +5,17 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
@@ -25,13 +30,33 @@ import java.util.Set;
 @Setter
 @NoArgsConstructor
 @Entity
-@Table(name = "appointment")
+@Table(name = "appointment", indexes = {
+        @Index(name = "idx_appointment_doctor_visit_date", columnList = "doctor_id, visit_date, sick_leave_id"),
+        @Index(name = "idx_appointment_visit_date_id", columnList = "visit_date, id"),
+        @Index(name = "idx_appointment_patient_visit_date", columnList = "patient_id, visit_date")
+})
+// The to-one associations the visit history reads - diagnose and treatment ids come from the join tables
+@NamedEntityGraph(
+        name = DoctorAppointment.WITH_ASSOCIATIONS_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode("doctor"),
+                @NamedAttributeNode("patient"),
+                @NamedAttributeNode("sickLeave")
+        }
+)
 public class DoctorAppointment {
 
+    public static final String WITH_ASSOCIATIONS_GRAPH = "DoctorAppointment.withAssociations";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_seq")
+    @SequenceGenerator(name = "appointment_seq", sequenceName = "appointment_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotNull(message = "Visit date cannot be null")
     @Column(name = "visit_date", nullable = false)
     private LocalDate visitDate;
@@ -51,7 +76,8 @@ public class DoctorAppointment {
     @JoinTable(
             name = "appointments_diagnoses",
             joinColumns = @JoinColumn(name = "appointment_id"),
-            inverseJoinColumns = @JoinColumn(name = "diagnose_id")
+            inverseJoinColumns = @JoinColumn(name = "diagnose_id"),
+            indexes = @Index(name = "idx_appointments_diagnoses_diagnose", columnList = "diagnose_id, appointment_id")
     )
     private Set<Diagnose> diagnoses;
 
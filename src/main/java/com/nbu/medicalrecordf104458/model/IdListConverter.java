@@ -0,0 +1,30 @@
+package com.nbu.medicalrecordf104458.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+// Stores a set of ids as "1,5,12" in ascending order, an empty set as an empty string
+@Converter
+public class IdListConverter implements AttributeConverter<Set<Long>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(Set<Long> ids) {
+        return new TreeSet<>(ids).stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    @Override
+    public Set<Long> convertToEntityAttribute(String column) {
+        return Arrays.stream(column.split(","))
+                .filter(id -> !id.isBlank())
+                .map(Long::valueOf)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+}
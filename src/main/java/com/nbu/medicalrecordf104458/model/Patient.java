@@ -3,14 +3,18 @@ package com.nbu.medicalrecordf104458.model;
 import com.nbu.medicalrecordf104458.model.user.User;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
@@ -25,11 +29,14 @@ import java.util.Set;
 @Setter
 @NoArgsConstructor
 @Entity
-@Table(name = "patient")
+@Table(name = "patient", indexes = {
+        @Index(name = "idx_patient_family_doctor_deleted", columnList = "family_doctor_id, for_deletion")
+})
 public class Patient {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_seq")
+    @SequenceGenerator(name = "patient_seq", sequenceName = "patient_seq", allocationSize = 50)
     private Long id;
 
     @NotEmpty(message = "Patient name cannot be empty")
@@ -47,6 +54,11 @@ public class Patient {
     @Column(name = "for_deletion", nullable = false)
     private boolean deleted = false;
 
+    // Bumped by every update, doubles as the ETag of the patient
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotNull(message = "Each patient should be assigned to a family doctor.")
     @ManyToOne
     @JoinColumn(name = "family_doctor_id", nullable = false)
@@ -56,7 +68,8 @@ public class Patient {
     @Column(name = "doctor_appointments_id")
     private Set<DoctorAppointment> appointments = new HashSet<>();
 
-    @OneToOne
+    // Only the security side reads the account, the listings must not load it per row
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 
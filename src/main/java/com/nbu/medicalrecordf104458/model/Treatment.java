@@ -1,5 +1,6 @@
 package com.nbu.medicalrecordf104458.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -8,11 +9,16 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -22,12 +28,19 @@ import java.util.Set;
 @NoArgsConstructor
 @Entity
 @Table(name = "treatment")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "treatment")
 public class Treatment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "treatment_seq")
+    @SequenceGenerator(name = "treatment_seq", sequenceName = "treatment_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotEmpty(message = "Medicine name cannot be empty")
     @Column(name = "medicine_name", nullable = false)
     private String medicineName;
@@ -40,7 +53,9 @@ public class Treatment {
     @Column(name = "frequency", nullable = false)
     private String frequency;
 
+    // Linking an appointment is a change of the appointment, the treatment's own fields and ETag stay the same
     @ManyToMany
+    @OptimisticLock(excluded = true)
     @JoinTable(
             name = "appointments_treatments",
             joinColumns = @JoinColumn(name = "treatment_id"),
@@ -0,0 +1,47 @@
+package com.nbu.medicalrecordf104458.model.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+// The principal of an authenticated request - only what the security checks need, built from the token claims
+@Getter
+@AllArgsConstructor
+public class AuthenticatedUser implements UserDetails {
+
+    private final String email;
+    private final Role role;
+    private final Long doctorId;
+    private final Long patientId;
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(
+                user.getEmail(),
+                user.getRole(),
+                user.getDoctor() != null ? user.getDoctor().getId() : null,
+                user.getPatient() != null ? user.getPatient().getId() : null
+        );
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    // The password never leaves the authentication endpoint
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+}
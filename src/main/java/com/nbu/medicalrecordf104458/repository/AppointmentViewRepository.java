@@ -0,0 +1,71 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.model.AppointmentView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface AppointmentViewRepository extends JpaRepository<AppointmentView, Long> {
+
+    // Reads - single table, each one served by the primary key or one of the appointment_view indexes
+
+    List<AppointmentView> findAllByVisitDateBetween(LocalDate startDate, LocalDate endDate);
+
+    List<AppointmentView> findAllByDoctorIdAndVisitDateBetween(Long doctorId, LocalDate startDate, LocalDate endDate);
+
+    List<AppointmentView> findAllByPatientId(Long patientId);
+
+    // Keyset pagination ordered by (visitDate, appointmentId) - first page
+    List<AppointmentView> findAllByOrderByVisitDateAscAppointmentIdAsc(Limit limit);
+
+    // Keyset pagination ordered by (visitDate, appointmentId) - every page after the given cursor
+    @Query("SELECT v FROM AppointmentView v " +
+            "WHERE v.visitDate > :visitDate OR (v.visitDate = :visitDate AND v.appointmentId > :id) " +
+            "ORDER BY v.visitDate, v.appointmentId")
+    List<AppointmentView> findPageAfter(
+            @Param("visitDate") LocalDate visitDate,
+            @Param("id") Long id,
+            Limit limit);
+
+    // Has to be consumed inside a transaction and closed afterwards
+    @Query("SELECT v FROM AppointmentView v ORDER BY v.visitDate, v.appointmentId")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<AppointmentView> streamAllOrderedByVisitDate();
+
+    // Writes - the rows are built from the normalized tables, the id lists are added from the join tables
+
+    @Query("SELECT new com.nbu.medicalrecordf104458.model.AppointmentView(" +
+            "a.id, a.version, a.visitDate, d.id, d.name, p.id, p.name, s.id) " +
+            "FROM DoctorAppointment a JOIN a.doctor d JOIN a.patient p LEFT JOIN a.sickLeave s " +
+            "WHERE a.id IN (:appointmentIds)")
+    List<AppointmentView> projectAppointments(@Param("appointmentIds") Collection<Long> appointmentIds);
+
+    // The rows of the appointment ids in (afterId, toId], for rebuilding the table in batches
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AppointmentView v WHERE v.appointmentId > :afterId AND v.appointmentId <= :toId")
+    int deleteRange(@Param("afterId") Long afterId, @Param("toId") Long toId);
+
+    @Modifying
+    @Query("UPDATE AppointmentView v SET v.doctorName = :name WHERE v.doctorId = :doctorId")
+    int renameDoctor(@Param("doctorId") Long doctorId, @Param("name") String name);
+
+    @Modifying
+    @Query("UPDATE AppointmentView v SET v.patientName = :name WHERE v.patientId = :patientId")
+    int renamePatient(@Param("patientId") Long patientId, @Param("name") String name);
+
+}
@@ -1,7 +1,10 @@
 package com.nbu.medicalrecordf104458.repository;
 
 import com.nbu.medicalrecordf104458.model.Diagnose;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Set;
@@ -9,6 +12,8 @@ import java.util.Set;
 @Repository
 public interface DiagnoseRepository extends JpaRepository<Diagnose, Long> {
 
+    // Listing the catalog is served from the query cache until one of its rows changes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Set<Diagnose> findAllByDeletedFalse();
 
 }
@@ -1,26 +1,49 @@
 package com.nbu.medicalrecordf104458.repository;
 
+import com.nbu.medicalrecordf104458.dto.queries.AppointmentIdPairDto;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.SickLeave;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 @Repository
-public interface DoctorAppointmentRepository extends JpaRepository<DoctorAppointment, Long> {
-
-    // g.
-    @Query("SELECT a FROM DoctorAppointment a WHERE a.visitDate BETWEEN :startDate AND :endDate")
-    Set<DoctorAppointment> findVisitsByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
-
-    // h.
-    @Query("SELECT a FROM DoctorAppointment a WHERE a.doctor.id = :doctorId AND a.visitDate BETWEEN :startDate AND :endDate")
-    Set<DoctorAppointment> findAppointmentsByDoctorAndDateRange(
-            @Param("doctorId") Long doctorId,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate);
+public interface DoctorAppointmentRepository extends JpaRepository<DoctorAppointment, Long>,
+        DoctorAppointmentVersionRepository {
+
+    // Id-only reads of the join tables, so the view rows and the visit history don't load Diagnose and Treatment entities
+    @Query(value = "SELECT ad.appointment_id AS appointmentId, ad.diagnose_id AS linkedId " +
+            "FROM appointments_diagnoses ad " +
+            "WHERE ad.appointment_id IN (:appointmentIds)", nativeQuery = true)
+    List<AppointmentIdPairDto> findDiagnoseIdPairs(@Param("appointmentIds") Collection<Long> appointmentIds);
+
+    @Query(value = "SELECT at.appointment_id AS appointmentId, at.treatment_id AS linkedId " +
+            "FROM appointments_treatments at " +
+            "WHERE at.appointment_id IN (:appointmentIds)", nativeQuery = true)
+    List<AppointmentIdPairDto> findTreatmentIdPairs(@Param("appointmentIds") Collection<Long> appointmentIds);
+
+    // Keyset over the ids, for the batches that rebuild appointment_view
+    @Query("SELECT a.id FROM DoctorAppointment a WHERE a.id > :afterId ORDER BY a.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // The sick leaves of the given ids that already belong to an appointment
+    @Query("SELECT a.sickLeave.id FROM DoctorAppointment a WHERE a.sickLeave.id IN :sickLeaveIds")
+    Set<Long> findAttachedSickLeaveIds(@Param("sickLeaveIds") Collection<Long> sickLeaveIds);
+
+    // Sets the sick leave only if the appointment has none yet, 0 means another one got there first. The database
+    // checks and writes the row under its lock, so two concurrent creates can't both pass. The version is moved on
+    // so an update that loaded the appointment before can't write the old sick_leave_id back. The persistence
+    // context is cleared, the appointment it holds still has the old sick leave and version
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE DoctorAppointment a SET a.sickLeave = :sickLeave, a.version = a.version + 1 " +
+            "WHERE a.id = :id AND a.sickLeave IS NULL")
+    int attachSickLeave(@Param("id") Long id, @Param("sickLeave") SickLeave sickLeave);
 
 }
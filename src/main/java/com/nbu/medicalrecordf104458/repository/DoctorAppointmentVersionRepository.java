@@ -0,0 +1,12 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+
+// Part of DoctorAppointmentRepository, called through it so a conflict comes out as an OptimisticLockingFailureException
+public interface DoctorAppointmentVersionRepository {
+
+    // Writes the next version of a loaded appointment right away, checked against the one it was loaded with.
+    // For changes Hibernate doesn't version on its own, like the treatment links the appointment is the inverse side of
+    void incrementVersion(DoctorAppointment appointment);
+
+}
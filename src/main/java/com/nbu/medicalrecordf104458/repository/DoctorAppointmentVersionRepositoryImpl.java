@@ -0,0 +1,20 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+
+public class DoctorAppointmentVersionRepositoryImpl implements DoctorAppointmentVersionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // OPTIMISTIC_FORCE_INCREMENT would only write the version at commit, after the DTO and the view row are built
+    // from the old one. The pessimistic one updates the row now and keeps it locked until the commit, like any update
+    @Override
+    public void incrementVersion(DoctorAppointment appointment) {
+        entityManager.lock(appointment, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+    }
+
+}
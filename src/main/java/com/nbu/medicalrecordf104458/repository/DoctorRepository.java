@@ -1,7 +1,9 @@
 package com.nbu.medicalrecordf104458.repository;
 
 import com.nbu.medicalrecordf104458.dto.queries.DoctorAppointmentsCountDto;
+import com.nbu.medicalrecordf104458.dto.queries.DoctorSickLeavesCountDto;
 import com.nbu.medicalrecordf104458.model.Doctor;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,6 +14,8 @@ import java.util.Set;
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
 
+    // The mapper lists the specializations of every doctor
+    @EntityGraph(attributePaths = "specializations")
     Set<Doctor> findAllByDeletedFalse();
 
     // e. - for certain doctor (excluding deleted ones)
@@ -28,4 +32,15 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
             "GROUP BY d.id, d.name")
     Set<DoctorAppointmentsCountDto> findAllDoctorsWithAppointmentCount();
 
+    // Doctors (excluding deleted ones) that issued the most sick leaves - every doctor tied for the max
+    @Query("SELECT new com.nbu.medicalrecordf104458.dto.queries.DoctorSickLeavesCountDto(d.id, d.name, COUNT(a.id)) " +
+            "FROM Doctor d JOIN d.appointments a " +
+            "WHERE d.deleted = false AND a.sickLeave IS NOT NULL " +
+            "GROUP BY d.id, d.name " +
+            "HAVING COUNT(a.id) >= ALL (" +
+            "SELECT COUNT(a2.id) FROM DoctorAppointment a2 " +
+            "WHERE a2.doctor.deleted = false AND a2.sickLeave IS NOT NULL " +
+            "GROUP BY a2.doctor.id)")
+    Set<DoctorSickLeavesCountDto> findDoctorsWithMostSickLeaves();
+
 }
@@ -2,6 +2,7 @@ package com.nbu.medicalrecordf104458.repository;
 
 import com.nbu.medicalrecordf104458.dto.queries.GpPatientsCountDto;
 import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,6 +13,8 @@ import java.util.Set;
 @Repository
 public interface GeneralPractitionerRepository extends JpaRepository<GeneralPractitioner, Long> {
 
+    // The mapper lists the specializations of every GP, the patient ids come from one query of their own
+    @EntityGraph(attributePaths = "specializations")
     Set<GeneralPractitioner> findAllByDeletedFalse();
 
     // d. - for all GPs (excluding deleted ones)
@@ -1,35 +1,67 @@
 package com.nbu.medicalrecordf104458.repository;
 
+import com.nbu.medicalrecordf104458.dto.queries.GpPatientIdPairDto;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
 import com.nbu.medicalrecordf104458.model.Patient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
 
+    // The family doctor is mapped with every patient
+    @EntityGraph(attributePaths = "familyDoctor")
     Set<Patient> findAllByDeletedFalse();
 
+    // Only the version, for answering a conditional GET without loading the patient
+    @Query("SELECT patient.version " +
+            "FROM Patient patient " +
+            "WHERE patient.id = :id AND patient.deleted = false")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Only the ids of the patients of the given GPs, deleted patients included like in GeneralPractitioner.patients
+    @Query("SELECT patient.familyDoctor.id AS gpId, patient.id AS patientId " +
+            "FROM Patient patient " +
+            "WHERE patient.familyDoctor.id IN :gpIds")
+    List<GpPatientIdPairDto> findGpPatientIdPairs(@Param("gpIds") Collection<Long> gpIds);
+
     // a. - Find patients by diagnose (only non-deleted patients)
     @Query("SELECT appointment.patient " +
             "FROM DoctorAppointment appointment " +
             "JOIN appointment.diagnoses diagnose " +
             "WHERE diagnose.id = :diagnoseId AND appointment.patient.deleted = false")
+    @EntityGraph(attributePaths = "familyDoctor")
     Set<Patient> findPatientsByDiagnoseId(@Param("diagnoseId") Long diagnoseId);
 
     // c. - Find patients by GP (only non-deleted patients)
     @Query("SELECT patient " +
             "FROM Patient patient " +
             "WHERE patient.familyDoctor.id = :gpId AND patient.deleted = false")
+    @EntityGraph(attributePaths = "familyDoctor")
     Set<Patient> findPatientsByGeneralPractitionerId(@Param("gpId") Long gpId);
 
-    // f. - Find visits by patient (excluding visits for deleted patients)
+    // Whole visit history of a patient, oldest first - has to be consumed inside a transaction and closed afterwards
     @Query("SELECT a " +
             "FROM DoctorAppointment a " +
-            "WHERE a.patient.id = :patientId AND a.patient.deleted = false")
-    Set<DoctorAppointment> findVisitsByPatientId(@Param("patientId") Long patientId);
+            "WHERE a.patient.id = :patientId " +
+            "ORDER BY a.visitDate, a.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @EntityGraph(DoctorAppointment.WITH_ASSOCIATIONS_GRAPH)
+    Stream<DoctorAppointment> streamVisitsByPatientId(@Param("patientId") Long patientId);
+
 }
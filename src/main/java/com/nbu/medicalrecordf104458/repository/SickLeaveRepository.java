@@ -1,11 +1,42 @@
 package com.nbu.medicalrecordf104458.repository;
 
 
+import com.nbu.medicalrecordf104458.dto.queries.SickLeaveMonthCountDto;
 import com.nbu.medicalrecordf104458.model.SickLeave;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 @Repository
 public interface SickLeaveRepository extends JpaRepository<SickLeave, Long> {
 
+    // Ids only, loading a sick leave loads its appointment too
+    @Query("SELECT s.id FROM SickLeave s WHERE s.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Busiest months first, ties resolved by the earliest month
+    @Query("SELECT new com.nbu.medicalrecordf104458.dto.queries.SickLeaveMonthCountDto(" +
+            "YEAR(s.startDate), MONTH(s.startDate), COUNT(s.id)) " +
+            "FROM SickLeave s " +
+            "GROUP BY YEAR(s.startDate), MONTH(s.startDate) " +
+            "ORDER BY COUNT(s.id) DESC, YEAR(s.startDate), MONTH(s.startDate)")
+    List<SickLeaveMonthCountDto> findMonthlySickLeaveCountsByCountDesc(Limit limit);
+
+    // The start_date range predicate is served by idx_sick_leave_start_date
+    @Query("SELECT new com.nbu.medicalrecordf104458.dto.queries.SickLeaveMonthCountDto(" +
+            "YEAR(s.startDate), MONTH(s.startDate), COUNT(s.id)) " +
+            "FROM SickLeave s " +
+            "WHERE s.startDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY YEAR(s.startDate), MONTH(s.startDate) " +
+            "ORDER BY YEAR(s.startDate), MONTH(s.startDate)")
+    List<SickLeaveMonthCountDto> findMonthlySickLeaveCounts(@Param("startDate") LocalDate startDate,
+                                                            @Param("endDate") LocalDate endDate);
+
 }
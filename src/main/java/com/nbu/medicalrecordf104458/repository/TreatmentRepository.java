@@ -1,10 +1,20 @@
 package com.nbu.medicalrecordf104458.repository;
 
 import com.nbu.medicalrecordf104458.model.Treatment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TreatmentRepository extends JpaRepository<Treatment, Long> {
 
+    // Listing the catalog is served from the query cache until one of its rows changes
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Treatment> findAll();
+
 }
@@ -0,0 +1,12 @@
+package com.nbu.medicalrecordf104458.service;
+
+import com.nbu.medicalrecordf104458.dto.AppointmentImportResultDto;
+import com.nbu.medicalrecordf104458.utility.AppointmentImportFormat;
+
+import java.io.BufferedReader;
+
+public interface AppointmentImportService {
+
+    AppointmentImportResultDto importAppointments(BufferedReader reader, AppointmentImportFormat format, int chunkSize);
+
+}
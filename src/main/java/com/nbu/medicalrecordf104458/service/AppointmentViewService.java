@@ -0,0 +1,19 @@
+package com.nbu.medicalrecordf104458.service;
+
+import java.util.Collection;
+
+public interface AppointmentViewService {
+
+    // Called by the write methods, in their transaction and after their changes
+    void addAppointments(Collection<Long> appointmentIds);
+
+    void refreshAppointments(Collection<Long> appointmentIds);
+
+    void renameDoctor(Long doctorId, String name);
+
+    void renamePatient(Long patientId, String name);
+
+    // Recovery - writes every row again from the normalized tables, in batches that commit one by one
+    long rebuildAppointmentView();
+
+}
@@ -8,6 +8,8 @@ public interface DiagnoseService {
 
     Set<DiagnoseDto> getAllDiagnoses();
 
+    String getDiagnosesETag();
+
     DiagnoseDto getDiagnoseById(Long id);
 
     DiagnoseDto createDiagnose(DiagnoseDto diagnoseDto);
@@ -1,14 +1,20 @@
 package com.nbu.medicalrecordf104458.service;
 
 import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentPageDto;
 
 import java.time.LocalDate;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface DoctorAppointmentService {
 
     Set<AppointmentDto> getAllAppointments();
 
+    AppointmentPageDto getAppointmentsPage(LocalDate afterVisitDate, Long afterId, int size);
+
+    void streamAllAppointments(Consumer<AppointmentDto> consumer);
+
     AppointmentDto getAppointmentById(Long id);
 
     AppointmentDto createAppointment(AppointmentDto appointmentDto);
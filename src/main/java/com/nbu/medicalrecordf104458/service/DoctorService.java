@@ -1,6 +1,7 @@
 package com.nbu.medicalrecordf104458.service;
 
 import com.nbu.medicalrecordf104458.dto.queries.DoctorAppointmentsCountDto;
+import com.nbu.medicalrecordf104458.dto.queries.DoctorSickLeavesCountDto;
 import com.nbu.medicalrecordf104458.dto.DoctorDto;
 
 import java.util.Set;
@@ -26,6 +27,6 @@ public interface DoctorService {
 
     DoctorAppointmentsCountDto getDoctorWithAppointmentCount(Long doctorId);
 
-    Set<DoctorDto> findDoctorsWithMostSickLeaves();
+    Set<DoctorSickLeavesCountDto> findDoctorsWithMostSickLeaves();
 
 }
@@ -2,8 +2,10 @@ package com.nbu.medicalrecordf104458.service;
 
 import com.nbu.medicalrecordf104458.dto.AppointmentDto;
 import com.nbu.medicalrecordf104458.dto.PatientDto;
+import com.nbu.medicalrecordf104458.dto.history.PatientHistoryEntryDto;
 
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface PatientService {
 
@@ -11,6 +13,8 @@ public interface PatientService {
 
     PatientDto getPatientById(Long id);
 
+    String getPatientETag(Long id);
+
     PatientDto createPatient(PatientDto patientDto);
 
     PatientDto updatePatient(Long id, PatientDto patientDto);
@@ -26,4 +30,6 @@ public interface PatientService {
 
     Set<AppointmentDto> getVisitsByPatient(Long patientId);
 
+    void streamVisitHistory(Long patientId, Consumer<PatientHistoryEntryDto> consumer);
+
 }
@@ -1,7 +1,10 @@
 package com.nbu.medicalrecordf104458.service;
 
 import com.nbu.medicalrecordf104458.dto.SickLeaveDto;
+import com.nbu.medicalrecordf104458.dto.queries.SickLeaveMonthCountDto;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Set;
 
 public interface SickLeaveService {
@@ -19,4 +22,6 @@ public interface SickLeaveService {
     // Queries
     String getMonthWithMostSickLeaves();
 
+    List<SickLeaveMonthCountDto> getMonthlySickLeavesHistogram(LocalDate startDate, LocalDate endDate);
+
 }
@@ -8,6 +8,8 @@ public interface SpecializationService {
 
     Set<SpecializationDto> getAllSpecializations();
 
+    String getSpecializationsETag();
+
     SpecializationDto getSpecializationById(Long id);
 
     SpecializationDto createSpecialization(SpecializationDto specializationDto);
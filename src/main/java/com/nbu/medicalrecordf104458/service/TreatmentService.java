@@ -8,6 +8,8 @@ public interface TreatmentService {
 
     Set<TreatmentDto> getAllTreatments();
 
+    String getTreatmentsETag();
+
     TreatmentDto getTreatmentById(Long id);
 
     TreatmentDto createTreatment(TreatmentDto treatmentDto);
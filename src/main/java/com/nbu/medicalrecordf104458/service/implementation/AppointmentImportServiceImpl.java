@@ -0,0 +1,277 @@
+package com.nbu.medicalrecordf104458.service.implementation;
+
+import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentImportErrorDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentImportResultDto;
+import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.SickLeaveAlreadyExistsException;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.Treatment;
+import com.nbu.medicalrecordf104458.repository.DiagnoseRepository;
+import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
+import com.nbu.medicalrecordf104458.repository.DoctorRepository;
+import com.nbu.medicalrecordf104458.repository.PatientRepository;
+import com.nbu.medicalrecordf104458.repository.SickLeaveRepository;
+import com.nbu.medicalrecordf104458.repository.TreatmentRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentImportService;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
+import com.nbu.medicalrecordf104458.utility.AppointmentImportFormat;
+import com.nbu.medicalrecordf104458.utility.AppointmentRecordParser;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.AllArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@AllArgsConstructor
+@Service
+public class AppointmentImportServiceImpl implements AppointmentImportService {
+
+    private static final int MAX_CHUNK_SIZE = 5000;
+
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final DiagnoseRepository diagnoseRepository;
+    private final TreatmentRepository treatmentRepository;
+    private final SickLeaveRepository sickLeaveRepository;
+    private final DoctorAppointmentRepository appointmentRepository;
+    private final AppointmentViewService viewService;
+    private final AppointmentRecordParser parser;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public AppointmentImportResultDto importAppointments(BufferedReader reader, AppointmentImportFormat format, int chunkSize) {
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE + ".");
+        }
+
+        AppointmentImportResultDto result = new AppointmentImportResultDto();
+        // Line number -> record, in the order they were read
+        Map<Long, AppointmentDto> chunk = new LinkedHashMap<>();
+        long lineNumber = 0;
+
+        try {
+            // The first CSV line is the header
+            if (format == AppointmentImportFormat.CSV && reader.readLine() != null) {
+                lineNumber++;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    AppointmentDto dto = parser.parse(line, format);
+                    validate(dto);
+                    chunk.put(lineNumber, dto);
+                } catch (IllegalArgumentException e) {
+                    result.getErrors().add(new AppointmentImportErrorDto(lineNumber, e.getMessage()));
+                }
+
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+
+        result.getErrors().sort(Comparator.comparingLong(AppointmentImportErrorDto::getLineNumber));
+
+        return result;
+    }
+
+    private void validate(AppointmentDto dto) {
+        Set<ConstraintViolation<AppointmentDto>> violations = validator.validate(dto);
+
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+
+        // A null id would fail the lookups of the whole chunk, so it is rejected with its record
+        if (containsNullId(dto.getDiagnoses())) {
+            throw new IllegalArgumentException("Diagnose ids cannot be null");
+        }
+
+        if (containsNullId(dto.getTreatments())) {
+            throw new IllegalArgumentException("Treatment ids cannot be null");
+        }
+    }
+
+    private static boolean containsNullId(Set<Long> ids) {
+        return ids != null && ids.stream().anyMatch(Objects::isNull);
+    }
+
+    // Every chunk is its own transaction, a chunk that fails to save doesn't undo the ones before it
+    private void importChunk(Map<Long, AppointmentDto> chunk, AppointmentImportResultDto result) {
+        List<AppointmentImportErrorDto> errors = new ArrayList<>();
+
+        try {
+            Integer imported = transactionTemplate.execute(status -> persistChunk(chunk, errors));
+
+            result.setImportedCount(result.getImportedCount() + Objects.requireNonNullElse(imported, 0));
+            result.getErrors().addAll(errors);
+        } catch (DataAccessException | PersistenceException | TransactionException e) {
+            chunk.keySet().forEach(lineNumber -> result.getErrors().add(
+                    new AppointmentImportErrorDto(lineNumber, "The chunk containing this record could not be saved: " + e.getMessage())));
+        }
+    }
+
+    private int persistChunk(Map<Long, AppointmentDto> chunk, List<AppointmentImportErrorDto> errors) {
+        Collection<AppointmentDto> records = chunk.values();
+
+        // One query per referenced entity type for the whole chunk
+        Map<Long, Doctor> doctors = findAllById(records, dto -> Stream.of(dto.getDoctorId()),
+                doctorRepository::findAllById, Doctor::getId);
+        Map<Long, Patient> patients = findAllById(records, dto -> Stream.of(dto.getPatientId()),
+                patientRepository::findAllById, Patient::getId);
+        Map<Long, Diagnose> diagnoses = findAllById(records, dto -> dto.getDiagnoses().stream(),
+                diagnoseRepository::findAllById, Diagnose::getId);
+        Map<Long, Treatment> treatments = findAllById(records, dto -> dto.getTreatments().stream(),
+                treatmentRepository::findAllById, Treatment::getId);
+
+        // Only the ids of the sick leaves - loading them would load the appointment of each one as well
+        Set<Long> sickLeaveIds = records.stream()
+                .map(AppointmentDto::getSickLeaveId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> existingSickLeaveIds = Set.of();
+        Set<Long> usedSickLeaveIds = new HashSet<>();
+
+        if (!sickLeaveIds.isEmpty()) {
+            existingSickLeaveIds = sickLeaveRepository.findExistingIds(sickLeaveIds);
+            usedSickLeaveIds.addAll(appointmentRepository.findAttachedSickLeaveIds(sickLeaveIds));
+        }
+
+        List<Long> importedIds = new ArrayList<>();
+        List<Object[]> treatmentLinks = new ArrayList<>();
+
+        for (Map.Entry<Long, AppointmentDto> entry : chunk.entrySet()) {
+            AppointmentDto dto = entry.getValue();
+
+            try {
+                DoctorAppointment appointment = new DoctorAppointment();
+                appointment.setVisitDate(dto.getVisitDate());
+                appointment.setDoctor(resolve(doctors, dto.getDoctorId(), "Doctor"));
+                appointment.setPatient(resolve(patients, dto.getPatientId(), "Patient"));
+                appointment.setDiagnoses(dto.getDiagnoses().stream()
+                        .map(id -> resolve(diagnoses, id, "Diagnose"))
+                        .collect(Collectors.toSet()));
+
+                if (appointment.getDoctor().isDeleted() || appointment.getPatient().isDeleted()
+                        || appointment.getDiagnoses().stream().anyMatch(Diagnose::isDeleted)) {
+                    throw new IllegalArgumentException("You can't use records that are marked for deletion!");
+                }
+
+                Set<Treatment> appointmentTreatments = dto.getTreatments().stream()
+                        .map(id -> resolve(treatments, id, "Treatment"))
+                        .collect(Collectors.toSet());
+
+                if (dto.getSickLeaveId() != null) {
+                    if (!existingSickLeaveIds.contains(dto.getSickLeaveId())) {
+                        throw new EntityNotFoundException("No Sick Leave found with id: " + dto.getSickLeaveId());
+                    }
+
+                    if (!usedSickLeaveIds.add(dto.getSickLeaveId())) {
+                        throw new SickLeaveAlreadyExistsException("The sick leave is already associated with another appointment.");
+                    }
+
+                    appointment.setSickLeave(sickLeaveRepository.getReferenceById(dto.getSickLeaveId()));
+                }
+
+                appointmentRepository.save(appointment);
+                importedIds.add(appointment.getId());
+                appointmentTreatments.forEach(treatment -> treatmentLinks.add(new Object[]{treatment.getId(), appointment.getId()}));
+            } catch (EntityNotFoundException | IllegalArgumentException | SickLeaveAlreadyExistsException e) {
+                errors.add(new AppointmentImportErrorDto(entry.getKey(), e.getMessage()));
+            }
+        }
+
+        // The appointments go in before the join rows that point at them
+        entityManager.flush();
+        insertTreatmentLinks(treatmentLinks);
+
+        viewService.addAppointments(importedIds);
+
+        // Send the chunk as JDBC batches and keep the persistence context from growing with the import
+        entityManager.flush();
+        entityManager.clear();
+
+        return importedIds.size();
+    }
+
+    // Straight into the join table - the treatment side owns it, and adding to Treatment.appointments
+    // would load every appointment the treatment was ever given in
+    private void insertTreatmentLinks(List<Object[]> treatmentLinks) {
+        if (!treatmentLinks.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO appointments_treatments (treatment_id, appointment_id) VALUES (?, ?)",
+                    treatmentLinks);
+        }
+    }
+
+    private <T> Map<Long, T> findAllById(Collection<AppointmentDto> records, Function<AppointmentDto, Stream<Long>> ids,
+                                         Function<Set<Long>, List<T>> finder, Function<T, Long> idGetter) {
+        Set<Long> idsToFind = records.stream()
+                .flatMap(ids)
+                .collect(Collectors.toSet());
+
+        if (idsToFind.isEmpty()) {
+            return Map.of();
+        }
+
+        return finder.apply(idsToFind).stream()
+                .collect(Collectors.toMap(idGetter, Function.identity()));
+    }
+
+    private <T> T resolve(Map<Long, T> found, Long id, String entityName) {
+        T entity = found.get(id);
+
+        if (entity == null) {
+            throw new EntityNotFoundException("No " + entityName + " found with id: " + id);
+        }
+
+        return entity;
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.nbu.medicalrecordf104458.service.implementation;
+
+import com.nbu.medicalrecordf104458.mapper.DoctorAppointmentMapper;
+import com.nbu.medicalrecordf104458.model.AppointmentView;
+import com.nbu.medicalrecordf104458.repository.AppointmentViewRepository;
+import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Keeps appointment_view in step with the appointments. The rows are read back with queries after the changes are
+// flushed, not taken from the loaded entities, so sick leaves attached by a bulk update and treatments linked from
+// the treatment side are in them too. Being part of the write's transaction, a rolled back write leaves no trace here
+@AllArgsConstructor
+@Service
+public class AppointmentViewServiceImpl implements AppointmentViewService {
+
+    // Keeps the IN lists of the projection query at a size every database accepts
+    private static final int ID_BATCH_SIZE = 1000;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final AppointmentViewRepository viewRepository;
+    private final DoctorAppointmentRepository appointmentRepository;
+    private final DoctorAppointmentMapper mapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    // New appointments have no row yet, so they are inserted without looking for one first
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addAppointments(Collection<Long> appointmentIds) {
+        project(appointmentIds).forEach(entityManager::persist);
+    }
+
+    // Rows of deleted appointments are removed
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshAppointments(Collection<Long> appointmentIds) {
+        List<AppointmentView> views = project(appointmentIds);
+        viewRepository.saveAll(views);
+
+        Set<Long> deletedIds = new HashSet<>(appointmentIds);
+        views.forEach(view -> deletedIds.remove(view.getAppointmentId()));
+
+        if (!deletedIds.isEmpty()) {
+            viewRepository.deleteAllByIdInBatch(deletedIds);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void renameDoctor(Long doctorId, String name) {
+        viewRepository.renameDoctor(doctorId, name);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void renamePatient(Long patientId, String name) {
+        viewRepository.renamePatient(patientId, name);
+    }
+
+    // Rebuilt in batches of appointment ids that each commit on their own, so the table is never emptied or locked
+    // as a whole and a run that fails keeps the batches it already committed. Reads see either the old or the new
+    // rows of a batch. A write to an appointment while its batch runs waits for the batch's locks and writes its
+    // row after it - if the two still collide, the write fails with a conflict and can be repeated. Appointments
+    // created during the rebuild are added by their own write, or by their batch if it comes later
+    @Override
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public long rebuildAppointmentView() {
+        long rebuilt = 0;
+        List<Long> batch = transactionTemplate.execute(status -> rebuildBatch(0L));
+
+        while (!batch.isEmpty()) {
+            rebuilt += batch.size();
+
+            Long lastId = batch.get(batch.size() - 1);
+            batch = transactionTemplate.execute(status -> rebuildBatch(lastId));
+        }
+
+        return rebuilt;
+    }
+
+    // Replaces the rows of the next appointment ids after the given one. Past the last appointment it only deletes,
+    // those rows belong to appointments deleted without their row
+    private List<Long> rebuildBatch(Long afterId) {
+        List<Long> ids = appointmentRepository.findIdsAfter(afterId, Limit.of(REBUILD_BATCH_SIZE));
+        Long lastId = ids.isEmpty() ? Long.MAX_VALUE : ids.get(ids.size() - 1);
+
+        // Deleted before the appointments are read, a write committed after the read would otherwise be overwritten
+        viewRepository.deleteRange(afterId, lastId);
+        project(ids).forEach(entityManager::persist);
+
+        // Send the batch as JDBC batches and keep the persistence context from growing with the table
+        entityManager.flush();
+        entityManager.clear();
+
+        return ids;
+    }
+
+    private List<AppointmentView> project(Collection<Long> appointmentIds) {
+        // The join table reads are native queries, the pending changes have to be in the database before them
+        appointmentRepository.flush();
+
+        List<Long> ids = new ArrayList<>(new HashSet<>(appointmentIds));
+        List<AppointmentView> views = new ArrayList<>(ids.size());
+
+        for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) {
+            views.addAll(viewRepository.projectAppointments(ids.subList(from, Math.min(from + ID_BATCH_SIZE, ids.size()))));
+        }
+
+        return mapper.addLinkedIds(views);
+    }
+
+}
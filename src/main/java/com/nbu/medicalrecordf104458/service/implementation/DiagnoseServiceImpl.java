@@ -6,14 +6,19 @@ import com.nbu.medicalrecordf104458.model.Diagnose;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
 import com.nbu.medicalrecordf104458.repository.DiagnoseRepository;
 import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
 import com.nbu.medicalrecordf104458.service.DiagnoseService;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions.Catalog;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -25,6 +30,8 @@ public class DiagnoseServiceImpl implements DiagnoseService {
     private final DiagnoseRepository diagnoseRepository;
     private final DoctorAppointmentRepository appointmentRepository;
     private final DiagnoseMapper mapper;
+    private final ResourceVersions resourceVersions;
+    private final AppointmentViewService viewService;
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
@@ -34,6 +41,12 @@ public class DiagnoseServiceImpl implements DiagnoseService {
                 .collect(Collectors.toSet());
     }
 
+    @Override
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
+    public String getDiagnosesETag() {
+        return resourceVersions.getCatalogETag(Catalog.DIAGNOSES);
+    }
+
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
     public DiagnoseDto getDiagnoseById(Long id) {
@@ -54,6 +67,7 @@ public class DiagnoseServiceImpl implements DiagnoseService {
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public DiagnoseDto updateDiagnose(Long id, DiagnoseDto diagnoseDto) {
         Diagnose diagnose = diagnoseRepository.findById(id)
                 .filter(diagnose1 -> !diagnose1.isDeleted())
@@ -62,6 +76,9 @@ public class DiagnoseServiceImpl implements DiagnoseService {
         diagnose.setName(diagnoseDto.getName());
         diagnose.setDescription(diagnoseDto.getDescription());
 
+        // The appointments it is taken off change as well as the ones it is put on
+        Set<Long> changedAppointmentIds = new HashSet<>(appointmentIdsOf(diagnose.getAppointments()));
+
         if (!diagnoseDto.getAppointmentIds().isEmpty()) {
             diagnose.setAppointments(diagnoseDto.getAppointmentIds().stream()
                     .map(appointmentId -> appointmentRepository.findById(appointmentId)
@@ -69,7 +86,12 @@ public class DiagnoseServiceImpl implements DiagnoseService {
                     .collect(Collectors.toSet()));
         }
 
-        return mapper.convertToDto(diagnoseRepository.save(diagnose));
+        changedAppointmentIds.addAll(appointmentIdsOf(diagnose.getAppointments()));
+
+        Diagnose updated = diagnoseRepository.save(diagnose);
+        viewService.refreshAppointments(changedAppointmentIds);
+
+        return mapper.convertToDto(updated);
     }
 
     @Override
@@ -87,6 +109,7 @@ public class DiagnoseServiceImpl implements DiagnoseService {
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public DiagnoseDto addAppointment(Long diagnoseId, Long appointmentId) {
         Diagnose diagnose = diagnoseRepository.findById(diagnoseId)
                 .filter(diagnose1 -> !diagnose1.isDeleted())
@@ -97,11 +120,15 @@ public class DiagnoseServiceImpl implements DiagnoseService {
 
         diagnose.getAppointments().add(appointment);
 
-        return mapper.convertToDto(diagnoseRepository.save(diagnose));
+        Diagnose updated = diagnoseRepository.save(diagnose);
+        viewService.refreshAppointments(List.of(appointmentId));
+
+        return mapper.convertToDto(updated);
     }
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public DiagnoseDto removeAppointment(Long diagnoseId, Long appointmentId) {
         Diagnose diagnose = diagnoseRepository.findById(diagnoseId)
                 .filter(diagnose1 -> !diagnose1.isDeleted())
@@ -112,7 +139,10 @@ public class DiagnoseServiceImpl implements DiagnoseService {
 
         diagnose.getAppointments().remove(appointment);
 
-        return mapper.convertToDto(diagnoseRepository.save(diagnose));
+        Diagnose updated = diagnoseRepository.save(diagnose);
+        viewService.refreshAppointments(List.of(appointmentId));
+
+        return mapper.convertToDto(updated);
     }
 
     // Queries
@@ -148,4 +178,10 @@ public class DiagnoseServiceImpl implements DiagnoseService {
         return mostCommon;
     }
 
+    private List<Long> appointmentIdsOf(Set<DoctorAppointment> appointments) {
+        return appointments.stream()
+                .map(DoctorAppointment::getId)
+                .toList();
+    }
+
 }
@@ -1,50 +1,124 @@
 package com.nbu.medicalrecordf104458.service.implementation;
 
 import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentPageDto;
 import com.nbu.medicalrecordf104458.mapper.DoctorAppointmentMapper;
+import com.nbu.medicalrecordf104458.model.AppointmentView;
 import com.nbu.medicalrecordf104458.model.Diagnose;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
 import com.nbu.medicalrecordf104458.model.Treatment;
+import com.nbu.medicalrecordf104458.repository.AppointmentViewRepository;
 import com.nbu.medicalrecordf104458.repository.DiagnoseRepository;
 import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
 import com.nbu.medicalrecordf104458.repository.DoctorRepository;
 import com.nbu.medicalrecordf104458.repository.PatientRepository;
 import com.nbu.medicalrecordf104458.repository.SickLeaveRepository;
 import com.nbu.medicalrecordf104458.repository.TreatmentRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
 import com.nbu.medicalrecordf104458.service.DoctorAppointmentService;
+import com.nbu.medicalrecordf104458.utility.RetryOnConflict;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @AllArgsConstructor
 @Service
 public class DoctorAppointmentServiceImpl implements DoctorAppointmentService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
     private final DiagnoseRepository diagnoseRepository;
     private final TreatmentRepository treatmentRepository;
     private final SickLeaveRepository sickLeaveRepository;
     private final DoctorAppointmentRepository appointmentRepository;
+    private final AppointmentViewRepository viewRepository;
+    private final AppointmentViewService viewService;
     private final DoctorAppointmentMapper mapper;
+    private final EntityManager entityManager;
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
     public Set<AppointmentDto> getAllAppointments() {
-        return appointmentRepository.findAll().stream()
+        return viewRepository.findAll().stream()
                 .map(mapper::convertToDto)
                 .collect(Collectors.toSet());
     }
 
+    @Override
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
+    public AppointmentPageDto getAppointmentsPage(LocalDate afterVisitDate, Long afterId, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+
+        if ((afterVisitDate == null) != (afterId == null)) {
+            throw new IllegalArgumentException("Both afterVisitDate and afterId are required to continue from a cursor.");
+        }
+
+        // Fetch one extra row to find out if there is a next page without running a count query
+        Limit limit = Limit.of(size + 1);
+        List<AppointmentView> appointments = afterId == null
+                ? viewRepository.findAllByOrderByVisitDateAscAppointmentIdAsc(limit)
+                : viewRepository.findPageAfter(afterVisitDate, afterId, limit);
+
+        boolean hasNext = appointments.size() > size;
+        List<AppointmentDto> page = (hasNext ? appointments.subList(0, size) : appointments).stream()
+                .map(mapper::convertToDto)
+                .toList();
+
+        AppointmentPageDto pageDto = new AppointmentPageDto();
+        pageDto.setAppointments(page);
+
+        if (hasNext) {
+            AppointmentDto last = page.get(page.size() - 1);
+            pageDto.setNextVisitDate(last.getVisitDate());
+            pageDto.setNextId(last.getId());
+        }
+
+        return pageDto;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
+    public void streamAllAppointments(Consumer<AppointmentDto> consumer) {
+        try (Stream<AppointmentView> appointments = viewRepository.streamAllOrderedByVisitDate()) {
+            Iterator<AppointmentView> iterator = appointments.iterator();
+            int read = 0;
+
+            while (iterator.hasNext()) {
+                consumer.accept(mapper.convertToDto(iterator.next()));
+
+                // Keep the persistence context from growing with the table
+                if (++read % STREAM_BATCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
     public AppointmentDto getAppointmentById(Long id) {
-        DoctorAppointment appointment = appointmentRepository.findById(id)
+        AppointmentView appointment = viewRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("No Appointment found with id: " + id));
 
         return mapper.convertToDto(appointment);
@@ -52,6 +126,7 @@ public class DoctorAppointmentServiceImpl implements DoctorAppointmentService {
 
     @Override
     @PreAuthorize("hasRole('ADMIN') or @customSecurityChecker.checkDoctorAccessForAppointmentCreation(#appointmentDto.getDoctorId())")
+    @Transactional
     public AppointmentDto createAppointment(AppointmentDto appointmentDto) {
         DoctorAppointment appointment = mapper.convertToEntity(appointmentDto);
 
@@ -63,59 +138,82 @@ public class DoctorAppointmentServiceImpl implements DoctorAppointmentService {
             throw new IllegalArgumentException("You can't use records that are marked for deletion!");
         }
 
-        return mapper.convertToDto(appointmentRepository.save(appointment));
+        DoctorAppointment created = appointmentRepository.save(appointment);
+        viewService.addAppointments(List.of(created.getId()));
+
+        return mapper.convertToDto(created);
     }
 
     @Override
     @PreAuthorize("hasRole('ADMIN') or @customSecurityChecker.isDoctorAssociatedWithAppointment(#id)")
+    @Transactional
     public AppointmentDto updateAppointment(Long id, AppointmentDto appointmentDto) {
         DoctorAppointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("No Appointment found with id: " + id));
 
+        VersionValidator.validateVersion("appointment", id, appointmentDto.getVersion(), appointment.getVersion());
+
         appointment.setVisitDate(appointmentDto.getVisitDate());
 
-        appointment.setPatient(patientRepository.findById(appointmentDto.getPatientId())
+        // Reuse the references the appointment already holds and only query for the ones that changed
+        appointment.setPatient(Optional.of(appointment.getPatient())
+                .filter(patient -> patient.getId().equals(appointmentDto.getPatientId()))
+                .or(() -> patientRepository.findById(appointmentDto.getPatientId()))
                 .filter(patient -> !patient.isDeleted())
                 .orElseThrow(() -> new EntityNotFoundException("No Patient found with id: " + appointmentDto.getPatientId())));
 
-        appointment.setDoctor(doctorRepository.findById(appointmentDto.getDoctorId())
+        appointment.setDoctor(Optional.of(appointment.getDoctor())
+                .filter(doctor -> doctor.getId().equals(appointmentDto.getDoctorId()))
+                .or(() -> doctorRepository.findById(appointmentDto.getDoctorId()))
                 .filter(doctor -> !doctor.isDeleted())
                 .orElseThrow(() -> new EntityNotFoundException("No Doctor found with id: " + appointmentDto.getDoctorId())));
 
-        appointment.setDiagnoses(appointmentDto.getDiagnoses().stream()
-                .map(diagnoseId -> diagnoseRepository.findById(diagnoseId)
-                        .filter(diagnose -> !diagnose.isDeleted())
-                        .orElseThrow(() -> new EntityNotFoundException("No Diagnose found with id: " + diagnoseId)))
-                .collect(Collectors.toSet()));
+        Set<Diagnose> diagnoses = mapper.findDiagnoses(appointmentDto.getDiagnoses(), appointment.getDiagnoses());
+        Set<Long> deletedDiagnoseIds = diagnoses.stream()
+                .filter(Diagnose::isDeleted)
+                .map(Diagnose::getId)
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        if (!deletedDiagnoseIds.isEmpty()) {
+            throw new EntityNotFoundException("No Diagnose found with ids: " + deletedDiagnoseIds);
+        }
+
+        appointment.setDiagnoses(diagnoses);
 
         if (!appointmentDto.getTreatments().isEmpty()) {
-            appointment.setTreatments(appointmentDto.getTreatments().stream()
-                    .map(treatmentId -> treatmentRepository.findById(treatmentId)
-                            .orElseThrow(() -> new EntityNotFoundException("No Treatment found with id: " + treatmentId)))
-                    .collect(Collectors.toSet()));
+            appointment.setTreatments(mapper.findTreatments(appointmentDto.getTreatments(), appointment.getTreatments()));
         }
 
         if (appointmentDto.getSickLeaveId() != null) {
-            appointment.setSickLeave(sickLeaveRepository.findById(appointmentDto.getSickLeaveId())
+            appointment.setSickLeave(Optional.ofNullable(appointment.getSickLeave())
+                    .filter(sickLeave -> sickLeave.getId().equals(appointmentDto.getSickLeaveId()))
+                    .or(() -> sickLeaveRepository.findById(appointmentDto.getSickLeaveId()))
                     .orElseThrow(() -> new EntityNotFoundException("No Sick Leave found with id: " + appointmentDto.getSickLeaveId())));
         }
 
-        return mapper.convertToDto(appointmentRepository.save(appointment));
+        DoctorAppointment updated = appointmentRepository.saveAndFlush(appointment);
+        viewService.refreshAppointments(List.of(id));
+
+        return mapper.convertToDto(updated);
     }
 
     @Override
     @PreAuthorize("hasRole('ADMIN') or @customSecurityChecker.isDoctorAssociatedWithAppointment(#id)")
+    @Transactional
     public void deleteAppointment(Long id) {
         DoctorAppointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("No Appointment found with id: " + id));
 
         appointmentRepository.delete(appointment);
+        viewService.refreshAppointments(List.of(id));
     }
 
     // Add/Remove methods for Treatment and Diagnose  many-to-many table
 
     @Override
+    @RetryOnConflict
     @PreAuthorize("hasRole('ADMIN') or @customSecurityChecker.isDoctorAssociatedWithAppointment(#appointmentId)")
+    @Transactional
     public AppointmentDto addDiagnose(Long appointmentId, Long diagnoseId) {
         DoctorAppointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new EntityNotFoundException("No Appointment found with id: " + appointmentId));
@@ -126,11 +224,16 @@ public class DoctorAppointmentServiceImpl implements DoctorAppointmentService {
 
         appointment.getDiagnoses().add(diagnose);
 
-        return mapper.convertToDto(appointmentRepository.save(appointment));
+        DoctorAppointment updated = appointmentRepository.saveAndFlush(appointment);
+        viewService.refreshAppointments(List.of(appointmentId));
+
+        return mapper.convertToDto(updated);
     }
 
     @Override
+    @RetryOnConflict
     @PreAuthorize("hasRole('ADMIN') or @customSecurityChecker.isDoctorAssociatedWithAppointment(#appointmentId)")
+    @Transactional
     public AppointmentDto removeDiagnose(Long appointmentId, Long diagnoseId) {
         DoctorAppointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new EntityNotFoundException("No Appointment found with id: " + appointmentId));
@@ -141,11 +244,16 @@ public class DoctorAppointmentServiceImpl implements DoctorAppointmentService {
 
         appointment.getDiagnoses().remove(diagnose);
 
-        return mapper.convertToDto(appointmentRepository.save(appointment));
+        DoctorAppointment updated = appointmentRepository.saveAndFlush(appointment);
+        viewService.refreshAppointments(List.of(appointmentId));
+
+        return mapper.convertToDto(updated);
     }
 
     @Override
+    @RetryOnConflict
     @PreAuthorize("hasRole('ADMIN') or @customSecurityChecker.isDoctorAssociatedWithAppointment(#appointmentId)")
+    @Transactional
     public AppointmentDto addTreatment(Long appointmentId, Long treatmentId) {
         DoctorAppointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new EntityNotFoundException("No Appointment found with id: " + appointmentId));
@@ -153,14 +261,21 @@ public class DoctorAppointmentServiceImpl implements DoctorAppointmentService {
         Treatment treatment = treatmentRepository.findById(treatmentId)
                 .orElseThrow(() -> new EntityNotFoundException("No Treatment found with id: " + treatmentId));
 
+        // The appointment is the inverse side of the link, its version doesn't move with the join table row
         appointment.getTreatments().add(treatment);
         treatment.getAppointments().add(appointment);
+        appointmentRepository.incrementVersion(appointment);
+
+        DoctorAppointment updated = appointmentRepository.saveAndFlush(appointment);
+        viewService.refreshAppointments(List.of(appointmentId));
 
-        return mapper.convertToDto(appointmentRepository.save(appointment));
+        return mapper.convertToDto(updated);
     }
 
     @Override
+    @RetryOnConflict
     @PreAuthorize("hasRole('ADMIN') or @customSecurityChecker.isDoctorAssociatedWithAppointment(#appointmentId)")
+    @Transactional
     public AppointmentDto removeTreatment(Long appointmentId, Long treatmentId) {
         DoctorAppointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new EntityNotFoundException("No Appointment found with id: " + appointmentId));
@@ -170,15 +285,19 @@ public class DoctorAppointmentServiceImpl implements DoctorAppointmentService {
 
         appointment.getTreatments().remove(treatment);
         treatment.getAppointments().remove(appointment);
+        appointmentRepository.incrementVersion(appointment);
+
+        DoctorAppointment updated = appointmentRepository.saveAndFlush(appointment);
+        viewService.refreshAppointments(List.of(appointmentId));
 
-        return mapper.convertToDto(appointmentRepository.save(appointment));
+        return mapper.convertToDto(updated);
     }
 
     // Queries
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
     public Set<AppointmentDto> findVisitsByDateRange(LocalDate startDate, LocalDate endDate) {
-        return appointmentRepository.findVisitsByDateRange(startDate, endDate).stream()
+        return viewRepository.findAllByVisitDateBetween(startDate, endDate).stream()
                 .map(mapper::convertToDto)
                 .collect(Collectors.toSet());
     }
@@ -190,7 +309,7 @@ public class DoctorAppointmentServiceImpl implements DoctorAppointmentService {
                 .filter(doctor -> !doctor.isDeleted())
                 .orElseThrow(() -> new EntityNotFoundException("No Doctor found with id: " + doctorId));
 
-        return appointmentRepository.findAppointmentsByDoctorAndDateRange(doctorId, startDate, endDate).stream()
+        return viewRepository.findAllByDoctorIdAndVisitDateBetween(doctorId, startDate, endDate).stream()
                 .map(mapper::convertToDto)
                 .collect(Collectors.toSet());
     }
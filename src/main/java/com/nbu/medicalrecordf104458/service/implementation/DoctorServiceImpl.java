@@ -1,21 +1,23 @@
 package com.nbu.medicalrecordf104458.service.implementation;
 
 import com.nbu.medicalrecordf104458.dto.queries.DoctorAppointmentsCountDto;
+import com.nbu.medicalrecordf104458.dto.queries.DoctorSickLeavesCountDto;
 import com.nbu.medicalrecordf104458.dto.DoctorDto;
 import com.nbu.medicalrecordf104458.mapper.DoctorMapper;
 import com.nbu.medicalrecordf104458.model.Doctor;
 import com.nbu.medicalrecordf104458.model.Specialization;
 import com.nbu.medicalrecordf104458.repository.DoctorRepository;
 import com.nbu.medicalrecordf104458.repository.SpecializationRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
 import com.nbu.medicalrecordf104458.service.DoctorService;
+import com.nbu.medicalrecordf104458.utility.RetryOnConflict;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -26,6 +28,7 @@ public class DoctorServiceImpl implements DoctorService {
     private final DoctorMapper mapper;
     private final DoctorRepository doctorRepository;
     private final SpecializationRepository specializationRepository;
+    private final AppointmentViewService viewService;
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
@@ -63,11 +66,19 @@ public class DoctorServiceImpl implements DoctorService {
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public DoctorDto updateDoctor(Long id, DoctorDto doctorDto) {
         Doctor doctor = doctorRepository.findById(id)
                 .filter(doctor1 -> !doctor1.isDeleted())
                 .orElseThrow(() -> new EntityNotFoundException("No doctor found with id: " + id));
 
+        VersionValidator.validateVersion("doctor", id, doctorDto.getVersion(), doctor.getVersion());
+
+        // The appointment rows carry the name too
+        if (!doctor.getName().equals(doctorDto.getName())) {
+            viewService.renameDoctor(id, doctorDto.getName());
+        }
+
         doctor.setName(doctorDto.getName());
 
         if (!doctorDto.getSpecializationIds().isEmpty()) {
@@ -78,7 +89,7 @@ public class DoctorServiceImpl implements DoctorService {
                     .collect(Collectors.toSet()));
         }
 
-        return mapper.convertToDto(doctorRepository.save(doctor));
+        return mapper.convertToDto(doctorRepository.saveAndFlush(doctor));
     }
 
     @Override
@@ -94,6 +105,7 @@ public class DoctorServiceImpl implements DoctorService {
     }
 
     @Override
+    @RetryOnConflict
     @PreAuthorize("hasAuthority('ADMIN')")
     public DoctorDto addSpecialization(Long doctorId, Long specializationId) {
         Doctor doctor = doctorRepository.findById(doctorId)
@@ -106,10 +118,11 @@ public class DoctorServiceImpl implements DoctorService {
 
         doctor.getSpecializations().add(specialization);
 
-        return mapper.convertToDto(doctorRepository.save(doctor));
+        return mapper.convertToDto(doctorRepository.saveAndFlush(doctor));
     }
 
     @Override
+    @RetryOnConflict
     @PreAuthorize("hasAuthority('ADMIN')")
     public DoctorDto removeSpecialization(Long doctorId, Long specializationId) {
         Doctor doctor = doctorRepository.findById(doctorId)
@@ -122,7 +135,7 @@ public class DoctorServiceImpl implements DoctorService {
 
         doctor.getSpecializations().remove(specialization);
 
-        return mapper.convertToDto(doctorRepository.save(doctor));
+        return mapper.convertToDto(doctorRepository.saveAndFlush(doctor));
     }
 
     // Queries
@@ -144,40 +157,8 @@ public class DoctorServiceImpl implements DoctorService {
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
-    public Set<DoctorDto> findDoctorsWithMostSickLeaves() {
-        Set<Doctor> doctors = new HashSet<>(doctorRepository.findAllByDeletedFalse());
-
-        Map<Long, Integer> doctorSickLeaveCountMap = new HashMap<>();
-        int maxSickLeaveCount = 0;
-
-        for (Doctor doctor : doctors) {
-            int sickLeaveCount = (int) doctor.getAppointments().stream()
-                    .filter(appointment -> appointment.getSickLeave() != null)
-                    .count();
-
-            doctorSickLeaveCountMap.put(doctor.getId(), sickLeaveCount);
-
-            maxSickLeaveCount = Math.max(maxSickLeaveCount, sickLeaveCount);
-        }
-
-        Set<DoctorDto> doctorsWithMostSickLeaves = new HashSet<>();
-        for (Map.Entry<Long, Integer> entry : doctorSickLeaveCountMap.entrySet()) {
-            if (entry.getValue() == maxSickLeaveCount) {
-                Doctor doctor = doctorRepository.findById(entry.getKey())
-                        .orElseThrow(() -> new EntityNotFoundException("Doctor not found"));
-
-                DoctorDto dto = new DoctorDto(
-                        doctor.getId(),
-                        doctor.getName(),
-                        doctor.getSpecializations().stream()
-                                .map(Specialization::getId)
-                                .collect(Collectors.toSet())
-                );
-                doctorsWithMostSickLeaves.add(dto);
-            }
-        }
-
-        return doctorsWithMostSickLeaves;
+    public Set<DoctorSickLeavesCountDto> findDoctorsWithMostSickLeaves() {
+        return doctorRepository.findDoctorsWithMostSickLeaves();
     }
 
 }
@@ -9,12 +9,17 @@ import com.nbu.medicalrecordf104458.model.Specialization;
 import com.nbu.medicalrecordf104458.repository.GeneralPractitionerRepository;
 import com.nbu.medicalrecordf104458.repository.PatientRepository;
 import com.nbu.medicalrecordf104458.repository.SpecializationRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
 import com.nbu.medicalrecordf104458.service.GeneralPractitionerService;
+import com.nbu.medicalrecordf104458.utility.RetryOnConflict;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -26,13 +31,12 @@ public class GeneralPractitionerServiceImpl implements GeneralPractitionerServic
     private final SpecializationRepository specializationRepository;
     private final GeneralPractitionerRepository gpRepository;
     private final GeneralPractitionerMapper gpMapper;
+    private final AppointmentViewService viewService;
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
     public Set<GeneralPractitionerDto> getAllDoctors() {
-        return gpRepository.findAllByDeletedFalse().stream()
-                .map(gpMapper::convertToDto)
-                .collect(Collectors.toSet());
+        return new HashSet<>(gpMapper.convertToDtos(gpRepository.findAllByDeletedFalse()));
     }
 
     @Override
@@ -67,11 +71,19 @@ public class GeneralPractitionerServiceImpl implements GeneralPractitionerServic
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public GeneralPractitionerDto updateDoctor(Long id, GeneralPractitionerDto gpDto) {
         GeneralPractitioner gp = gpRepository.findById(id)
                 .filter(generalPractitioner -> !generalPractitioner.isDeleted())
                 .orElseThrow(() -> new EntityNotFoundException("No GP found with id: " + id));
 
+        VersionValidator.validateVersion("doctor", id, gpDto.getDoctor().getVersion(), gp.getVersion());
+
+        // The appointment rows carry the name too
+        if (!gp.getName().equals(gpDto.getDoctor().getName())) {
+            viewService.renameDoctor(id, gpDto.getDoctor().getName());
+        }
+
         gp.setName(gpDto.getDoctor().getName());
 
         if (!gpDto.getDoctor().getSpecializationIds().isEmpty()) {
@@ -90,7 +102,7 @@ public class GeneralPractitionerServiceImpl implements GeneralPractitionerServic
                     .collect(Collectors.toSet()));
         }
 
-        return gpMapper.convertToDto(gpRepository.save(gp));
+        return gpMapper.convertToDto(gpRepository.saveAndFlush(gp));
     }
 
     @Override
@@ -106,6 +118,7 @@ public class GeneralPractitionerServiceImpl implements GeneralPractitionerServic
     }
 
     @Override
+    @RetryOnConflict
     @PreAuthorize("hasAuthority('ADMIN')")
     public GeneralPractitionerDto addSpecialization(Long gpId, Long specializationId) {
         GeneralPractitioner gp = gpRepository.findById(gpId)
@@ -118,10 +131,11 @@ public class GeneralPractitionerServiceImpl implements GeneralPractitionerServic
 
         gp.getSpecializations().add(specialization);
 
-        return gpMapper.convertToDto(gpRepository.save(gp));
+        return gpMapper.convertToDto(gpRepository.saveAndFlush(gp));
     }
 
     @Override
+    @RetryOnConflict
     public GeneralPractitionerDto removeSpecialization(Long gpId, Long specializationId) {
         GeneralPractitioner gp = gpRepository.findById(gpId)
                 .filter(generalPractitioner -> !generalPractitioner.isDeleted())
@@ -133,7 +147,7 @@ public class GeneralPractitionerServiceImpl implements GeneralPractitionerServic
 
         gp.getSpecializations().remove(specialization);
 
-        return gpMapper.convertToDto(gpRepository.save(gp));
+        return gpMapper.convertToDto(gpRepository.saveAndFlush(gp));
     }
 
     @Override
@@ -149,7 +163,7 @@ public class GeneralPractitionerServiceImpl implements GeneralPractitionerServic
 
         gp.getPatients().add(patient);
 
-        return gpMapper.convertToDto(gpRepository.save(gp));
+        return gpMapper.convertToDto(gpRepository.saveAndFlush(gp));
     }
 
     @Override
@@ -165,7 +179,7 @@ public class GeneralPractitionerServiceImpl implements GeneralPractitionerServic
 
         gp.getPatients().remove(patient);
 
-        return gpMapper.convertToDto(gpRepository.save(gp));
+        return gpMapper.convertToDto(gpRepository.saveAndFlush(gp));
     }
 
     @Override
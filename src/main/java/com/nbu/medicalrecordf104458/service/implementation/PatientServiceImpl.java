@@ -2,33 +2,56 @@ package com.nbu.medicalrecordf104458.service.implementation;
 
 import com.nbu.medicalrecordf104458.dto.AppointmentDto;
 import com.nbu.medicalrecordf104458.dto.PatientDto;
+import com.nbu.medicalrecordf104458.dto.history.HistoryDiagnoseDto;
+import com.nbu.medicalrecordf104458.dto.history.HistoryTreatmentDto;
+import com.nbu.medicalrecordf104458.dto.history.PatientHistoryEntryDto;
 import com.nbu.medicalrecordf104458.mapper.DoctorAppointmentMapper;
 import com.nbu.medicalrecordf104458.mapper.PatientMapper;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
 import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
 import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.repository.AppointmentViewRepository;
 import com.nbu.medicalrecordf104458.repository.DiagnoseRepository;
 import com.nbu.medicalrecordf104458.repository.GeneralPractitionerRepository;
 import com.nbu.medicalrecordf104458.repository.PatientRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
 import com.nbu.medicalrecordf104458.service.PatientService;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @AllArgsConstructor
 @Service
 public class PatientServiceImpl implements PatientService {
 
+    private static final int HISTORY_BATCH_SIZE = 500;
+
     private final PatientMapper mapper;
     private final DoctorAppointmentMapper appointmentMapper;
     private final PatientRepository patientRepository;
     private final GeneralPractitionerRepository gpRepository;
     private final DiagnoseRepository diagnoseRepository;
+    private final AppointmentViewRepository viewRepository;
+    private final AppointmentViewService viewService;
+    private final EntityManager entityManager;
+    private final ResourceVersions resourceVersions;
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
@@ -49,6 +72,14 @@ public class PatientServiceImpl implements PatientService {
         return mapper.convertToDto(patient);
     }
 
+    // Only the version is read, and only the first time, after that it is kept until the patient changes
+    @Override
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR') or @customSecurityChecker.isPatientAccessingOwnData(#id)")
+    public String getPatientETag(Long id) {
+        return resourceVersions.getPatientETag(id, patientId -> patientRepository.findVersionById(patientId)
+                .orElseThrow(() -> new EntityNotFoundException("No patient found with id: " + patientId)));
+    }
+
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
     public PatientDto createPatient(PatientDto patientDto) {
@@ -63,11 +94,19 @@ public class PatientServiceImpl implements PatientService {
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public PatientDto updatePatient(Long id, PatientDto patientDto) {
         Patient patient = patientRepository.findById(id)
                 .filter(patient1 -> !patient1.isDeleted())
                 .orElseThrow(() -> new EntityNotFoundException("No patient found with id: " + id));
 
+        VersionValidator.validateVersion("patient", id, patientDto.getVersion(), patient.getVersion());
+
+        // The appointment rows carry the name too
+        if (!patient.getName().equals(patientDto.getName())) {
+            viewService.renamePatient(id, patientDto.getName());
+        }
+
         patient.setName(patientDto.getName());
         patient.setUnifiedCivilNumber(patientDto.getUnifiedCivilNumber());
         patient.setLastInsurancePayment(patientDto.getLastInsurancePayment());
@@ -78,7 +117,7 @@ public class PatientServiceImpl implements PatientService {
 
         patient.setFamilyDoctor(gp);
 
-        return mapper.convertToDto(patientRepository.save(patient));
+        return mapper.convertToDto(patientRepository.saveAndFlush(patient));
     }
 
     @Override
@@ -141,9 +180,39 @@ public class PatientServiceImpl implements PatientService {
                 .filter(patient -> !patient.isDeleted())
                 .orElseThrow(() -> new EntityNotFoundException("No Patient found with id: " + patientId));
 
-        return patientRepository.findVisitsByPatientId(patientId).stream()
+        return viewRepository.findAllByPatientId(patientId).stream()
                 .map(appointmentMapper::convertToDto)
                 .collect(Collectors.toSet());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR') or @customSecurityChecker.isPatientAccessingOwnData(#patientId)")
+    public void streamVisitHistory(Long patientId, Consumer<PatientHistoryEntryDto> consumer) {
+        patientRepository.findById(patientId)
+                .filter(patient -> !patient.isDeleted())
+                .orElseThrow(() -> new EntityNotFoundException("No Patient found with id: " + patientId));
+
+        // Only the diagnoses and treatments the patient actually had stay in memory, not the visits
+        Map<Long, HistoryDiagnoseDto> diagnoses = new HashMap<>();
+        Map<Long, HistoryTreatmentDto> treatments = new HashMap<>();
+
+        try (Stream<DoctorAppointment> visits = patientRepository.streamVisitsByPatientId(patientId)) {
+            Iterator<DoctorAppointment> iterator = visits.iterator();
+            List<DoctorAppointment> batch = new ArrayList<>(HISTORY_BATCH_SIZE);
+
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+
+                if (batch.size() == HISTORY_BATCH_SIZE || !iterator.hasNext()) {
+                    appointmentMapper.convertToHistoryEntries(batch, diagnoses, treatments).forEach(consumer);
+                    batch.clear();
+
+                    // Keep the persistence context from growing with the history
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
 }
@@ -1,24 +1,29 @@
 package com.nbu.medicalrecordf104458.service.implementation;
 
 import com.nbu.medicalrecordf104458.dto.SickLeaveDto;
+import com.nbu.medicalrecordf104458.dto.queries.SickLeaveMonthCountDto;
 import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.SickLeaveAlreadyExistsException;
 import com.nbu.medicalrecordf104458.mapper.SickLeaveMapper;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
 import com.nbu.medicalrecordf104458.model.SickLeave;
 import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
 import com.nbu.medicalrecordf104458.repository.SickLeaveRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
 import com.nbu.medicalrecordf104458.service.SickLeaveService;
 import com.nbu.medicalrecordf104458.utility.DateValidator;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.YearMonth;
+import java.time.LocalDate;
+import java.time.Month;
 import java.time.format.TextStyle;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -29,6 +34,7 @@ public class SickLeaveServiceImpl implements SickLeaveService {
     private final DoctorAppointmentRepository appointmentRepository;
     private final SickLeaveMapper mapper;
     private final SickLeaveRepository repository;
+    private final AppointmentViewService viewService;
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
@@ -49,28 +55,34 @@ public class SickLeaveServiceImpl implements SickLeaveService {
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN') or @customSecurityChecker.isDoctorAssociatedWithAppointment(#sickLeaveDto.doctorAppointmentId)")
+    @Transactional
     public SickLeaveDto createSickLeave(SickLeaveDto sickLeaveDto) {
         DateValidator.validateDateRange(sickLeaveDto.getStartDate(), sickLeaveDto.getEndDate());
 
-        SickLeave sickLeave = mapper.convertToEntity(sickLeaveDto);
+        SickLeave sickLeave = repository.saveAndFlush(mapper.convertToEntity(sickLeaveDto));
 
-        if (sickLeave.getDoctorAppointment().getSickLeave() != null) {
+        // The loaded appointment may already be out of date, only the conditional update is safe against a
+        // concurrent create. Throwing rolls the inserted sick leave back
+        if (appointmentRepository.attachSickLeave(sickLeave.getDoctorAppointment().getId(), sickLeave) == 0) {
             throw new SickLeaveAlreadyExistsException("The appointment already has a sick leave associated with it.");
         }
 
-        sickLeave.getDoctorAppointment().setSickLeave(sickLeave);
+        viewService.refreshAppointments(List.of(sickLeave.getDoctorAppointment().getId()));
 
-        return mapper.convertToDto(repository.save(sickLeave));
+        return mapper.convertToDto(sickLeave);
     }
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN') or @customSecurityChecker.isDoctorAssociatedWithSickLeave(#id)")
+    @Transactional
     public SickLeaveDto updateSickLeave(Long id, SickLeaveDto sickLeaveDto) {
         DateValidator.validateDateRange(sickLeaveDto.getStartDate(), sickLeaveDto.getEndDate());
 
         SickLeave sickLeave = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("No sick leave found with id: " + id));
 
+        VersionValidator.validateVersion("sick-leave", id, sickLeaveDto.getVersion(), sickLeave.getVersion());
+
         sickLeave.setStartDate(sickLeaveDto.getStartDate());
         sickLeave.setEndDate(sickLeaveDto.getEndDate());
 
@@ -83,44 +95,45 @@ public class SickLeaveServiceImpl implements SickLeaveService {
 
         sickLeave.setDoctorAppointment(appointment);
 
-        return mapper.convertToDto(repository.save(sickLeave));
+        return mapper.convertToDto(repository.saveAndFlush(sickLeave));
     }
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN') or @customSecurityChecker.isDoctorAssociatedWithSickLeave(#id)")
+    @Transactional
     public void deleteSickLeave(Long id) {
         SickLeave sickLeave = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("No sick leave found with id: " + id));
 
         // So that we can delete them when they are already connected to an appointment
-        sickLeave.getDoctorAppointment().setSickLeave(null);
+        DoctorAppointment appointment = sickLeave.getDoctorAppointment();
+        appointment.setSickLeave(null);
         repository.delete(sickLeave);
+
+        viewService.refreshAppointments(List.of(appointment.getId()));
     }
 
     // Queries
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
     public String getMonthWithMostSickLeaves() {
-        // Извличане на всички болнични
-        Set<SickLeave> sickLeaves = new HashSet<>(repository.findAll());
-
-        // Групиране по година и месец и преброяване
-        Map<YearMonth, Long> monthCounts = sickLeaves.stream()
-                .collect(Collectors.groupingBy(
-                        sickLeave -> YearMonth.from(sickLeave.getStartDate()), // Използваме YearMonth за по-ясен код
-                        Collectors.counting()
-                ));
-
-        // Намиране на месеца с най-много болнични
-        return monthCounts.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(entry -> String.format(
+        return repository.findMonthlySickLeaveCountsByCountDesc(Limit.of(1)).stream()
+                .findFirst()
+                .map(monthCount -> String.format(
                         "The most sick leaves were issued in %s %d, with a total of %d sick leaves.",
-                        entry.getKey().getMonth().getDisplayName(TextStyle.FULL, Locale.getDefault()),
-                        entry.getKey().getYear(),
-                        entry.getValue()
+                        Month.of(monthCount.getMonth()).getDisplayName(TextStyle.FULL, Locale.getDefault()),
+                        monthCount.getYear(),
+                        monthCount.getSickLeavesCount()
                 ))
                 .orElse("There are no records of sick leaves.");
     }
 
+    @Override
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
+    public List<SickLeaveMonthCountDto> getMonthlySickLeavesHistogram(LocalDate startDate, LocalDate endDate) {
+        DateValidator.validateDateRange(startDate, endDate);
+
+        return repository.findMonthlySickLeaveCounts(startDate, endDate);
+    }
+
 }
@@ -7,6 +7,8 @@ import com.nbu.medicalrecordf104458.model.Specialization;
 import com.nbu.medicalrecordf104458.repository.DoctorRepository;
 import com.nbu.medicalrecordf104458.repository.SpecializationRepository;
 import com.nbu.medicalrecordf104458.service.SpecializationService;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions.Catalog;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -22,6 +24,7 @@ public class SpecializationServiceImpl implements SpecializationService {
     private final SpecializationRepository specializationRepository;
     private final DoctorRepository doctorRepository;
     private final SpecializationMapper mapper;
+    private final ResourceVersions resourceVersions;
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
@@ -31,6 +34,12 @@ public class SpecializationServiceImpl implements SpecializationService {
                 .collect(Collectors.toSet());
     }
 
+    @Override
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
+    public String getSpecializationsETag() {
+        return resourceVersions.getCatalogETag(Catalog.SPECIALIZATIONS);
+    }
+
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
     public SpecializationDto getSpecializationById(Long id) {
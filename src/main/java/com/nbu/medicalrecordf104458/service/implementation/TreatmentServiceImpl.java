@@ -6,12 +6,21 @@ import com.nbu.medicalrecordf104458.model.DoctorAppointment;
 import com.nbu.medicalrecordf104458.model.Treatment;
 import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
 import com.nbu.medicalrecordf104458.repository.TreatmentRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
 import com.nbu.medicalrecordf104458.service.TreatmentService;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions.Catalog;
+import com.nbu.medicalrecordf104458.utility.RetryOnConflict;
+import com.nbu.medicalrecordf104458.utility.VersionValidator;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -22,6 +31,8 @@ public class TreatmentServiceImpl implements TreatmentService {
     private final TreatmentMapper mapper;
     private final TreatmentRepository treatmentRepository;
     private final DoctorAppointmentRepository appointmentRepository;
+    private final ResourceVersions resourceVersions;
+    private final AppointmentViewService viewService;
 
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
@@ -31,6 +42,12 @@ public class TreatmentServiceImpl implements TreatmentService {
                 .collect(Collectors.toSet());
     }
 
+    @Override
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
+    public String getTreatmentsETag() {
+        return resourceVersions.getCatalogETag(Catalog.TREATMENTS);
+    }
+
     @Override
     @PreAuthorize("hasAnyAuthority('ADMIN', 'DOCTOR')")
     public TreatmentDto getTreatmentById(Long id) {
@@ -42,46 +59,78 @@ public class TreatmentServiceImpl implements TreatmentService {
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public TreatmentDto createTreatment(TreatmentDto treatmentDto) {
-        Treatment treatment = mapper.convertToEntity(treatmentDto);
+        Treatment treatment = treatmentRepository.save(mapper.convertToEntity(treatmentDto));
+        incrementVersions(treatment.getAppointments());
+        viewService.refreshAppointments(appointmentIdsOf(treatment.getAppointments()));
 
-        return mapper.convertToDto(treatmentRepository.save(treatment));
+        return mapper.convertToDto(treatment);
     }
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public TreatmentDto updateTreatment(Long id, TreatmentDto treatmentDto) {
         Treatment treatment = treatmentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("No Treatment found with id: " + id));
 
+        VersionValidator.validateVersion("treatment", id, treatmentDto.getVersion(), treatment.getVersion());
+
         treatment.setMedicineName(treatmentDto.getMedicineName());
         treatment.setDosageAmount(treatmentDto.getDosageAmount());
         treatment.setFrequency(treatment.getFrequency());
 
+        // The appointments it is taken off change as well as the ones it is put on
+        Set<Long> changedAppointmentIds = new HashSet<>(appointmentIdsOf(treatment.getAppointments()));
+
         if (!treatmentDto.getAppointmentIds().isEmpty()) {
-            treatment.setAppointments(treatmentDto.getAppointmentIds().stream()
+            Set<DoctorAppointment> appointments = treatmentDto.getAppointmentIds().stream()
                     .map(appointmentId -> appointmentRepository.findById(appointmentId)
                             .orElseThrow(() -> new EntityNotFoundException("No Appointment found with id: " + appointmentId)))
-                    .collect(Collectors.toSet()));
+                    .collect(Collectors.toSet());
+
+            // Only the appointments it is taken off or put on get a new version, not the ones it stays on
+            Set<DoctorAppointment> relinkedAppointments = new HashSet<>(treatment.getAppointments());
+            relinkedAppointments.addAll(appointments);
+            relinkedAppointments.removeIf(appointment ->
+                    treatment.getAppointments().contains(appointment) && appointments.contains(appointment));
+
+            treatment.getAppointments().forEach(appointment -> appointment.getTreatments().remove(treatment));
+            appointments.forEach(appointment -> appointment.getTreatments().add(treatment));
+            treatment.setAppointments(appointments);
+            incrementVersions(relinkedAppointments);
         }
 
-        return mapper.convertToDto(treatmentRepository.save(treatment));
+        changedAppointmentIds.addAll(appointmentIdsOf(treatment.getAppointments()));
+
+        Treatment updated = treatmentRepository.save(treatment);
+        viewService.refreshAppointments(changedAppointmentIds);
+
+        return mapper.convertToDto(updated);
     }
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public void deleteTreatment(Long id) {
         Treatment treatment = treatmentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("No Treatment found with id: " + id));
 
+        List<Long> appointmentIds = appointmentIdsOf(treatment.getAppointments());
+
         treatment.getAppointments()
                 .forEach(appointment -> appointment.getTreatments().remove(treatment));
+        incrementVersions(treatment.getAppointments());
 
         treatmentRepository.delete(treatment);
+        viewService.refreshAppointments(appointmentIds);
     }
 
     @Override
+    @RetryOnConflict
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public TreatmentDto addAppointment(Long treatmentId, Long appointmentId) {
         Treatment treatment = treatmentRepository.findById(treatmentId)
                 .orElseThrow(() -> new EntityNotFoundException("No Treatment found with id: " + treatmentId));
@@ -90,12 +139,19 @@ public class TreatmentServiceImpl implements TreatmentService {
                 .orElseThrow(() -> new EntityNotFoundException("No Appointment found with id: " + appointmentId));
 
         treatment.getAppointments().add(appointment);
+        appointment.getTreatments().add(treatment);
+        appointmentRepository.incrementVersion(appointment);
 
-        return mapper.convertToDto(treatmentRepository.save(treatment));
+        Treatment updated = treatmentRepository.save(treatment);
+        viewService.refreshAppointments(List.of(appointmentId));
+
+        return mapper.convertToDto(updated);
     }
 
     @Override
+    @RetryOnConflict
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public TreatmentDto removeAppointment(Long treatmentId, Long appointmentId) {
         Treatment treatment = treatmentRepository.findById(treatmentId)
                 .orElseThrow(() -> new EntityNotFoundException("No Treatment found with id: " + treatmentId));
@@ -104,8 +160,24 @@ public class TreatmentServiceImpl implements TreatmentService {
                 .orElseThrow(() -> new EntityNotFoundException("No Appointment found with id: " + appointmentId));
 
         treatment.getAppointments().remove(appointment);
+        appointment.getTreatments().remove(treatment);
+        appointmentRepository.incrementVersion(appointment);
+
+        Treatment updated = treatmentRepository.save(treatment);
+        viewService.refreshAppointments(List.of(appointmentId));
+
+        return mapper.convertToDto(updated);
+    }
+
+    // The appointment is the inverse side of the links, changing them doesn't move its version on its own
+    private void incrementVersions(Collection<DoctorAppointment> appointments) {
+        appointments.forEach(appointmentRepository::incrementVersion);
+    }
 
-        return mapper.convertToDto(treatmentRepository.save(treatment));
+    private List<Long> appointmentIdsOf(Set<DoctorAppointment> appointments) {
+        return appointments.stream()
+                .map(DoctorAppointment::getId)
+                .toList();
     }
 
 }
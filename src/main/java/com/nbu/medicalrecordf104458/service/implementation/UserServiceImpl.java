@@ -7,6 +7,7 @@ import com.nbu.medicalrecordf104458.dto.auth.RegisterGpDto;
 import com.nbu.medicalrecordf104458.dto.auth.RegisterPatientDto;
 import com.nbu.medicalrecordf104458.dto.auth.RegisterUserDto;
 import com.nbu.medicalrecordf104458.config.JwtService;
+import com.nbu.medicalrecordf104458.config.PrincipalCache;
 import com.nbu.medicalrecordf104458.dto.DoctorDto;
 import com.nbu.medicalrecordf104458.dto.GeneralPractitionerDto;
 import com.nbu.medicalrecordf104458.dto.PatientDto;
@@ -31,6 +32,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -43,6 +45,7 @@ public class UserServiceImpl implements UserService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final PrincipalCache principalCache;
 
     private final DoctorService doctorService;
     private final GeneralPractitionerService gpService;
@@ -62,6 +65,7 @@ public class UserServiceImpl implements UserService {
                 .build();
 
         userRepository.save(user);
+        principalCache.invalidateAfterCommit(user.getEmail());
 
         String jwtToken = jwtService.generateToken(user);
 
@@ -72,6 +76,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public AuthenticationResponseDto registerDoctor(RegisterDoctorDto registerDoctorDto) {
         DoctorDto doctorToSave = new DoctorDto();
         doctorToSave.setName(registerDoctorDto.getName());
@@ -93,6 +98,7 @@ public class UserServiceImpl implements UserService {
         savedEntity.setUser(user);
 
         userRepository.save(user);
+        principalCache.invalidateAfterCommit(user.getEmail());
         doctorRepository.save(savedEntity);
 
         String jwtToken = jwtService.generateToken(user);
@@ -104,6 +110,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public AuthenticationResponseDto registerGp(RegisterGpDto registerGpDto) {
         GeneralPractitionerDto gpToSave = new GeneralPractitionerDto();
         gpToSave.setDoctor(registerGpDto.getDoctor());
@@ -125,6 +132,7 @@ public class UserServiceImpl implements UserService {
         savedEntity.setUser(user);
 
         userRepository.save(user);
+        principalCache.invalidateAfterCommit(user.getEmail());
         gPRepository.save(savedEntity);
 
         String jwtToken = jwtService.generateToken(user);
@@ -136,6 +144,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
     public AuthenticationResponseDto registerPatient(RegisterPatientDto registerPatientDto) {
         PatientDto patientToSave = new PatientDto();
         patientToSave.setName(registerPatientDto.getName());
@@ -159,6 +168,7 @@ public class UserServiceImpl implements UserService {
         savedEntity.setUser(user);
 
         userRepository.save(user);
+        principalCache.invalidateAfterCommit(user.getEmail());
         patientRepository.save(savedEntity);
 
         String jwtToken = jwtService.generateToken(user);
@@ -0,0 +1,6 @@
+package com.nbu.medicalrecordf104458.utility;
+
+public enum AppointmentImportFormat {
+    NDJSON,
+    CSV
+}
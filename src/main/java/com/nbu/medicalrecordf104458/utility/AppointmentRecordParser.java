@@ -0,0 +1,82 @@
+package com.nbu.medicalrecordf104458.utility;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Turns a single line of an appointment import into an AppointmentDto.
+// CSV columns: visitDate,patientId,doctorId,diagnoseIds,treatmentIds,sickLeaveId - multiple ids are separated by ';'
+@RequiredArgsConstructor
+@Component
+public class AppointmentRecordParser {
+
+    public static final String CSV_HEADER = "visitDate,patientId,doctorId,diagnoseIds,treatmentIds,sickLeaveId";
+
+    private static final int CSV_COLUMNS = 6;
+
+    private final ObjectMapper objectMapper;
+
+    public AppointmentDto parse(String line, AppointmentImportFormat format) {
+        AppointmentDto dto = format == AppointmentImportFormat.CSV ? parseCsv(line) : parseJson(line);
+
+        // Ids are always generated, records can't overwrite existing appointments
+        dto.setId(null);
+
+        if (dto.getTreatments() == null) {
+            dto.setTreatments(new HashSet<>());
+        }
+
+        return dto;
+    }
+
+    private AppointmentDto parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, AppointmentDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON record: " + e.getOriginalMessage());
+        }
+    }
+
+    private AppointmentDto parseCsv(String line) {
+        String[] columns = line.split(",", -1);
+
+        if (columns.length != CSV_COLUMNS) {
+            throw new IllegalArgumentException("Expected " + CSV_COLUMNS + " columns (" + CSV_HEADER + ") but found " + columns.length + ".");
+        }
+
+        try {
+            AppointmentDto dto = new AppointmentDto();
+            dto.setVisitDate(columns[0].isBlank() ? null : LocalDate.parse(columns[0].trim()));
+            dto.setPatientId(parseId(columns[1]));
+            dto.setDoctorId(parseId(columns[2]));
+            dto.setDiagnoses(parseIds(columns[3]));
+            dto.setTreatments(parseIds(columns[4]));
+            dto.setSickLeaveId(parseId(columns[5]));
+
+            return dto;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed CSV record: " + e.getMessage());
+        }
+    }
+
+    private Long parseId(String column) {
+        return column.isBlank() ? null : Long.valueOf(column.trim());
+    }
+
+    private Set<Long> parseIds(String column) {
+        return Arrays.stream(column.split(";"))
+                .filter(id -> !id.isBlank())
+                .map(id -> Long.valueOf(id.trim()))
+                .collect(Collectors.toSet());
+    }
+
+}
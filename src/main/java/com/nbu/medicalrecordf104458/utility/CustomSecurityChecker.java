@@ -2,12 +2,10 @@ package com.nbu.medicalrecordf104458.utility;
 
 import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.DoctorSecurityException;
 import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.PatientSecurityException;
-import com.nbu.medicalrecordf104458.model.Doctor;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
-import com.nbu.medicalrecordf104458.model.Patient;
 import com.nbu.medicalrecordf104458.model.SickLeave;
+import com.nbu.medicalrecordf104458.model.user.AuthenticatedUser;
 import com.nbu.medicalrecordf104458.model.user.Role;
-import com.nbu.medicalrecordf104458.model.user.User;
 import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
 import com.nbu.medicalrecordf104458.repository.SickLeaveRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -22,15 +20,14 @@ public class CustomSecurityChecker {
     private final SickLeaveRepository sickLeaveRepository;
     private final DoctorAppointmentRepository appointmentRepository;
 
-    private User getCurrentUser() {
-        return (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    private AuthenticatedUser getCurrentUser() {
+        return (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
     }
 
     public boolean isPatientAccessingOwnData(Long patientId) {
-        User currentUser = getCurrentUser();
-        Patient userPatient = currentUser.getPatient();
+        AuthenticatedUser currentUser = getCurrentUser();
 
-        if (userPatient == null || !userPatient.getId().equals(patientId)) {
+        if (currentUser.getPatientId() == null || !currentUser.getPatientId().equals(patientId)) {
             throw new PatientSecurityException("Access denied: Current user does not have access to that page.");
         }
 
@@ -39,10 +36,9 @@ public class CustomSecurityChecker {
 
     // TODO: Check rest
     public boolean checkDoctorAccessForAppointmentCreation(Long appointmentDoctorId) {
-        User currentUser = getCurrentUser();
-        Doctor userDoctor = currentUser.getDoctor();
+        AuthenticatedUser currentUser = getCurrentUser();
 
-        if (userDoctor == null || !userDoctor.getId().equals(appointmentDoctorId)) {
+        if (currentUser.getDoctorId() == null || !currentUser.getDoctorId().equals(appointmentDoctorId)) {
             if (!currentUser.getRole().equals(Role.ADMIN)) {
                 throw new DoctorSecurityException("Access denied: Current user does not have access to that page.");
             }
@@ -51,12 +47,13 @@ public class CustomSecurityChecker {
         return true;
     }
 
+    // Runs in the transaction of the method it guards, so the method gets the appointment from the persistence context
     public boolean isDoctorAssociatedWithAppointment(Long appointmentId) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         DoctorAppointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new EntityNotFoundException("No appointment found with id: " + appointmentId));
 
-        if (currentUser.getDoctor() == null || !currentUser.getDoctor().getId().equals(appointment.getDoctor().getId())) {
+        if (currentUser.getDoctorId() == null || !currentUser.getDoctorId().equals(appointment.getDoctor().getId())) {
             if (!currentUser.getRole().equals(Role.ADMIN)) {
                 throw new DoctorSecurityException("Access denied: Current user does not have access to that page.");
             }
@@ -66,12 +63,11 @@ public class CustomSecurityChecker {
     }
 
     public boolean isDoctorAssociatedWithSickLeave(Long sickLeaveId) {
-        User currentUser = getCurrentUser();
-        Doctor userDoctor = currentUser.getDoctor();
+        AuthenticatedUser currentUser = getCurrentUser();
         SickLeave sickLeave = sickLeaveRepository.findById(sickLeaveId)
                 .orElseThrow(() -> new EntityNotFoundException("No sick leave found with id: " + sickLeaveId));
 
-        if (userDoctor == null || !userDoctor.getId().equals(sickLeave.getDoctorAppointment().getDoctor().getId())) {
+        if (currentUser.getDoctorId() == null || !currentUser.getDoctorId().equals(sickLeave.getDoctorAppointment().getDoctor().getId())) {
             if (!currentUser.getRole().equals(Role.ADMIN)) {
                 throw new DoctorSecurityException("Access denied: Current user does not have access to that page.");
             }
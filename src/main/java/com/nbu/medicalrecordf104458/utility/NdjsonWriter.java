@@ -0,0 +1,25 @@
+package com.nbu.medicalrecordf104458.utility;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+// Writes the lines of the newline-delimited JSON exports
+public class NdjsonWriter {
+
+    private NdjsonWriter() {
+        // Private constructor to prevent class instantiation
+    }
+
+    public static void writeLine(ObjectMapper objectMapper, OutputStream outputStream, Object value) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
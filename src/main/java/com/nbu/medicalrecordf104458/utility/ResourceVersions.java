@@ -0,0 +1,56 @@
+package com.nbu.medicalrecordf104458.utility;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Versions behind the ETags of the endpoints the front-ends poll - the diagnose, specialization and treatment catalogs
+// and a single patient. Each catalog has a change counter and each patient its @Version, both kept in memory.
+// A GET whose If-None-Match carries the current tag gets a 304 and the catalog or the patient isn't read at all.
+// ResourceVersionListener moves the versions on after every commit that changes a catalog or a patient
+@Component
+public class ResourceVersions {
+
+    public enum Catalog {
+        DIAGNOSES, SPECIALIZATIONS, TREATMENTS
+    }
+
+    private static final int MAX_PATIENTS = 10_000;
+
+    // The counters start over with the application, the start time keeps the tags of an earlier run from matching
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Catalog, AtomicLong> catalogVersions = new EnumMap<>(Catalog.class);
+    private final Cache<Long, Long> patientVersions = Caffeine.newBuilder()
+            .maximumSize(MAX_PATIENTS)
+            .build();
+
+    public ResourceVersions() {
+        for (Catalog catalog : Catalog.values()) {
+            catalogVersions.put(catalog, new AtomicLong());
+        }
+    }
+
+    public String getCatalogETag(Catalog catalog) {
+        return "\"" + catalog.name().toLowerCase() + "-" + epoch + "-" + catalogVersions.get(catalog).get() + "\"";
+    }
+
+    // The loader is only called on a miss, whatever it throws is passed on
+    public String getPatientETag(Long id, Function<Long, Long> versionLoader) {
+        return VersionValidator.toETag("patient", id, patientVersions.get(id, versionLoader));
+    }
+
+    public void catalogChanged(Catalog catalog) {
+        catalogVersions.get(catalog).incrementAndGet();
+    }
+
+    // Waits for a load of the same patient that is in progress, so an old version can't be cached after this
+    public void patientChanged(Long id) {
+        patientVersions.invalidate(id);
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.nbu.medicalrecordf104458.utility;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Runs the method again, in a new transaction, when another request committed a change to the same row first.
+// Only for methods that load everything they change and can't lose an edit by repeating, like adding or removing
+// a collection element. The random backoff keeps the requests that collided from colliding again
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Retryable(retryFor = OptimisticLockingFailureException.class, maxAttempts = 5,
+        backoff = @Backoff(delay = 10, multiplier = 2, random = true))
+public @interface RetryOnConflict {
+}
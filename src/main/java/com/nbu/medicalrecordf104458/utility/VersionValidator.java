@@ -0,0 +1,44 @@
+package com.nbu.medicalrecordf104458.utility;
+
+import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.StaleVersionException;
+
+// Strong ETags of single rows are "<type>-<id>-<version>", the version being the row's optimistic lock version
+public class VersionValidator {
+
+    private VersionValidator() {
+        // Private constructor to prevent class instantiation
+    }
+
+    public static String toETag(String type, Long id, Long version) {
+        return "\"" + type + "-" + id + "-" + version + "\"";
+    }
+
+    // The version an If-Match header asks for, null for "*". A tag of another row can never match
+    public static Long fromETag(String eTag, String type, Long id) {
+        String tag = eTag.trim();
+        String prefix = "\"" + type + "-" + id + "-";
+
+        if (tag.equals("*")) {
+            return null;
+        }
+
+        if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+            try {
+                return Long.valueOf(tag.substring(prefix.length(), tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Falls through to the mismatch below
+            }
+        }
+
+        throw new StaleVersionException("The " + type + " with id: " + id + " doesn't match " + tag);
+    }
+
+    // No expected version means the client didn't ask for the check
+    public static void validateVersion(String type, Long id, Long expectedVersion, Long currentVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new StaleVersionException("The " + type + " with id: " + id + " was changed since version "
+                    + expectedVersion + ", the current version is " + currentVersion);
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+-- Appointments of a doctor in a date range, and per-doctor appointment/sick leave counts
+create index idx_appointment_doctor_visit_date on appointment (doctor_id, visit_date, sick_leave_id);
+
+-- Appointments in a date range, keyset pagination and streaming ordered by (visit_date, id)
+create index idx_appointment_visit_date_id on appointment (visit_date, id);
+
+-- Visits of a patient
+create index idx_appointment_patient_visit_date on appointment (patient_id, visit_date);
+
+-- Patients by diagnose - the primary key only covers lookups by appointment_id
+create index idx_appointments_diagnoses_diagnose on appointments_diagnoses (diagnose_id, appointment_id);
+
+-- Patients of a GP and per-GP patient counts
+create index idx_patient_family_doctor_deleted on patient (family_doctor_id, for_deletion);
+
+-- Non-deleted doctors of a given type (GP listings)
+create index idx_doctor_type_deleted on doctor (doctor_type, for_deletion);
+
+-- Sick leaves started in a date range, grouped by month
+create index idx_sick_leave_start_date on sick_leave (start_date);
@@ -0,0 +1,2 @@
+-- Optimistic lock version of a patient, also the ETag of GET /patients/{id}
+alter table patient add column version bigint not null default 0;
@@ -0,0 +1,5 @@
+-- Optimistic lock versions of the aggregates that are edited concurrently
+alter table appointment add column version bigint not null default 0;
+alter table doctor add column version bigint not null default 0;
+alter table sick_leave add column version bigint not null default 0;
+alter table treatment add column version bigint not null default 0;
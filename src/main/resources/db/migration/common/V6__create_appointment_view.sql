@@ -0,0 +1,24 @@
+-- Denormalized read model of the appointments, one row per appointment with the doctor and patient names and the
+-- linked diagnose and treatment ids as comma separated lists. The appointment reads are answered from this table alone
+create table appointment_view (
+    appointment_id bigint not null,
+    version bigint not null,
+    visit_date date not null,
+    doctor_id bigint not null,
+    doctor_name varchar(255) not null,
+    patient_id bigint not null,
+    patient_name varchar(255) not null,
+    sick_leave_id bigint,
+    diagnose_ids varchar(4000) not null,
+    treatment_ids varchar(4000) not null,
+    primary key (appointment_id)
+);
+
+-- All appointments, keyset pagination, streaming and date ranges ordered by (visit_date, appointment_id)
+create index idx_appointment_view_visit_date_id on appointment_view (visit_date, appointment_id);
+
+-- Appointments of a doctor in a date range, and renaming a doctor
+create index idx_appointment_view_doctor_visit_date on appointment_view (doctor_id, visit_date);
+
+-- Visits of a patient, and renaming a patient
+create index idx_appointment_view_patient_visit_date on appointment_view (patient_id, visit_date);
@@ -0,0 +1,10 @@
+-- Pooled id allocation (pooled-lo, blocks of 50) so Hibernate can batch inserts
+
+create sequence appointment_seq start with 1 increment by 50;
+create sequence diagnose_seq start with 1 increment by 50;
+create sequence doctor_seq start with 1 increment by 50;
+create sequence patient_seq start with 1 increment by 50;
+create sequence sick_leave_seq start with 1 increment by 50;
+create sequence specialization_seq start with 1 increment by 50;
+create sequence treatment_seq start with 1 increment by 50;
+create sequence user_seq start with 1 increment by 50;
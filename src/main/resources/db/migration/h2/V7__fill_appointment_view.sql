@@ -0,0 +1,13 @@
+-- Rows for the appointments that have none yet. Fills the view of an existing database, the generator runs it again
+-- after a bulk load
+insert into appointment_view (appointment_id, version, visit_date, doctor_id, doctor_name, patient_id, patient_name,
+                              sick_leave_id, diagnose_ids, treatment_ids)
+select a.id, a.version, a.visit_date, d.id, d.name, p.id, p.name, a.sick_leave_id,
+       coalesce((select listagg(cast(ad.diagnose_id as varchar), ',') within group (order by ad.diagnose_id)
+                 from appointments_diagnoses ad where ad.appointment_id = a.id), ''),
+       coalesce((select listagg(cast(at.treatment_id as varchar), ',') within group (order by at.treatment_id)
+                 from appointments_treatments at where at.appointment_id = a.id), '')
+from appointment a
+join doctor d on d.id = a.doctor_id
+join patient p on p.id = a.patient_id
+where not exists (select 1 from appointment_view v where v.appointment_id = a.id);
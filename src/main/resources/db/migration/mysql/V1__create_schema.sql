@@ -0,0 +1,36 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update)
+
+create table appointment (visit_date date not null, doctor_id bigint not null, id bigint not null auto_increment, patient_id bigint not null, sick_leave_id bigint, primary key (id)) engine=InnoDB;
+create table appointments_diagnoses (appointment_id bigint not null, diagnose_id bigint not null, primary key (appointment_id, diagnose_id)) engine=InnoDB;
+create table appointments_treatments (appointment_id bigint not null, treatment_id bigint not null, primary key (appointment_id, treatment_id)) engine=InnoDB;
+create table diagnose (for_deletion bit not null, id bigint not null auto_increment, description varchar(500) not null, name varchar(255) not null, primary key (id)) engine=InnoDB;
+create table doctor (for_deletion bit not null, id bigint not null auto_increment, user_id bigint, doctor_type varchar(31) not null, name varchar(255) not null, primary key (id)) engine=InnoDB;
+create table doctor_specialization (doctor_id bigint not null, specialization_id bigint not null, primary key (doctor_id, specialization_id)) engine=InnoDB;
+create table patient (for_deletion bit not null, last_insurance_payment_date date not null, family_doctor_id bigint not null, id bigint not null auto_increment, unified_civil_number bigint not null, user_id bigint, name varchar(255) not null, primary key (id)) engine=InnoDB;
+create table sick_leave (end_date date not null, start_date date not null, id bigint not null auto_increment, primary key (id)) engine=InnoDB;
+create table specialization (for_deletion bit not null, id bigint not null auto_increment, name varchar(255) not null, primary key (id)) engine=InnoDB;
+create table treatment (id bigint not null auto_increment, dosage_amount varchar(255) not null, frequency varchar(255) not null, medicine_name varchar(255) not null, primary key (id)) engine=InnoDB;
+create table `user` (doctor_id bigint, id bigint not null auto_increment, patient_id bigint, email varchar(255) not null, password varchar(255) not null, role enum ('ADMIN','DOCTOR','PATIENT') not null, primary key (id)) engine=InnoDB;
+alter table appointment add constraint UK5trl0eystony5h8wgsuqwubu5 unique (sick_leave_id);
+alter table diagnose add constraint UKc4et7xb94ieje85ddofw1w40q unique (name);
+alter table doctor add constraint UK3q0j5r6i4e9k3afhypo6uljph unique (user_id);
+alter table patient add constraint UKhmp3k9f39snbvbwxyjxfx4tb0 unique (unified_civil_number);
+alter table patient add constraint UK6i3fp8wcdxk473941mbcvdao4 unique (user_id);
+alter table specialization add constraint UKe17ai04xje55nwnjss2st2fyh unique (name);
+alter table `user` add constraint UK7f6nia8wayx7mwm1sbysa3aft unique (doctor_id);
+alter table `user` add constraint UKoka80rs01yejjq7w8xurjfvtv unique (patient_id);
+alter table `user` add constraint UKhl4ga9r00rh51mdaf20hmnslt unique (email);
+alter table appointment add constraint FKoeb98n82eph1dx43v3y2bcmsl foreign key (doctor_id) references doctor (id);
+alter table appointment add constraint FK4apif2ewfyf14077ichee8g06 foreign key (patient_id) references patient (id);
+alter table appointment add constraint FKa7fg4sol1xvnymcdcnio40cs1 foreign key (sick_leave_id) references sick_leave (id);
+alter table appointments_diagnoses add constraint FK3ba21i5l5vip52hvmgqnxo016 foreign key (diagnose_id) references diagnose (id);
+alter table appointments_diagnoses add constraint FKod0l1i45wy55502hct1ycoiyr foreign key (appointment_id) references appointment (id);
+alter table appointments_treatments add constraint FK4tpoembeglf0u168aua0j1g2g foreign key (appointment_id) references appointment (id);
+alter table appointments_treatments add constraint FK5wjwv62fe3brnbf6uj3oeifte foreign key (treatment_id) references treatment (id);
+alter table doctor add constraint FKjkm8xu1v0k7v5s6yt33qvh13 foreign key (user_id) references `user` (id);
+alter table doctor_specialization add constraint FKkt8fjj1tbt7snouufvt3pp2ws foreign key (doctor_id) references doctor (id);
+alter table doctor_specialization add constraint FK6jp5bem76u8ep90von0a1va0a foreign key (specialization_id) references specialization (id);
+alter table patient add constraint FKl1monha4yrj1n6y8i0fv3l1r5 foreign key (family_doctor_id) references doctor (id);
+alter table patient add constraint FK41p7px5kqy36810n2ar371bw9 foreign key (user_id) references `user` (id);
+alter table `user` add constraint FKfley7fver0di2js6d9eiii2rt foreign key (doctor_id) references doctor (id);
+alter table `user` add constraint FKor5oa50e8qwe832gf979jjlwl foreign key (patient_id) references patient (id);
@@ -0,0 +1,26 @@
+-- MySQL has no sequences, Hibernate keeps each one in a single-row table instead.
+-- Every table continues after its current highest id (pooled-lo, blocks of 50).
+
+create table appointment_seq (next_val bigint) engine=InnoDB;
+insert into appointment_seq select coalesce(max(id), 0) + 1 from appointment;
+
+create table diagnose_seq (next_val bigint) engine=InnoDB;
+insert into diagnose_seq select coalesce(max(id), 0) + 1 from diagnose;
+
+create table doctor_seq (next_val bigint) engine=InnoDB;
+insert into doctor_seq select coalesce(max(id), 0) + 1 from doctor;
+
+create table patient_seq (next_val bigint) engine=InnoDB;
+insert into patient_seq select coalesce(max(id), 0) + 1 from patient;
+
+create table sick_leave_seq (next_val bigint) engine=InnoDB;
+insert into sick_leave_seq select coalesce(max(id), 0) + 1 from sick_leave;
+
+create table specialization_seq (next_val bigint) engine=InnoDB;
+insert into specialization_seq select coalesce(max(id), 0) + 1 from specialization;
+
+create table treatment_seq (next_val bigint) engine=InnoDB;
+insert into treatment_seq select coalesce(max(id), 0) + 1 from treatment;
+
+create table user_seq (next_val bigint) engine=InnoDB;
+insert into user_seq select coalesce(max(id), 0) + 1 from `user`;
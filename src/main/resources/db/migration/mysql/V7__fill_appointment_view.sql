@@ -0,0 +1,15 @@
+-- Rows for the appointments that have none yet. Fills the view of an existing database, the generator runs it again
+-- after a bulk load. The default group_concat limit of 1024 would cut the longer id lists short
+set session group_concat_max_len = 4000;
+
+insert into appointment_view (appointment_id, version, visit_date, doctor_id, doctor_name, patient_id, patient_name,
+                              sick_leave_id, diagnose_ids, treatment_ids)
+select a.id, a.version, a.visit_date, d.id, d.name, p.id, p.name, a.sick_leave_id,
+       coalesce((select group_concat(ad.diagnose_id order by ad.diagnose_id separator ',')
+                 from appointments_diagnoses ad where ad.appointment_id = a.id), ''),
+       coalesce((select group_concat(at.treatment_id order by at.treatment_id separator ',')
+                 from appointments_treatments at where at.appointment_id = a.id), '')
+from appointment a
+join doctor d on d.id = a.doctor_id
+join patient p on p.id = a.patient_id
+where not exists (select 1 from appointment_view v where v.appointment_id = a.id);
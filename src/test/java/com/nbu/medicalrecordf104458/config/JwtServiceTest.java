@@ -0,0 +1,96 @@
+package com.nbu.medicalrecordf104458.config;
+
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.user.AuthenticatedUser;
+import com.nbu.medicalrecordf104458.model.user.Role;
+import com.nbu.medicalrecordf104458.model.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JwtServiceTest {
+
+    private JwtService jwtService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        user = User.builder()
+                .email("doctor@mail.com")
+                .password("password")
+                .role(Role.DOCTOR)
+                .build();
+    }
+
+    @Test
+    void jwtService_validateToken_returnsClaims() {
+        String token = jwtService.generateToken(user);
+
+        Claims claims = jwtService.validateToken(token);
+
+        assertEquals("doctor@mail.com", claims.getSubject());
+        assertNotNull(claims.getIssuedAt());
+        assertTrue(jwtService.isTokenValid(claims, user));
+        assertTrue(jwtService.isTokenValid(token, user));
+    }
+
+    @Test
+    void jwtService_extractAuthenticatedUser_readsIdentityClaims() {
+        Doctor doctor = new Doctor();
+        doctor.setId(3L);
+        user.setDoctor(doctor);
+
+        AuthenticatedUser authenticatedUser = jwtService.extractAuthenticatedUser(
+                jwtService.validateToken(jwtService.generateToken(user)));
+
+        assertEquals("doctor@mail.com", authenticatedUser.getUsername());
+        assertEquals(Role.DOCTOR, authenticatedUser.getRole());
+        assertEquals(3L, authenticatedUser.getDoctorId());
+        assertNull(authenticatedUser.getPatientId());
+    }
+
+    @Test
+    void jwtService_extractAuthenticatedUser_returnsNullWithoutIdentityClaims() {
+        String token = jwtService.generateToken(new HashMap<>(), user);
+
+        assertNull(jwtService.extractAuthenticatedUser(jwtService.validateToken(token)));
+    }
+
+    @Test
+    void jwtService_isTokenValid_returnsFalseForOtherUser() {
+        User otherUser = User.builder()
+                .email("patient@mail.com")
+                .password("password")
+                .role(Role.PATIENT)
+                .build();
+
+        Claims claims = jwtService.validateToken(jwtService.generateToken(user));
+
+        assertFalse(jwtService.isTokenValid(claims, otherUser));
+    }
+
+    @Test
+    void jwtService_validateToken_throwsSignatureExceptionForTamperedToken() {
+        String token = jwtService.generateToken(user);
+        String[] parts = token.split("\\.");
+        String tamperedToken = parts[0] + "." + jwtService.generateToken(User.builder()
+                .email("admin@mail.com")
+                .password("password")
+                .role(Role.ADMIN)
+                .build()).split("\\.")[1] + "." + parts[2];
+
+        assertThrows(SignatureException.class, () -> jwtService.validateToken(tamperedToken));
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.nbu.medicalrecordf104458.config;
+
+import com.nbu.medicalrecordf104458.model.user.Role;
+import com.nbu.medicalrecordf104458.model.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PrincipalCacheTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-31T10:00:00Z");
+    private static final Date ISSUED_AT = Date.from(NOW);
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, UserDetails> loader = email -> {
+        loads.incrementAndGet();
+        return User.builder().email(email).password("password").role(Role.PATIENT).build();
+    };
+
+    // Caffeine reads the time through the ticker, the tests move it on by hand
+    private final AtomicLong nanos = new AtomicLong();
+    private PrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PrincipalCache(nanos::get, Runnable::run, 2, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void principalCache_get_loadsOncePerToken() {
+        UserDetails first = cache.get("pacient@mail.com", ISSUED_AT, loader);
+        UserDetails second = cache.get("pacient@mail.com", ISSUED_AT, loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void principalCache_get_loadsAgainForNewToken() {
+        cache.get("pacient@mail.com", ISSUED_AT, loader);
+        cache.get("pacient@mail.com", Date.from(NOW.plusSeconds(60)), loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void principalCache_get_loadsAgainAfterTimeToLive() {
+        cache.get("pacient@mail.com", ISSUED_AT, loader);
+        nanos.addAndGet(Duration.ofMinutes(4).toNanos());
+        cache.get("pacient@mail.com", ISSUED_AT, loader);
+
+        assertEquals(1, loads.get());
+
+        nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+        cache.get("pacient@mail.com", ISSUED_AT, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void principalCache_get_evictsOverMaximumSize() {
+        cache.get("first@mail.com", ISSUED_AT, loader);
+        cache.get("second@mail.com", ISSUED_AT, loader);
+        cache.get("third@mail.com", ISSUED_AT, loader);
+
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void principalCache_invalidate_removesEveryTokenOfTheUser() {
+        cache.get("pacient@mail.com", ISSUED_AT, loader);
+        cache.get("pacient@mail.com", Date.from(NOW.plusSeconds(60)), loader);
+
+        cache.invalidate("pacient@mail.com");
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void principalCache_invalidateAfterCommit_keepsEntryUntilCommit() {
+        cache.get("pacient@mail.com", ISSUED_AT, loader);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidateAfterCommit("pacient@mail.com");
+            assertEquals(1, cache.size());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void principalCache_bindTo_publishesCaffeineMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get("pacient@mail.com", ISSUED_AT, loader);
+        cache.get("pacient@mail.com", ISSUED_AT, loader);
+        cache.get("pacient@mail.com", ISSUED_AT, loader);
+
+        assertEquals(2, registry.get("cache.gets").tags("cache", "principals", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "principals", "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").tags("cache", "principals").gauge().value());
+        assertEquals(0, registry.get("cache.evictions").tags("cache", "principals").functionCounter().count());
+    }
+
+    @Test
+    void principalCache_get_doesNotCacheMissingUsers() {
+        Function<String, UserDetails> failingLoader = email -> {
+            throw new UsernameNotFoundException("User not found.");
+        };
+
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("missing@mail.com", ISSUED_AT, failingLoader));
+        assertEquals(0, cache.size());
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.nbu.medicalrecordf104458.config;
+
+import com.nbu.medicalrecordf104458.dto.DiagnoseDto;
+import com.nbu.medicalrecordf104458.mapper.DiagnoseMapper;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.repository.DiagnoseRepository;
+import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
+import com.nbu.medicalrecordf104458.service.DiagnoseService;
+import com.nbu.medicalrecordf104458.service.implementation.DiagnoseServiceImpl;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ServiceMetricsAspectTest {
+
+    @Mock
+    private DiagnoseRepository diagnoseRepository;
+
+    @Mock
+    private DoctorAppointmentRepository appointmentRepository;
+
+    @Mock
+    private DiagnoseMapper diagnoseMapper;
+
+    @Mock
+    private AppointmentViewService viewService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DiagnoseService diagnoseService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(
+                new DiagnoseServiceImpl(diagnoseRepository, appointmentRepository, diagnoseMapper, new ResourceVersions(),
+                        viewService));
+        proxyFactory.addAspect(new ServiceMetricsAspect(meterRegistry));
+        diagnoseService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void serviceMetricsAspect_timesCallByEntityAndOperation() {
+        Diagnose diagnose = new Diagnose();
+        diagnose.setId(1L);
+
+        when(diagnoseRepository.findById(1L)).thenReturn(Optional.of(diagnose));
+        when(diagnoseMapper.convertToDto(diagnose)).thenReturn(new DiagnoseDto());
+
+        diagnoseService.getDiagnoseById(1L);
+        diagnoseService.getDiagnoseById(1L);
+
+        Timer timer = meterRegistry.find(ServiceMetricsAspect.METRIC_NAME)
+                .tags("entity", "Diagnose", "operation", "getDiagnoseById", "exception", "None")
+                .timer();
+
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    void serviceMetricsAspect_tagsThrownException() {
+        when(diagnoseRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> diagnoseService.getDiagnoseById(1L));
+
+        assertNotNull(meterRegistry.find(ServiceMetricsAspect.METRIC_NAME)
+                .tags("operation", "getDiagnoseById", "exception", "EntityNotFoundException")
+                .timer());
+        assertNull(meterRegistry.find(ServiceMetricsAspect.METRIC_NAME)
+                .tags("exception", "None")
+                .timer());
+    }
+
+}
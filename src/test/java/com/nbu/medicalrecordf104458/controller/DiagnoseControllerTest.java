@@ -23,12 +23,15 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -76,6 +79,28 @@ public class DiagnoseControllerTest {
                 .andExpect(jsonPath("[0].name", is("Flu")));
     }
 
+    @Test
+    public void testGetAllDiagnoses_returnsETag() throws Exception {
+        when(diagnoseService.getDiagnosesETag()).thenReturn("\"diagnoses-abc-3\"");
+        when(diagnoseService.getAllDiagnoses()).thenReturn(Set.of(fluDto));
+
+        mockMvc.perform(get("/diagnoses/"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"diagnoses-abc-3\""));
+    }
+
+    @Test
+    public void testGetAllDiagnoses_returnsNotModifiedForCurrentETag() throws Exception {
+        when(diagnoseService.getDiagnosesETag()).thenReturn("\"diagnoses-abc-3\"");
+
+        mockMvc.perform(get("/diagnoses/").header("If-None-Match", "\"diagnoses-abc-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"diagnoses-abc-3\""))
+                .andExpect(content().string(""));
+
+        verify(diagnoseService, never()).getAllDiagnoses();
+    }
+
     @Test
     public void testGetDiagnoseById() throws Exception {
         when(diagnoseService.getDiagnoseById(1L)).thenReturn(fluDto);
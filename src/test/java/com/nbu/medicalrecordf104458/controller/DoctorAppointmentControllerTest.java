@@ -3,6 +3,9 @@ package com.nbu.medicalrecordf104458.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nbu.medicalrecordf104458.config.JwtAuthFilter;
 import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentImportErrorDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentImportResultDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentPageDto;
 import com.nbu.medicalrecordf104458.model.Diagnose;
 import com.nbu.medicalrecordf104458.model.Doctor;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
@@ -11,7 +14,11 @@ import com.nbu.medicalrecordf104458.model.Patient;
 import com.nbu.medicalrecordf104458.model.SickLeave;
 import com.nbu.medicalrecordf104458.model.Specialization;
 import com.nbu.medicalrecordf104458.model.Treatment;
+import com.nbu.medicalrecordf104458.service.AppointmentImportService;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
 import com.nbu.medicalrecordf104458.service.DoctorAppointmentService;
+import com.nbu.medicalrecordf104458.utility.AppointmentImportFormat;
+import com.nbu.medicalrecordf104458.utility.AppointmentRecordParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,19 +30,26 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.BufferedReader;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = DoctorAppointmentController.class)
@@ -53,6 +67,12 @@ public class DoctorAppointmentControllerTest {
     @MockBean
     private DoctorAppointmentService appointmentService;
 
+    @MockBean
+    private AppointmentImportService importService;
+
+    @MockBean
+    private AppointmentViewService viewService;
+
     private Doctor doctor;
     private AppointmentDto appointmentDto;
     private Diagnose diagnose;
@@ -144,6 +164,94 @@ public class DoctorAppointmentControllerTest {
 
     }
 
+    @Test
+    void testGetAppointmentsPage() throws Exception {
+        AppointmentPageDto page = new AppointmentPageDto(List.of(appointmentDto), appointmentDto.getVisitDate(), appointmentDto.getId());
+        when(appointmentService.getAppointmentsPage(LocalDate.of(2025, 1, 1), 5L, 1)).thenReturn(page);
+
+        mockMvc.perform(get("/doctor-appointments/page")
+                        .param("afterVisitDate", "2025-01-01")
+                        .param("afterId", "5")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointments.length()").value(1))
+                .andExpect(jsonPath("$.appointments[0].id").value(appointmentDto.getId()))
+                .andExpect(jsonPath("$.nextVisitDate").value(appointmentDto.getVisitDate().toString()))
+                .andExpect(jsonPath("$.nextId").value(appointmentDto.getId()));
+    }
+
+    @Test
+    void testGetAppointmentsPage_usesDefaultsForFirstPage() throws Exception {
+        when(appointmentService.getAppointmentsPage(null, null, 50)).thenReturn(new AppointmentPageDto());
+
+        mockMvc.perform(get("/doctor-appointments/page"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointments.length()").value(0))
+                .andExpect(jsonPath("$.nextId").doesNotExist());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamAllAppointments() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<AppointmentDto> consumer = invocation.getArgument(0);
+            consumer.accept(appointmentDto);
+            consumer.accept(appointmentDto);
+            return null;
+        }).when(appointmentService).streamAllAppointments(any(Consumer.class));
+
+        var result = mockMvc.perform(get("/doctor-appointments/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String line = objectMapper.writeValueAsString(appointmentDto);
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(line + "\n" + line + "\n"));
+    }
+
+    @Test
+    void testImportAppointmentsFromNdjson() throws Exception {
+        AppointmentImportResultDto importResult = new AppointmentImportResultDto(1,
+                List.of(new AppointmentImportErrorDto(2, "No Doctor found with id: 99")));
+
+        when(importService.importAppointments(any(BufferedReader.class), eq(AppointmentImportFormat.NDJSON), eq(100)))
+                .thenReturn(importResult);
+
+        mockMvc.perform(post("/doctor-appointments/import")
+                        .param("chunkSize", "100")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(objectMapper.writeValueAsString(appointmentDto) + "\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedCount").value(1))
+                .andExpect(jsonPath("$.errors[0].lineNumber").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("No Doctor found with id: 99"));
+    }
+
+    @Test
+    void testImportAppointmentsFromCsv() throws Exception {
+        when(importService.importAppointments(any(BufferedReader.class), eq(AppointmentImportFormat.CSV), eq(1000)))
+                .thenReturn(new AppointmentImportResultDto(1, List.of()));
+
+        mockMvc.perform(post("/doctor-appointments/import")
+                        .contentType("text/csv")
+                        .content(AppointmentRecordParser.CSV_HEADER + "\n2025-01-31,1,1,1,,\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedCount").value(1))
+                .andExpect(jsonPath("$.errors").isEmpty());
+    }
+
+    @Test
+    void testRebuildAppointmentView() throws Exception {
+        when(viewService.rebuildAppointmentView()).thenReturn(42L);
+
+        mockMvc.perform(post("/doctor-appointments/view/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("42"));
+    }
+
     @Test
     void testGetAppointmentById() throws Exception {
         when(appointmentService.getAppointmentById(1L)).thenReturn(appointmentDto);
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nbu.medicalrecordf104458.config.JwtAuthFilter;
 import com.nbu.medicalrecordf104458.dto.DoctorDto;
 import com.nbu.medicalrecordf104458.dto.queries.DoctorAppointmentsCountDto;
+import com.nbu.medicalrecordf104458.dto.queries.DoctorSickLeavesCountDto;
 import com.nbu.medicalrecordf104458.service.DoctorService;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -53,7 +54,7 @@ public class DoctorControllerTest {
 
     @BeforeEach
     public void setUp() {
-        doctorDto = new DoctorDto(1L, "Dr. Doctorov", Set.of(1L));
+        doctorDto = new DoctorDto(1L, "Dr. Doctorov", Set.of(1L), null);
         doctorAppointmentsCountDto = new DoctorAppointmentsCountDto(1L, "Dr. Doctorov", 10L);
         mockDoctors = Set.of(doctorDto);
     }
@@ -90,7 +91,7 @@ public class DoctorControllerTest {
 
     @Test
     public void testCreateDoctor() throws Exception {
-        DoctorDto createdDto = new DoctorDto(1L, "Dr. New", Set.of(1L));
+        DoctorDto createdDto = new DoctorDto(1L, "Dr. New", Set.of(1L), null);
 
         when(doctorService.createDoctor(any(DoctorDto.class))).thenReturn(createdDto);
 
@@ -104,7 +105,7 @@ public class DoctorControllerTest {
 
     @Test
     public void testUpdateDoctor() throws Exception {
-        DoctorDto updatedDto = new DoctorDto(1L, "Dr. Updated", Set.of(1L));
+        DoctorDto updatedDto = new DoctorDto(1L, "Dr. Updated", Set.of(1L), null);
 
         when(doctorService.updateDoctor(eq(1L), any(DoctorDto.class))).thenReturn(updatedDto);
 
@@ -150,13 +151,14 @@ public class DoctorControllerTest {
 
     @Test
     public void testGetDoctorsWithMostSickLeaves() throws Exception {
-        when(doctorService.findDoctorsWithMostSickLeaves()).thenReturn(mockDoctors);
+        when(doctorService.findDoctorsWithMostSickLeaves()).thenReturn(Set.of(new DoctorSickLeavesCountDto(1L, "Dr. Doctorov", 3L)));
 
         mockMvc.perform(get("/doctors/doctors-with-most-sick-leaves"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("[0].id", is(1)))
-                .andExpect(jsonPath("[0].name", is("Dr. Doctorov")));
+                .andExpect(jsonPath("[0].doctorId", is(1)))
+                .andExpect(jsonPath("[0].doctorName", is("Dr. Doctorov")))
+                .andExpect(jsonPath("[0].sickLeavesCount", is(3)));
     }
 
     @Test
@@ -50,7 +50,7 @@ public class GeneralPractitionerControllerTest {
     @BeforeEach
     public void setup() {
         gpDto = new GeneralPractitionerDto();
-        gpDto.setDoctor(new DoctorDto(1L, "Dr. Doctorov", Set.of(1L)));
+        gpDto.setDoctor(new DoctorDto(1L, "Dr. Doctorov", Set.of(1L), null));
     }
 
     @Test
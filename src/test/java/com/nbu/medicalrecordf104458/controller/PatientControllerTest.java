@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nbu.medicalrecordf104458.config.JwtAuthFilter;
 import com.nbu.medicalrecordf104458.dto.AppointmentDto;
 import com.nbu.medicalrecordf104458.dto.PatientDto;
+import com.nbu.medicalrecordf104458.dto.history.HistoryDiagnoseDto;
+import com.nbu.medicalrecordf104458.dto.history.PatientHistoryEntryDto;
 import com.nbu.medicalrecordf104458.service.PatientService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,17 +19,28 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = PatientController.class)
@@ -50,7 +63,7 @@ public class PatientControllerTest {
     @BeforeEach
     public void setup() {
         patientDto = new PatientDto(1L, "Patient", 123456789L,
-                LocalDate.parse("2025-01-01"), 1L);
+                LocalDate.parse("2025-01-01"), 1L, null);
     }
 
     @Test
@@ -76,6 +89,32 @@ public class PatientControllerTest {
                 .andExpect(jsonPath("$.id").value(patientId));
     }
 
+    @Test
+    public void testGetPatientById_returnsNotModifiedForCurrentETag() throws Exception {
+        Long patientId = 1L;
+
+        when(patientService.getPatientETag(patientId)).thenReturn("\"patient-1-4\"");
+
+        mockMvc.perform(get("/patients/{id}", patientId).header("If-None-Match", "\"patient-1-4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(patientService, never()).getPatientById(patientId);
+    }
+
+    @Test
+    public void testGetPatientById_returnsPatientForOutdatedETag() throws Exception {
+        Long patientId = 1L;
+
+        when(patientService.getPatientETag(patientId)).thenReturn("\"patient-1-5\"");
+        when(patientService.getPatientById(patientId)).thenReturn(patientDto);
+
+        mockMvc.perform(get("/patients/{id}", patientId).header("If-None-Match", "\"patient-1-4\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"patient-1-5\""))
+                .andExpect(jsonPath("$.id").value(patientId));
+    }
+
     @Test
     public void testCreatePatient() throws Exception {
         when(patientService.createPatient(any(PatientDto.class))).thenReturn(patientDto);
@@ -100,6 +139,35 @@ public class PatientControllerTest {
                 .andExpect(jsonPath("$.id").value(patientId));
     }
 
+    @Test
+    public void testUpdatePatient_passesIfMatchVersionAndReturnsNewETag() throws Exception {
+        Long patientId = 1L;
+        PatientDto updatedDto = new PatientDto(1L, "Patient", 123456789L,
+                LocalDate.parse("2025-01-01"), 1L, 5L);
+
+        when(patientService.updatePatient(eq(patientId), argThat(dto -> Long.valueOf(4L).equals(dto.getVersion()))))
+                .thenReturn(updatedDto);
+
+        mockMvc.perform(put("/patients/{id}", patientId)
+                        .header("If-Match", "\"patient-1-4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patientDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"patient-1-5\""))
+                .andExpect(jsonPath("$.version").value(5L));
+    }
+
+    @Test
+    public void testUpdatePatient_returnsPreconditionFailedForAnotherPatientsETag() throws Exception {
+        mockMvc.perform(put("/patients/{id}", 1L)
+                        .header("If-Match", "\"patient-2-4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patientDto)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(patientService, never()).updatePatient(any(), any());
+    }
+
     @Test
     public void testDeletePatient() throws Exception {
         Long patientId = 1L;
@@ -161,4 +229,30 @@ public class PatientControllerTest {
                 .andExpect(jsonPath("$[0]").exists());
     }
 
+    @Test
+    public void testExportPatientHistory() throws Exception {
+        Long patientId = 1L;
+        PatientHistoryEntryDto first = new PatientHistoryEntryDto(1L, LocalDate.parse("2025-01-31"), 1L, "Dr. Doctorov",
+                List.of(new HistoryDiagnoseDto(1L, "Flu", "A contagious respiratory illness.")), new ArrayList<>(), null);
+        PatientHistoryEntryDto second = new PatientHistoryEntryDto(2L, LocalDate.parse("2025-02-10"), 1L, "Dr. Doctorov",
+                new ArrayList<>(), new ArrayList<>(), null);
+
+        doAnswer(invocation -> {
+            Consumer<PatientHistoryEntryDto> consumer = invocation.getArgument(1);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(patientService).streamVisitHistory(eq(patientId), any());
+
+        var result = mockMvc.perform(get("/patients/{id}/history/export", patientId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(first) + "\n"
+                        + objectMapper.writeValueAsString(second) + "\n"));
+    }
+
 }
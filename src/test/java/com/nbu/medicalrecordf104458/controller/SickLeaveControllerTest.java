@@ -3,6 +3,7 @@ package com.nbu.medicalrecordf104458.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nbu.medicalrecordf104458.config.JwtAuthFilter;
 import com.nbu.medicalrecordf104458.dto.SickLeaveDto;
+import com.nbu.medicalrecordf104458.dto.queries.SickLeaveMonthCountDto;
 import com.nbu.medicalrecordf104458.service.SickLeaveService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -49,7 +51,7 @@ public class SickLeaveControllerTest {
     @BeforeEach
     public void setup() {
         sickLeaveDto = new SickLeaveDto(1L, LocalDate.parse("2025-01-01"),
-                LocalDate.parse("2025-01-10"), 123L);
+                LocalDate.parse("2025-01-10"), 123L, null);
     }
 
     @Test
@@ -117,4 +119,22 @@ public class SickLeaveControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").value(mostCommonMonth));
     }
+
+    @Test
+    public void testGetMonthlySickLeavesHistogram() throws Exception {
+        LocalDate startDate = LocalDate.parse("2025-01-01");
+        LocalDate endDate = LocalDate.parse("2025-03-31");
+
+        when(sickLeaveService.getMonthlySickLeavesHistogram(startDate, endDate)).thenReturn(List.of(
+                new SickLeaveMonthCountDto(2025, 1, 3L),
+                new SickLeaveMonthCountDto(2025, 3, 1L)));
+
+        mockMvc.perform(get("/sick-leaves/monthly-histogram/{startDate}/{endDate}", startDate, endDate))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].year").value(2025))
+                .andExpect(jsonPath("$[0].month").value(1))
+                .andExpect(jsonPath("$[0].sickLeavesCount").value(3))
+                .andExpect(jsonPath("$[1].month").value(3));
+    }
 }
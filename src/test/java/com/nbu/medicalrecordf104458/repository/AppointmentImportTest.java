@@ -0,0 +1,184 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.dto.AppointmentImportErrorDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentImportResultDto;
+import com.nbu.medicalrecordf104458.mapper.DoctorAppointmentMapper;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.SickLeave;
+import com.nbu.medicalrecordf104458.model.Specialization;
+import com.nbu.medicalrecordf104458.model.Treatment;
+import com.nbu.medicalrecordf104458.service.implementation.AppointmentImportServiceImpl;
+import com.nbu.medicalrecordf104458.service.implementation.AppointmentViewServiceImpl;
+import com.nbu.medicalrecordf104458.utility.AppointmentImportFormat;
+import com.nbu.medicalrecordf104458.utility.AppointmentRecordParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the bulk import against the migrated schema - chunks are flushed and cleared,
+// so every check below reads back what actually reached the database
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({AppointmentImportServiceImpl.class, AppointmentRecordParser.class, AppointmentViewServiceImpl.class,
+        DoctorAppointmentMapper.class})
+public class AppointmentImportTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private DoctorAppointmentRepository appointmentRepository;
+    @Autowired
+    private AppointmentImportServiceImpl importService;
+
+    private Doctor doctor;
+    private Patient patient;
+    private Diagnose diagnose;
+    private Treatment treatment;
+    private SickLeave sickLeave;
+    private DoctorAppointment existingAppointment;
+
+    @BeforeEach
+    public void setUp() {
+        Specialization specialization = new Specialization();
+        specialization.setName("Cardiology");
+        entityManager.persist(specialization);
+
+        doctor = new Doctor();
+        doctor.setName("Dr. Doctor Doctorov");
+        doctor.setSpecializations(new HashSet<>(Set.of(specialization)));
+        entityManager.persist(doctor);
+
+        GeneralPractitioner gp = new GeneralPractitioner();
+        gp.setName("Dr. Lichen Lekar");
+        gp.setSpecializations(new HashSet<>(Set.of(specialization)));
+        entityManager.persist(gp);
+
+        patient = new Patient();
+        patient.setName("Pacient Pacientov");
+        patient.setFamilyDoctor(gp);
+        patient.setLastInsurancePayment(LocalDate.of(2025, 1, 31));
+        patient.setUnifiedCivilNumber(1234L);
+        entityManager.persist(patient);
+
+        diagnose = new Diagnose();
+        diagnose.setName("Flu");
+        diagnose.setDescription("A contagious respiratory illness caused by influenza viruses.");
+        entityManager.persist(diagnose);
+
+        treatment = new Treatment();
+        treatment.setMedicineName("Paracetamol");
+        treatment.setDosageAmount("500mg");
+        treatment.setFrequency("Twice a day");
+        entityManager.persist(treatment);
+
+        existingAppointment = new DoctorAppointment();
+        existingAppointment.setVisitDate(LocalDate.of(2025, 1, 1));
+        existingAppointment.setDoctor(doctor);
+        existingAppointment.setPatient(patient);
+        existingAppointment.setDiagnoses(new HashSet<>(Set.of(diagnose)));
+        entityManager.persist(existingAppointment);
+
+        // Not linked from the appointment side, so it is still free to be used by an imported appointment
+        sickLeave = new SickLeave();
+        sickLeave.setStartDate(LocalDate.of(2025, 2, 1));
+        sickLeave.setEndDate(LocalDate.of(2025, 2, 10));
+        sickLeave.setDoctorAppointment(existingAppointment);
+        entityManager.persist(sickLeave);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void importService_importAppointments_persistsNdjsonInChunks() {
+        String record = "{\"visitDate\":\"2025-01-31\",\"patientId\":" + patient.getId() +
+                ",\"doctorId\":" + doctor.getId() + ",\"diagnoses\":[" + diagnose.getId() + "]}\n";
+        String ndjson = record.repeat(3) + "{broken\n" + record.repeat(2);
+
+        AppointmentImportResultDto result = importService.importAppointments(
+                new BufferedReader(new StringReader(ndjson)), AppointmentImportFormat.NDJSON, 2);
+
+        assertThat(result.getImportedCount()).isEqualTo(5);
+        assertThat(result.getErrors()).singleElement()
+                .satisfies(error -> assertThat(error.getLineNumber()).isEqualTo(4));
+        assertThat(importedAppointments()).hasSize(5);
+        assertThat(appointmentRepository.findDiagnoseIdPairs(importedAppointments().stream()
+                .map(DoctorAppointment::getId)
+                .toList())).hasSize(5);
+    }
+
+    @Test
+    public void importService_importAppointments_linksTreatmentsAndSickLeavesFromCsv() {
+        String csv = AppointmentRecordParser.CSV_HEADER + "\n" +
+                "2025-02-01," + patient.getId() + "," + doctor.getId() + "," + diagnose.getId() + "," +
+                treatment.getId() + "," + sickLeave.getId() + "\n" +
+                "2025-02-02," + patient.getId() + "," + doctor.getId() + "," + diagnose.getId() + ",," +
+                sickLeave.getId() + "\n";
+
+        AppointmentImportResultDto result = importService.importAppointments(
+                new BufferedReader(new StringReader(csv)), AppointmentImportFormat.CSV, 100);
+
+        assertThat(result.getImportedCount()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLineNumber()).isEqualTo(3);
+            assertThat(error.getMessage()).isEqualTo("The sick leave is already associated with another appointment.");
+        });
+
+        List<DoctorAppointment> appointments = importedAppointments();
+        assertThat(appointments).singleElement().satisfies(appointment ->
+                assertThat(appointment.getSickLeave().getId()).isEqualTo(sickLeave.getId()));
+        assertThat(appointmentRepository.findTreatmentIdPairs(List.of(appointments.get(0).getId())))
+                .singleElement()
+                .satisfies(pair -> assertThat(pair.getLinkedId()).isEqualTo(treatment.getId()));
+    }
+
+    @Test
+    public void importService_importAppointments_rejectsSickLeaveOfAnotherAppointment() {
+        DoctorAppointment owner = entityManager.find(DoctorAppointment.class, existingAppointment.getId());
+        owner.setSickLeave(entityManager.find(SickLeave.class, sickLeave.getId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        String csv = AppointmentRecordParser.CSV_HEADER + "\n" +
+                "2025-02-01," + patient.getId() + "," + doctor.getId() + "," + diagnose.getId() + ",," +
+                sickLeave.getId() + "\n" +
+                "2025-02-02," + patient.getId() + "," + doctor.getId() + "," + diagnose.getId() + ",,999999\n";
+
+        AppointmentImportResultDto result = importService.importAppointments(
+                new BufferedReader(new StringReader(csv)), AppointmentImportFormat.CSV, 100);
+
+        assertThat(result.getImportedCount()).isZero();
+        assertThat(result.getErrors()).extracting(AppointmentImportErrorDto::getMessage).containsExactly(
+                "The sick leave is already associated with another appointment.",
+                "No Sick Leave found with id: 999999");
+    }
+
+    private List<DoctorAppointment> importedAppointments() {
+        return appointmentRepository.findAll().stream()
+                .filter(appointment -> !appointment.getId().equals(existingAppointment.getId()))
+                .toList();
+    }
+
+}
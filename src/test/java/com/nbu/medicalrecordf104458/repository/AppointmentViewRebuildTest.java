@@ -0,0 +1,68 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.model.AppointmentView;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The rebuild the way the admin endpoint runs it, outside a transaction, over more appointments than one batch
+public class AppointmentViewRebuildTest extends CommittedAppointmentTest {
+
+    // Two full batches of 500 and part of a third
+    private static final int APPOINTMENTS_COUNT = 1200;
+
+    @Autowired
+    private AppointmentViewRepository viewRepository;
+    @Autowired
+    private AppointmentViewService viewService;
+
+    @AfterEach
+    public void tearDown() {
+        viewRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void rebuildAppointmentView_writesEveryBatch() {
+        List<DoctorAppointment> appointments = new ArrayList<>();
+
+        for (int i = 1; i < APPOINTMENTS_COUNT; i++) {
+            DoctorAppointment added = new DoctorAppointment();
+            added.setVisitDate(appointment.getVisitDate().plusDays(i % 365));
+            added.setDoctor(doctor);
+            added.setPatient(appointment.getPatient());
+            added.setDiagnoses(new HashSet<>(appointment.getDiagnoses()));
+            appointments.add(added);
+        }
+
+        appointmentRepository.saveAll(appointments);
+        authenticateAdmin();
+
+        long rebuilt = viewService.rebuildAppointmentView();
+
+        assertThat(rebuilt).isEqualTo(APPOINTMENTS_COUNT);
+        assertThat(viewRepository.count()).isEqualTo(APPOINTMENTS_COUNT);
+        assertThat(viewRepository.findAll())
+                .extracting(AppointmentView::getDiagnoseIds)
+                .allSatisfy(diagnoseIds -> assertThat(diagnoseIds).hasSize(1));
+    }
+
+    @Test
+    public void rebuildAppointmentView_asDoctor_throwsAccessDeniedException() {
+        authenticateDoctor(doctor.getId());
+
+        assertThatThrownBy(() -> viewService.rebuildAppointmentView())
+                .isInstanceOf(AccessDeniedException.class);
+        assertThat(viewRepository.count()).isZero();
+    }
+
+}
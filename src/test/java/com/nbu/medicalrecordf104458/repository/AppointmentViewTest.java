@@ -0,0 +1,250 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.mapper.DiagnoseMapper;
+import com.nbu.medicalrecordf104458.mapper.DoctorAppointmentMapper;
+import com.nbu.medicalrecordf104458.model.AppointmentView;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.SickLeave;
+import com.nbu.medicalrecordf104458.model.Specialization;
+import com.nbu.medicalrecordf104458.model.Treatment;
+import com.nbu.medicalrecordf104458.service.implementation.AppointmentViewServiceImpl;
+import com.nbu.medicalrecordf104458.service.implementation.DiagnoseServiceImpl;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Writes appointment_view through the service and reads the rows back after a clear,
+// so the checks see what reached the database and not the managed instances
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Import({AppointmentViewServiceImpl.class, DoctorAppointmentMapper.class, DiagnoseServiceImpl.class, DiagnoseMapper.class,
+        ResourceVersions.class})
+public class AppointmentViewTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private AppointmentViewRepository viewRepository;
+    @Autowired
+    private AppointmentViewServiceImpl viewService;
+    @Autowired
+    private DiagnoseServiceImpl diagnoseService;
+    @Autowired
+    private DataSource dataSource;
+
+    private Doctor doctor;
+    private Patient patient;
+    private Diagnose diagnose;
+    private Treatment treatment;
+    private DoctorAppointment appointment;
+
+    @BeforeEach
+    public void setUp() {
+        Specialization specialization = new Specialization();
+        specialization.setName("Cardiology");
+        entityManager.persist(specialization);
+
+        doctor = new Doctor();
+        doctor.setName("Dr. Doctor Doctorov");
+        doctor.setSpecializations(new HashSet<>(Set.of(specialization)));
+        entityManager.persist(doctor);
+
+        GeneralPractitioner gp = new GeneralPractitioner();
+        gp.setName("Dr. Lichen Lekar");
+        gp.setSpecializations(new HashSet<>(Set.of(specialization)));
+        entityManager.persist(gp);
+
+        patient = new Patient();
+        patient.setName("Pacient Pacientov");
+        patient.setFamilyDoctor(gp);
+        patient.setLastInsurancePayment(LocalDate.of(2025, 1, 31));
+        patient.setUnifiedCivilNumber(1234L);
+        entityManager.persist(patient);
+
+        diagnose = new Diagnose();
+        diagnose.setName("Flu");
+        diagnose.setDescription("A contagious respiratory illness caused by influenza viruses.");
+        entityManager.persist(diagnose);
+
+        treatment = new Treatment();
+        treatment.setMedicineName("Paracetamol");
+        treatment.setDosageAmount("500mg");
+        treatment.setFrequency("Twice a day");
+        entityManager.persist(treatment);
+
+        appointment = persistAppointment(LocalDate.of(2025, 1, 31));
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void viewService_addAppointments_insertsRowWithNamesAndLinkedIds() {
+        viewService.addAppointments(List.of(appointment.getId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        AppointmentView view = viewRepository.findById(appointment.getId()).orElseThrow();
+
+        assertThat(view.getVisitDate()).isEqualTo(LocalDate.of(2025, 1, 31));
+        assertThat(view.getDoctorId()).isEqualTo(doctor.getId());
+        assertThat(view.getDoctorName()).isEqualTo("Dr. Doctor Doctorov");
+        assertThat(view.getPatientId()).isEqualTo(patient.getId());
+        assertThat(view.getPatientName()).isEqualTo("Pacient Pacientov");
+        assertThat(view.getDiagnoseIds()).containsExactly(diagnose.getId());
+        assertThat(view.getTreatmentIds()).isEmpty();
+        assertThat(view.getSickLeaveId()).isNull();
+    }
+
+    @Test
+    public void viewService_refreshAppointments_picksUpTreatmentsAndSickLeave() {
+        viewService.addAppointments(List.of(appointment.getId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        DoctorAppointment managed = entityManager.find(DoctorAppointment.class, appointment.getId());
+        Treatment managedTreatment = entityManager.find(Treatment.class, treatment.getId());
+        managedTreatment.getAppointments().add(managed);
+        managed.getTreatments().add(managedTreatment);
+
+        SickLeave sickLeave = new SickLeave();
+        sickLeave.setStartDate(LocalDate.of(2025, 2, 1));
+        sickLeave.setEndDate(LocalDate.of(2025, 2, 10));
+        sickLeave.setDoctorAppointment(managed);
+        entityManager.persist(sickLeave);
+        managed.setSickLeave(sickLeave);
+
+        viewService.refreshAppointments(List.of(appointment.getId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        AppointmentView view = viewRepository.findById(appointment.getId()).orElseThrow();
+
+        assertThat(view.getTreatmentIds()).containsExactly(treatment.getId());
+        assertThat(view.getSickLeaveId()).isEqualTo(sickLeave.getId());
+        assertThat(view.getVersion()).isEqualTo(entityManager.find(DoctorAppointment.class, appointment.getId()).getVersion());
+    }
+
+    @Test
+    public void diagnoseService_addAndRemoveAppointment_updateDiagnoseIds() {
+        Diagnose cold = new Diagnose();
+        cold.setName("Cold");
+        cold.setDescription("A mild viral infection of the nose and throat.");
+        entityManager.persist(cold);
+
+        viewService.addAppointments(List.of(appointment.getId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Linked from the diagnose side, which writes appointments_diagnoses as well
+        diagnoseService.addAppointment(cold.getId(), appointment.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(viewRepository.findById(appointment.getId()).orElseThrow().getDiagnoseIds())
+                .containsExactlyInAnyOrder(diagnose.getId(), cold.getId());
+
+        diagnoseService.removeAppointment(diagnose.getId(), appointment.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(viewRepository.findById(appointment.getId()).orElseThrow().getDiagnoseIds())
+                .containsExactly(cold.getId());
+    }
+
+    @Test
+    public void viewService_refreshAppointments_removesRowOfDeletedAppointment() {
+        viewService.addAppointments(List.of(appointment.getId()));
+        entityManager.flush();
+
+        entityManager.remove(entityManager.find(DoctorAppointment.class, appointment.getId()));
+        viewService.refreshAppointments(List.of(appointment.getId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(viewRepository.findById(appointment.getId())).isEmpty();
+    }
+
+    @Test
+    public void viewService_renameDoctorAndPatient_updatesTheirRows() {
+        viewService.addAppointments(List.of(appointment.getId()));
+        entityManager.flush();
+
+        viewService.renameDoctor(doctor.getId(), "Dr. Nov Doctorov");
+        viewService.renamePatient(patient.getId(), "Nov Pacientov");
+        entityManager.clear();
+
+        AppointmentView view = viewRepository.findById(appointment.getId()).orElseThrow();
+
+        assertThat(view.getDoctorName()).isEqualTo("Dr. Nov Doctorov");
+        assertThat(view.getPatientName()).isEqualTo("Nov Pacientov");
+    }
+
+    @Test
+    public void viewService_rebuildAppointmentView_restoresMissingAndDropsStaleRows() {
+        DoctorAppointment missing = persistAppointment(LocalDate.of(2025, 2, 1));
+        entityManager.flush();
+
+        viewService.addAppointments(List.of(appointment.getId()));
+        // The row of an appointment that was deleted without it, past the last appointment
+        Long deletedId = missing.getId() + 1;
+        entityManager.persist(new AppointmentView(deletedId, 0L, LocalDate.of(2025, 3, 1), doctor.getId(),
+                doctor.getName(), patient.getId(), patient.getName(), null));
+        entityManager.flush();
+        viewRepository.renameDoctor(doctor.getId(), "Stale Name");
+
+        long rebuilt = viewService.rebuildAppointmentView();
+        entityManager.clear();
+
+        assertThat(rebuilt).isEqualTo(2);
+        assertThat(viewRepository.findById(deletedId)).isEmpty();
+        assertThat(viewRepository.findAllByDoctorIdAndVisitDateBetween(doctor.getId(),
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)))
+                .extracting(AppointmentView::getAppointmentId, AppointmentView::getDoctorName)
+                .containsExactlyInAnyOrder(
+                        tuple(appointment.getId(), "Dr. Doctor Doctorov"),
+                        tuple(missing.getId(), "Dr. Doctor Doctorov"));
+        assertThat(viewRepository.findById(missing.getId()).orElseThrow().getDiagnoseIds())
+                .containsExactly(diagnose.getId());
+    }
+
+    @Test
+    public void schema_appointmentView_hasIndexesForTheListings() throws SQLException {
+        assertThat(SchemaIndexes.columnsOf(dataSource, "appointment_view", "idx_appointment_view_visit_date_id"))
+                .containsExactly("visit_date", "appointment_id");
+        assertThat(SchemaIndexes.columnsOf(dataSource, "appointment_view", "idx_appointment_view_doctor_visit_date"))
+                .containsExactly("doctor_id", "visit_date");
+        assertThat(SchemaIndexes.columnsOf(dataSource, "appointment_view", "idx_appointment_view_patient_visit_date"))
+                .containsExactly("patient_id", "visit_date");
+    }
+
+    private DoctorAppointment persistAppointment(LocalDate visitDate) {
+        DoctorAppointment newAppointment = new DoctorAppointment();
+        newAppointment.setVisitDate(visitDate);
+        newAppointment.setDoctor(doctor);
+        newAppointment.setPatient(patient);
+        newAppointment.setDiagnoses(new HashSet<>(Set.of(diagnose)));
+        return entityManager.persist(newAppointment);
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.config.TransactionConfig;
+import com.nbu.medicalrecordf104458.mapper.DoctorAppointmentMapper;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.Specialization;
+import com.nbu.medicalrecordf104458.model.user.AuthenticatedUser;
+import com.nbu.medicalrecordf104458.model.user.Role;
+import com.nbu.medicalrecordf104458.service.implementation.AppointmentViewServiceImpl;
+import com.nbu.medicalrecordf104458.utility.CustomSecurityChecker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+// One committed appointment with its doctor, patient and diagnose for tests that call the secured services the way
+// requests do. Not wrapped in a test transaction, every call has to commit on its own, so the tear down removes
+// what the tests left behind
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({TransactionConfig.class, CommittedAppointmentTest.MethodSecurityConfig.class, CustomSecurityChecker.class,
+        DoctorAppointmentMapper.class, AppointmentViewServiceImpl.class})
+abstract class CommittedAppointmentTest {
+
+    @TestConfiguration
+    @EnableMethodSecurity
+    static class MethodSecurityConfig {
+    }
+
+    @Autowired
+    protected SpecializationRepository specializationRepository;
+    @Autowired
+    protected DiagnoseRepository diagnoseRepository;
+    @Autowired
+    protected DoctorRepository doctorRepository;
+    @Autowired
+    protected GeneralPractitionerRepository gpRepository;
+    @Autowired
+    protected PatientRepository patientRepository;
+    @Autowired
+    protected DoctorAppointmentRepository appointmentRepository;
+
+    protected Doctor doctor;
+    protected DoctorAppointment appointment;
+
+    @BeforeEach
+    public void setUpAppointment() {
+        Specialization specialization = new Specialization();
+        specialization.setName("Cardiology");
+        specialization = specializationRepository.save(specialization);
+
+        Diagnose diagnose = new Diagnose();
+        diagnose.setName("Flu");
+        diagnose.setDescription("A contagious respiratory illness caused by influenza viruses.");
+        diagnose = diagnoseRepository.save(diagnose);
+
+        doctor = new Doctor();
+        doctor.setName("Dr. Doctor Doctorov");
+        doctor.setSpecializations(new HashSet<>(Set.of(specialization)));
+        doctor = doctorRepository.save(doctor);
+
+        GeneralPractitioner gp = new GeneralPractitioner();
+        gp.setName("Dr. Lichen Lekar");
+        gp.setSpecializations(new HashSet<>(Set.of(specialization)));
+        gp = gpRepository.save(gp);
+
+        Patient patient = new Patient();
+        patient.setName("Pacient Pacientov");
+        patient.setFamilyDoctor(gp);
+        patient.setLastInsurancePayment(LocalDate.of(2025, 1, 31));
+        patient.setUnifiedCivilNumber(1234L);
+        patient = patientRepository.save(patient);
+
+        appointment = new DoctorAppointment();
+        appointment.setVisitDate(LocalDate.of(2025, 1, 31));
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setDiagnoses(new HashSet<>(Set.of(diagnose)));
+        appointment = appointmentRepository.save(appointment);
+    }
+
+    // Runs after the tear down of the test class, which removes anything it linked to the appointment first
+    @AfterEach
+    public void tearDownAppointment() {
+        SecurityContextHolder.clearContext();
+
+        appointmentRepository.deleteAll();
+        patientRepository.deleteAll();
+        gpRepository.deleteAll();
+        doctorRepository.deleteAll();
+        diagnoseRepository.deleteAll();
+        specializationRepository.deleteAll();
+    }
+
+    protected void authenticateDoctor(Long doctorId) {
+        authenticate(new AuthenticatedUser("doctor@mail.com", Role.DOCTOR, doctorId, null));
+    }
+
+    protected void authenticateAdmin() {
+        authenticate(new AuthenticatedUser("admin@mail.com", Role.ADMIN, null, null));
+    }
+
+    private void authenticate(AuthenticatedUser user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+}
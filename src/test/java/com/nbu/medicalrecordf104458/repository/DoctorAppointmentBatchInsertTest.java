@@ -0,0 +1,107 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.Specialization;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Checks that bulk inserts go out as JDBC batches - with IDENTITY ids every appointment
+// and every join table row was its own statement
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+public class DoctorAppointmentBatchInsertTest {
+
+    private static final int APPOINTMENTS_COUNT = 200;
+    // A few sequence calls plus the batched appointment and join table inserts (6 at the time of writing),
+    // IDENTITY ids needed one statement per row - 201 for the same data
+    private static final long MAX_STATEMENTS = 10;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DoctorAppointmentRepository appointmentRepository;
+
+    private Doctor doctor;
+    private Patient patient;
+    private Diagnose diagnose;
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        Specialization specialization = new Specialization();
+        specialization.setName("Cardiology");
+        entityManager.persist(specialization);
+
+        doctor = new Doctor();
+        doctor.setName("Dr. Doctor Doctorov");
+        doctor.setSpecializations(new HashSet<>(Set.of(specialization)));
+        entityManager.persist(doctor);
+
+        GeneralPractitioner gp = new GeneralPractitioner();
+        gp.setName("Dr. Lichen Lekar");
+        gp.setSpecializations(new HashSet<>(Set.of(specialization)));
+        entityManager.persist(gp);
+
+        patient = new Patient();
+        patient.setName("Pacient Pacientov");
+        patient.setFamilyDoctor(gp);
+        patient.setLastInsurancePayment(LocalDate.of(2025, 1, 31));
+        patient.setUnifiedCivilNumber(1234L);
+        entityManager.persist(patient);
+
+        diagnose = new Diagnose();
+        diagnose.setName("Flu");
+        diagnose.setDescription("A contagious respiratory illness caused by influenza viruses.");
+        entityManager.persist(diagnose);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void appointmentRepo_saveAll_insertsInBatches() {
+        List<DoctorAppointment> appointments = new ArrayList<>();
+        for (int i = 0; i < APPOINTMENTS_COUNT; i++) {
+            DoctorAppointment appointment = new DoctorAppointment();
+            appointment.setVisitDate(LocalDate.of(2025, 1, 1).plusDays(i));
+            appointment.setDoctor(entityManager.getEntityManager().getReference(Doctor.class, doctor.getId()));
+            appointment.setPatient(entityManager.getEntityManager().getReference(Patient.class, patient.getId()));
+            appointment.setDiagnoses(new HashSet<>(Set.of(
+                    entityManager.getEntityManager().getReference(Diagnose.class, diagnose.getId()))));
+            appointments.add(appointment);
+        }
+
+        appointmentRepository.saveAll(appointments);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(APPOINTMENTS_COUNT);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS);
+        assertThat(appointmentRepository.count()).isEqualTo(APPOINTMENTS_COUNT);
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.history.HistoryDiagnoseDto;
+import com.nbu.medicalrecordf104458.dto.history.HistoryTreatmentDto;
+import com.nbu.medicalrecordf104458.dto.history.PatientHistoryEntryDto;
+import com.nbu.medicalrecordf104458.mapper.DoctorAppointmentMapper;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.SickLeave;
+import com.nbu.medicalrecordf104458.model.Specialization;
+import com.nbu.medicalrecordf104458.model.Treatment;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Checks that loading the visit history and resolving the ids of a new appointment take the same number of
+// statements no matter how many appointments and links there are
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Import(DoctorAppointmentMapper.class)
+public class DoctorAppointmentFetchPlanTest {
+
+    private static final int APPOINTMENTS_COUNT = 20;
+    // The appointments and one per join table
+    private static final long MAX_STATEMENTS = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DoctorAppointmentRepository appointmentRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private DoctorAppointmentMapper mapper;
+
+    private Doctor doctor;
+    private Patient patient;
+    private Set<Long> diagnoseIds = new HashSet<>();
+    private Set<Long> treatmentIds = new HashSet<>();
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        Specialization specialization = new Specialization();
+        specialization.setName("Cardiology");
+        entityManager.persist(specialization);
+
+        doctor = new Doctor();
+        doctor.setName("Dr. Doctor Doctorov");
+        doctor.setSpecializations(new HashSet<>(Set.of(specialization)));
+        entityManager.persist(doctor);
+
+        GeneralPractitioner gp = new GeneralPractitioner();
+        gp.setName("Dr. Lichen Lekar");
+        gp.setSpecializations(new HashSet<>(Set.of(specialization)));
+        entityManager.persist(gp);
+
+        patient = new Patient();
+        patient.setName("Pacient Pacientov");
+        patient.setFamilyDoctor(gp);
+        patient.setLastInsurancePayment(LocalDate.of(2025, 1, 31));
+        patient.setUnifiedCivilNumber(1234L);
+        entityManager.persist(patient);
+
+        for (int i = 0; i < APPOINTMENTS_COUNT; i++) {
+            Diagnose diagnose = new Diagnose();
+            diagnose.setName("Diagnose " + i);
+            diagnose.setDescription("Description " + i);
+            entityManager.persist(diagnose);
+            diagnoseIds.add(diagnose.getId());
+
+            DoctorAppointment appointment = new DoctorAppointment();
+            appointment.setVisitDate(LocalDate.of(2025, 1, 1).plusDays(i));
+            appointment.setDoctor(doctor);
+            appointment.setPatient(patient);
+            appointment.setDiagnoses(new HashSet<>(Set.of(diagnose)));
+            entityManager.persist(appointment);
+
+            Treatment treatment = new Treatment();
+            treatment.setMedicineName("Medicine " + i);
+            treatment.setDosageAmount("1 pill");
+            treatment.setFrequency("Twice a day");
+            treatment.getAppointments().add(appointment);
+            entityManager.persist(treatment);
+            treatmentIds.add(treatment.getId());
+
+            if (i % 2 == 0) {
+                SickLeave sickLeave = new SickLeave();
+                sickLeave.setStartDate(appointment.getVisitDate());
+                sickLeave.setEndDate(appointment.getVisitDate().plusDays(3));
+                sickLeave.setDoctorAppointment(appointment);
+                entityManager.persist(sickLeave);
+                appointment.setSickLeave(sickLeave);
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void convertToEntity_resolvesAllIdsInBoundedStatements() {
+        DoctorAppointment appointment = mapper.convertToEntity(new AppointmentDto(null, LocalDate.of(2025, 3, 1),
+                patient.getId(), doctor.getId(), diagnoseIds, treatmentIds, null, null, null, null));
+
+        assertThat(appointment.getDiagnoses()).extracting(Diagnose::getId).containsExactlyInAnyOrderElementsOf(diagnoseIds);
+        assertThat(appointment.getTreatments()).extracting(Treatment::getId).containsExactlyInAnyOrderElementsOf(treatmentIds);
+        // Doctor, patient, one for all diagnoses and one for all treatments
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    public void convertToEntity_listsEveryMissingId() {
+        Set<Long> requestedDiagnoseIds = new HashSet<>(diagnoseIds);
+        requestedDiagnoseIds.addAll(Set.of(-1L, -2L));
+
+        AppointmentDto dto = new AppointmentDto(null, LocalDate.of(2025, 3, 1),
+                patient.getId(), doctor.getId(), requestedDiagnoseIds, new HashSet<>(), null, null, null, null);
+
+        assertThatThrownBy(() -> mapper.convertToEntity(dto))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessage("No Diagnose found with ids: [-2, -1]");
+    }
+
+    @Test
+    public void streamVisitsByPatientId_mapsToHistoryInBoundedStatements() {
+        Map<Long, HistoryDiagnoseDto> knownDiagnoses = new HashMap<>();
+        Map<Long, HistoryTreatmentDto> knownTreatments = new HashMap<>();
+
+        List<PatientHistoryEntryDto> entries;
+        try (Stream<DoctorAppointment> visits = patientRepository.streamVisitsByPatientId(patient.getId())) {
+            entries = mapper.convertToHistoryEntries(visits.toList(), knownDiagnoses, knownTreatments);
+        }
+
+        assertThat(entries).hasSize(APPOINTMENTS_COUNT);
+        assertThat(entries).extracting(PatientHistoryEntryDto::getVisitDate).isSorted();
+        assertThat(entries).allSatisfy(entry -> {
+            assertThat(entry.getDiagnoses()).singleElement().satisfies(diagnose -> assertThat(diagnose.getName()).startsWith("Diagnose"));
+            assertThat(entry.getTreatments()).singleElement().satisfies(treatment -> assertThat(treatment.getMedicineName()).startsWith("Medicine"));
+        });
+        assertThat(entries).filteredOn(entry -> entry.getSickLeave() != null).hasSize(APPOINTMENTS_COUNT / 2);
+        // The appointments, one per join table and one each for the diagnoses and treatments that weren't known yet
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS + 2);
+    }
+
+}
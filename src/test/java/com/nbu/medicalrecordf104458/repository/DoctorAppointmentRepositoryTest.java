@@ -1,5 +1,6 @@
 package com.nbu.medicalrecordf104458.repository;
 
+import com.nbu.medicalrecordf104458.dto.queries.AppointmentIdPairDto;
 import com.nbu.medicalrecordf104458.model.Diagnose;
 import com.nbu.medicalrecordf104458.model.Doctor;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
@@ -14,6 +15,8 @@ import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -37,6 +40,8 @@ public class DoctorAppointmentRepositoryTest {
     private PatientRepository patientRepository;
     @Autowired
     private DoctorAppointmentRepository appointmentRepository;
+    @Autowired
+    private DataSource dataSource;
 
     private Specialization specialization;
     private Diagnose diagnose;
@@ -115,15 +120,17 @@ public class DoctorAppointmentRepositoryTest {
     }
 
     @Test
-    public void appointmentRepo_findVisitsByDateRange_returnsCorrectAppointments() {
-        Set<DoctorAppointment> results = appointmentRepository.findVisitsByDateRange(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 11));
-        assertThat(results).hasSize(2).contains(appointment1, appointment2);
+    public void appointmentRepo_findDiagnoseIdPairs_returnsJoinTableRows() {
+        List<AppointmentIdPairDto> results = appointmentRepository.findDiagnoseIdPairs(List.of(appointment1.getId()));
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getAppointmentId()).isEqualTo(appointment1.getId());
+        assertThat(results.get(0).getLinkedId()).isEqualTo(diagnose.getId());
     }
 
     @Test
-    public void appointmentRepo_findAppointmentsByDoctorAndDateRange_returnsCorrectAppointments() {
-        Set<DoctorAppointment> results = appointmentRepository.findAppointmentsByDoctorAndDateRange(doctor.getId(), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 11));
-        assertThat(results).hasSize(2).contains(appointment1, appointment2);
+    public void appointmentRepo_findTreatmentIdPairs_returnsEmptyWithoutTreatments() {
+        List<AppointmentIdPairDto> results = appointmentRepository.findTreatmentIdPairs(List.of(appointment1.getId(), appointment2.getId()));
+        assertThat(results).isEmpty();
     }
 
     @Test
@@ -151,4 +158,14 @@ public class DoctorAppointmentRepositoryTest {
         assertThat(deletedAppointment).isNotPresent();
     }
 
+    @Test
+    public void appointmentRepo_queryIndexes_exist() throws SQLException {
+        assertThat(SchemaIndexes.columnsOf(dataSource, "appointment", "idx_appointment_doctor_visit_date"))
+                .containsExactly("doctor_id", "visit_date", "sick_leave_id");
+        assertThat(SchemaIndexes.columnsOf(dataSource, "appointment", "idx_appointment_visit_date_id"))
+                .containsExactly("visit_date", "id");
+        assertThat(SchemaIndexes.columnsOf(dataSource, "appointment", "idx_appointment_patient_visit_date"))
+                .containsExactly("patient_id", "visit_date");
+    }
+
 }
@@ -1,11 +1,13 @@
 package com.nbu.medicalrecordf104458.repository;
 
 import com.nbu.medicalrecordf104458.dto.queries.DoctorAppointmentsCountDto;
+import com.nbu.medicalrecordf104458.dto.queries.DoctorSickLeavesCountDto;
 import com.nbu.medicalrecordf104458.model.Diagnose;
 import com.nbu.medicalrecordf104458.model.Doctor;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
 import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
 import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.SickLeave;
 import com.nbu.medicalrecordf104458.model.Specialization;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.AfterEach;
@@ -16,6 +18,8 @@ import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.List;
@@ -41,6 +45,10 @@ public class DoctorRepositoryTest {
     private PatientRepository patientRepository;
     @Autowired
     private DoctorAppointmentRepository appointmentRepository;
+    @Autowired
+    private SickLeaveRepository sickLeaveRepository;
+    @Autowired
+    private DataSource dataSource;
 
     private Specialization specialization;
     private Diagnose diagnose;
@@ -96,6 +104,9 @@ public class DoctorRepositoryTest {
 
     @AfterEach
     public void tearDown() {
+        // Unlink first, the appointment <-> sick leave association is bidirectional
+        appointmentRepository.findAll().forEach(appointment -> appointment.setSickLeave(null));
+        sickLeaveRepository.deleteAll();
         appointmentRepository.deleteAll();
         patientRepository.deleteAll();
         gpRepository.deleteAll();
@@ -171,4 +182,59 @@ public class DoctorRepositoryTest {
         );
     }
 
+    @Test
+    public void doctorRepo_findDoctorsWithMostSickLeaves_returnsAllDoctorsTiedForMax() {
+        addSickLeave(appointment1);
+        addSickLeave(appointment2);
+
+        DoctorAppointment gpAppointment = new DoctorAppointment();
+        gpAppointment.setVisitDate(LocalDate.of(2025, 2, 2));
+        gpAppointment.setDoctor(gp);
+        gpAppointment.setPatient(patient);
+        gpAppointment.setDiagnoses(new HashSet<>(Set.of(diagnose)));
+        gpAppointment = appointmentRepository.save(gpAppointment);
+        addSickLeave(gpAppointment);
+
+        Set<DoctorSickLeavesCountDto> results = doctorRepository.findDoctorsWithMostSickLeaves();
+
+        assertThat(results).singleElement().satisfies(dto -> {
+            assertThat(dto.getDoctorId()).isEqualTo(doctor.getId());
+            assertThat(dto.getDoctorName()).isEqualTo(doctor.getName());
+            assertThat(dto.getSickLeavesCount()).isEqualTo(2);
+        });
+
+        DoctorAppointment gpAppointment2 = new DoctorAppointment();
+        gpAppointment2.setVisitDate(LocalDate.of(2025, 2, 3));
+        gpAppointment2.setDoctor(gp);
+        gpAppointment2.setPatient(patient);
+        gpAppointment2.setDiagnoses(new HashSet<>(Set.of(diagnose)));
+        addSickLeave(appointmentRepository.save(gpAppointment2));
+
+        assertThat(doctorRepository.findDoctorsWithMostSickLeaves())
+                .extracting(DoctorSickLeavesCountDto::getDoctorId)
+                .containsExactlyInAnyOrder(doctor.getId(), gp.getId());
+    }
+
+    @Test
+    public void doctorRepo_findDoctorsWithMostSickLeaves_returnsEmptyWithoutSickLeaves() {
+        assertThat(doctorRepository.findDoctorsWithMostSickLeaves()).isEmpty();
+    }
+
+    private void addSickLeave(DoctorAppointment appointment) {
+        SickLeave sickLeave = new SickLeave();
+        sickLeave.setStartDate(appointment.getVisitDate());
+        sickLeave.setEndDate(appointment.getVisitDate().plusDays(5));
+        sickLeave.setDoctorAppointment(appointment);
+        appointment.setSickLeave(sickLeaveRepository.save(sickLeave));
+        appointmentRepository.save(appointment);
+    }
+
+    @Test
+    public void doctorRepo_queryIndexes_exist() throws SQLException {
+        assertThat(SchemaIndexes.columnsOf(dataSource, "appointment", "idx_appointment_doctor_visit_date"))
+                .containsExactly("doctor_id", "visit_date", "sick_leave_id");
+        assertThat(SchemaIndexes.columnsOf(dataSource, "doctor", "idx_doctor_type_deleted"))
+                .containsExactly("doctor_type", "for_deletion");
+    }
+
 }
@@ -13,6 +13,8 @@ import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.List;
@@ -32,6 +34,8 @@ public class GeneralPractitionerRepositoryTest {
     private SpecializationRepository specializationRepository;
     @Autowired
     private PatientRepository patientRepository;
+    @Autowired
+    private DataSource dataSource;
 
     private GeneralPractitioner gp;
     private Specialization specialization;
@@ -150,4 +154,12 @@ public class GeneralPractitionerRepositoryTest {
         assertThat(result.getPatientCount()).isEqualTo(1);
     }
 
+    @Test
+    public void gpRepo_queryIndexes_exist() throws SQLException {
+        assertThat(SchemaIndexes.columnsOf(dataSource, "doctor", "idx_doctor_type_deleted"))
+                .containsExactly("doctor_type", "for_deletion");
+        assertThat(SchemaIndexes.columnsOf(dataSource, "patient", "idx_patient_family_doctor_deleted"))
+                .containsExactly("family_doctor_id", "for_deletion");
+    }
+
 }
@@ -0,0 +1,19 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Fails the test if its body executes more SQL statements than value. Setup in @BeforeEach is not counted.
+// The test context needs @Import(StatementCountingConfig.class)
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(StatementCountExtension.class)
+public @interface MaxStatements {
+
+    int value();
+
+}
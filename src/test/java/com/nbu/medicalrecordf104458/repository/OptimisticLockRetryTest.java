@@ -0,0 +1,198 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.controller.DoctorController;
+import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.DoctorDto;
+import com.nbu.medicalrecordf104458.mapper.DoctorMapper;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.Specialization;
+import com.nbu.medicalrecordf104458.model.Treatment;
+import com.nbu.medicalrecordf104458.service.DoctorAppointmentService;
+import com.nbu.medicalrecordf104458.service.implementation.DoctorAppointmentServiceImpl;
+import com.nbu.medicalrecordf104458.service.implementation.DoctorServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Checks that concurrent edits of one appointment are caught by its version instead of overwriting each other,
+// that the collection methods retry them and that an update hands back the ETag of the version it committed
+@Import({DoctorAppointmentServiceImpl.class, DoctorController.class, DoctorServiceImpl.class, DoctorMapper.class})
+public class OptimisticLockRetryTest extends CommittedAppointmentTest {
+
+    private static final int WRITERS = 4;
+
+    @Autowired
+    private DoctorAppointmentService appointmentService;
+    @Autowired
+    private DoctorController doctorController;
+
+    @Autowired
+    private TreatmentRepository treatmentRepository;
+
+    private final List<Long> addedDiagnoseIds = new ArrayList<>();
+    private final List<Long> addedTreatmentIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < WRITERS; i++) {
+            Diagnose added = new Diagnose();
+            added.setName("Diagnose " + i);
+            added.setDescription("Added by writer " + i);
+            addedDiagnoseIds.add(diagnoseRepository.save(added).getId());
+
+            Treatment treatment = new Treatment();
+            treatment.setMedicineName("Medicine " + i);
+            treatment.setDosageAmount("500 mg");
+            treatment.setFrequency("Twice a day");
+            addedTreatmentIds.add(treatmentRepository.save(treatment).getId());
+        }
+    }
+
+    // The treatments own their join table rows
+    @AfterEach
+    public void tearDown() {
+        treatmentRepository.deleteAll();
+    }
+
+    @Test
+    public void staleAppointmentSave_throwsObjectOptimisticLockingFailureException() {
+        DoctorAppointment first = appointmentRepository.findById(appointment.getId()).orElseThrow();
+        DoctorAppointment second = appointmentRepository.findById(appointment.getId()).orElseThrow();
+
+        first.setVisitDate(LocalDate.of(2025, 2, 1));
+        appointmentRepository.save(first);
+
+        second.setVisitDate(LocalDate.of(2025, 2, 2));
+
+        assertThatThrownBy(() -> appointmentRepository.save(second))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(appointmentRepository.findById(appointment.getId()).orElseThrow().getVisitDate())
+                .isEqualTo(LocalDate.of(2025, 2, 1));
+    }
+
+    @Test
+    public void concurrentAddDiagnose_keepsEveryDiagnose() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writes = new ArrayList<>();
+
+        try {
+            for (Long diagnoseId : addedDiagnoseIds) {
+                writes.add(executor.submit(() -> {
+                    authenticateDoctor(doctor.getId());
+                    start.await();
+                    return appointmentService.addDiagnose(appointment.getId(), diagnoseId);
+                }));
+            }
+
+            start.countDown();
+
+            // A conflict that outlasted the retries would surface here
+            for (Future<?> write : writes) {
+                write.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        DoctorAppointment updated = appointmentRepository.findById(appointment.getId()).orElseThrow();
+
+        assertThat(appointmentRepository.findDiagnoseIdPairs(List.of(appointment.getId())))
+                .hasSize(WRITERS + 1);
+        assertThat(updated.getVersion()).isEqualTo(appointment.getVersion() + WRITERS);
+    }
+
+    // The appointment is the inverse side of the treatment links, the version is moved on explicitly
+    @Test
+    public void concurrentAddTreatment_keepsEveryTreatment() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AppointmentDto>> writes = new ArrayList<>();
+        List<Long> returnedVersions = new ArrayList<>();
+
+        try {
+            for (Long treatmentId : addedTreatmentIds) {
+                writes.add(executor.submit(() -> {
+                    authenticateDoctor(doctor.getId());
+                    start.await();
+                    return appointmentService.addTreatment(appointment.getId(), treatmentId);
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<AppointmentDto> write : writes) {
+                returnedVersions.add(write.get(30, TimeUnit.SECONDS).getVersion());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        DoctorAppointment updated = appointmentRepository.findById(appointment.getId()).orElseThrow();
+
+        assertThat(appointmentRepository.findTreatmentIdPairs(List.of(appointment.getId())))
+                .hasSize(WRITERS);
+        assertThat(updated.getVersion()).isEqualTo(appointment.getVersion() + WRITERS);
+        // Every write handed back the version it committed
+        assertThat(returnedVersions).containsExactlyInAnyOrderElementsOf(LongStream.rangeClosed(1, WRITERS)
+                        .mapToObj(i -> appointment.getVersion() + i)
+                        .toList());
+    }
+
+    @Test
+    public void removeTreatment_movesTheVersionOn() {
+        authenticateDoctor(doctor.getId());
+
+        AppointmentDto added = appointmentService.addTreatment(appointment.getId(), addedTreatmentIds.get(0));
+        AppointmentDto removed = appointmentService.removeTreatment(appointment.getId(), addedTreatmentIds.get(0));
+
+        assertThat(added.getVersion()).isEqualTo(appointment.getVersion() + 1);
+        assertThat(removed.getVersion()).isEqualTo(appointment.getVersion() + 2);
+        assertThat(removed.getTreatments()).isEmpty();
+    }
+
+    @Test
+    public void updateDoctor_withTheReturnedETag_returnsOk() {
+        authenticateAdmin();
+
+        ResponseEntity<DoctorDto> first = doctorController.updateDoctor(doctor.getId(),
+                doctorDto("Dr. Nov Doctorov"), null);
+        ResponseEntity<DoctorDto> second = doctorController.updateDoctor(doctor.getId(),
+                doctorDto("Dr. Treti Doctorov"), first.getHeaders().getETag());
+
+        assertThat(first.getHeaders().getETag()).isEqualTo("\"doctor-" + doctor.getId() + "-1\"");
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getHeaders().getETag()).isEqualTo("\"doctor-" + doctor.getId() + "-2\"");
+        assertThat(doctorRepository.findById(doctor.getId()).orElseThrow().getName()).isEqualTo("Dr. Treti Doctorov");
+    }
+
+    private DoctorDto doctorDto(String name) {
+        DoctorDto dto = new DoctorDto();
+        dto.setName(name);
+        dto.setSpecializationIds(doctor.getSpecializations().stream()
+                .map(Specialization::getId)
+                .collect(Collectors.toSet()));
+        return dto;
+    }
+
+}
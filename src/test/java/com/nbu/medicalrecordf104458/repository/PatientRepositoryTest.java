@@ -14,11 +14,14 @@ import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -37,6 +40,8 @@ public class PatientRepositoryTest {
     private SpecializationRepository specializationRepository;
     @Autowired
     private DoctorAppointmentRepository appointmentRepository;
+    @Autowired
+    private DataSource dataSource;
 
     private Specialization specialization;
     private GeneralPractitioner gp;
@@ -146,4 +151,29 @@ public class PatientRepositoryTest {
         assertThat(patients).contains(patient);
     }
 
+    @Test
+    public void patientRepo_streamVisitsByPatientId_returnsVisitsOldestFirst() {
+        DoctorAppointment earlierAppointment = new DoctorAppointment();
+        earlierAppointment.setVisitDate(LocalDate.of(2024, 12, 1));
+        earlierAppointment.setDoctor(gp);
+        earlierAppointment.setPatient(patient);
+        earlierAppointment.setDiagnoses(Set.of(diagnose));
+        earlierAppointment = appointmentRepository.save(earlierAppointment);
+
+        try (Stream<DoctorAppointment> visits = patientRepository.streamVisitsByPatientId(patient.getId())) {
+            assertThat(visits.map(DoctorAppointment::getId))
+                    .containsExactly(earlierAppointment.getId(), appointment1.getId());
+        }
+    }
+
+    @Test
+    public void patientRepo_queryIndexes_exist() throws SQLException {
+        assertThat(SchemaIndexes.columnsOf(dataSource, "appointments_diagnoses", "idx_appointments_diagnoses_diagnose"))
+                .containsExactly("diagnose_id", "appointment_id");
+        assertThat(SchemaIndexes.columnsOf(dataSource, "patient", "idx_patient_family_doctor_deleted"))
+                .containsExactly("family_doctor_id", "for_deletion");
+        assertThat(SchemaIndexes.columnsOf(dataSource, "appointment", "idx_appointment_patient_visit_date"))
+                .containsExactly("patient_id", "visit_date");
+    }
+
 }
@@ -0,0 +1,379 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.DoctorDto;
+import com.nbu.medicalrecordf104458.dto.GeneralPractitionerDto;
+import com.nbu.medicalrecordf104458.dto.PatientDto;
+import com.nbu.medicalrecordf104458.dto.history.PatientHistoryEntryDto;
+import com.nbu.medicalrecordf104458.dto.queries.AppointmentIdPairDto;
+import com.nbu.medicalrecordf104458.mapper.DoctorAppointmentMapper;
+import com.nbu.medicalrecordf104458.mapper.DoctorMapper;
+import com.nbu.medicalrecordf104458.mapper.GeneralPractitionerMapper;
+import com.nbu.medicalrecordf104458.mapper.PatientMapper;
+import com.nbu.medicalrecordf104458.model.AppointmentView;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.SickLeave;
+import com.nbu.medicalrecordf104458.model.Specialization;
+import com.nbu.medicalrecordf104458.model.Treatment;
+import com.nbu.medicalrecordf104458.model.user.Role;
+import com.nbu.medicalrecordf104458.model.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every query endpoint of the appointment view, appointment, patient, doctor and GP repositories, mapped the way the services map it,
+// within a statement bound that doesn't grow with the number of rows. Doctors and patients have user accounts
+// like in production, the persistence context is cleared before every test so nothing is served from it
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Import({StatementCountingConfig.class, DoctorMapper.class, GeneralPractitionerMapper.class, PatientMapper.class,
+        DoctorAppointmentMapper.class})
+public class QueryStatementCountTest {
+
+    private static final int DOCTORS_COUNT = 6;
+    private static final int GPS_COUNT = 3;
+    private static final int PATIENTS_PER_GP = 3;
+    private static final int APPOINTMENTS_PER_PATIENT = 2;
+    private static final int APPOINTMENTS_COUNT = GPS_COUNT * PATIENTS_PER_GP * APPOINTMENTS_PER_PATIENT;
+    private static final LocalDate FIRST_VISIT_DATE = LocalDate.of(2025, 1, 1);
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private AppointmentViewRepository viewRepository;
+    @Autowired
+    private DoctorAppointmentRepository appointmentRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private GeneralPractitionerRepository gpRepository;
+    @Autowired
+    private DoctorMapper doctorMapper;
+    @Autowired
+    private GeneralPractitionerMapper gpMapper;
+    @Autowired
+    private PatientMapper patientMapper;
+    @Autowired
+    private DoctorAppointmentMapper appointmentMapper;
+
+    private final List<Doctor> doctors = new ArrayList<>();
+    private final List<GeneralPractitioner> gps = new ArrayList<>();
+    private final List<Patient> patients = new ArrayList<>();
+    private final List<Long> appointmentIds = new ArrayList<>();
+    private Diagnose diagnose;
+    private Long freeSickLeaveId;
+
+    @BeforeEach
+    public void setUp() {
+        Specialization cardiology = specialization("Cardiology");
+        Specialization neurology = specialization("Neurology");
+
+        diagnose = new Diagnose();
+        diagnose.setName("Flu");
+        diagnose.setDescription("A contagious respiratory illness caused by influenza viruses.");
+        entityManager.persist(diagnose);
+
+        Treatment treatment = new Treatment();
+        treatment.setMedicineName("Paracetamol");
+        treatment.setDosageAmount("500 mg");
+        treatment.setFrequency("Twice a day");
+        entityManager.persist(treatment);
+
+        for (int i = 0; i < DOCTORS_COUNT; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setName("Dr. Doctor " + i);
+            doctor.setSpecializations(new HashSet<>(Set.of(cardiology, neurology)));
+            entityManager.persist(doctor);
+            doctor.setUser(user("doctor" + i + "@mail.com", Role.DOCTOR, doctor, null));
+            doctors.add(doctor);
+        }
+
+        for (int i = 0; i < GPS_COUNT; i++) {
+            GeneralPractitioner gp = new GeneralPractitioner();
+            gp.setName("Dr. GP " + i);
+            gp.setSpecializations(new HashSet<>(Set.of(cardiology)));
+            entityManager.persist(gp);
+            gp.setUser(user("gp" + i + "@mail.com", Role.DOCTOR, gp, null));
+            gps.add(gp);
+
+            for (int j = 0; j < PATIENTS_PER_GP; j++) {
+                Patient patient = new Patient();
+                patient.setName("Patient " + i + "-" + j);
+                patient.setFamilyDoctor(gp);
+                patient.setLastInsurancePayment(LocalDate.of(2025, 1, 31));
+                patient.setUnifiedCivilNumber(1000L + i * PATIENTS_PER_GP + j);
+                entityManager.persist(patient);
+                patient.setUser(user("patient" + i + "-" + j + "@mail.com", Role.PATIENT, null, patient));
+                patients.add(patient);
+            }
+        }
+
+        for (int i = 0; i < APPOINTMENTS_COUNT; i++) {
+            DoctorAppointment appointment = new DoctorAppointment();
+            appointment.setVisitDate(FIRST_VISIT_DATE.plusDays(i));
+            appointment.setDoctor(doctors.get(i % DOCTORS_COUNT));
+            appointment.setPatient(patients.get(i % patients.size()));
+            appointment.setDiagnoses(new HashSet<>(Set.of(diagnose)));
+            entityManager.persist(appointment);
+            treatment.getAppointments().add(appointment);
+            appointmentIds.add(appointment.getId());
+
+            if (i % 2 == 0) {
+                SickLeave sickLeave = new SickLeave();
+                sickLeave.setStartDate(appointment.getVisitDate());
+                sickLeave.setEndDate(appointment.getVisitDate().plusDays(3));
+                sickLeave.setDoctorAppointment(appointment);
+                entityManager.persist(sickLeave);
+                appointment.setSickLeave(sickLeave);
+            }
+        }
+
+        // Saved but not attached yet, the way createSickLeave leaves it for attachSickLeave
+        SickLeave freeSickLeave = new SickLeave();
+        freeSickLeave.setStartDate(FIRST_VISIT_DATE.plusDays(1));
+        freeSickLeave.setEndDate(FIRST_VISIT_DATE.plusDays(4));
+        freeSickLeave.setDoctorAppointment(entityManager.find(DoctorAppointment.class, appointmentIds.get(1)));
+        entityManager.persist(freeSickLeave);
+        freeSickLeaveId = freeSickLeave.getId();
+
+        // The join tables are read with native queries, so the links have to be written before the view rows
+        entityManager.flush();
+        appointmentMapper.addLinkedIds(viewRepository.projectAppointments(appointmentIds)).forEach(entityManager::persist);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // AppointmentViewRepository, the appointment reads of the services
+
+    @Test
+    @MaxStatements(1)
+    public void findAllByVisitDateBetween_mapsInOneStatement() {
+        List<AppointmentDto> dtos = viewRepository.findAllByVisitDateBetween(
+                        FIRST_VISIT_DATE, FIRST_VISIT_DATE.plusDays(APPOINTMENTS_COUNT)).stream()
+                .map(appointmentMapper::convertToDto)
+                .toList();
+
+        assertThat(dtos).hasSize(APPOINTMENTS_COUNT);
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void findAllByDoctorIdAndVisitDateBetween_mapsInOneStatement() {
+        List<AppointmentDto> dtos = viewRepository.findAllByDoctorIdAndVisitDateBetween(
+                        doctors.get(0).getId(), FIRST_VISIT_DATE, FIRST_VISIT_DATE.plusDays(APPOINTMENTS_COUNT)).stream()
+                .map(appointmentMapper::convertToDto)
+                .toList();
+
+        assertThat(dtos).hasSize(APPOINTMENTS_COUNT / DOCTORS_COUNT);
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void findAllByPatientId_mapsInOneStatement() {
+        List<AppointmentDto> dtos = viewRepository.findAllByPatientId(patients.get(0).getId()).stream()
+                .map(appointmentMapper::convertToDto)
+                .toList();
+
+        assertThat(dtos).hasSize(APPOINTMENTS_PER_PATIENT);
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void findAllByOrderByVisitDateAscAppointmentIdAsc_mapsInOneStatement() {
+        List<AppointmentDto> dtos = viewRepository.findAllByOrderByVisitDateAscAppointmentIdAsc(Limit.of(10)).stream()
+                .map(appointmentMapper::convertToDto)
+                .toList();
+
+        assertThat(dtos).hasSize(10);
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void findPageAfter_mapsInOneStatement() {
+        List<AppointmentDto> dtos = viewRepository.findPageAfter(FIRST_VISIT_DATE, appointmentIds.get(0), Limit.of(10)).stream()
+                .map(appointmentMapper::convertToDto)
+                .toList();
+
+        assertThat(dtos).hasSize(10);
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void streamAllOrderedByVisitDate_mapsInOneStatement() {
+        List<AppointmentDto> dtos;
+        try (Stream<AppointmentView> views = viewRepository.streamAllOrderedByVisitDate()) {
+            dtos = views.map(appointmentMapper::convertToDto).toList();
+        }
+
+        assertThat(dtos).hasSize(APPOINTMENTS_COUNT);
+    }
+
+    // DoctorAppointmentRepository
+
+    @Test
+    @MaxStatements(2)
+    public void findIdPairs_readsEachJoinTableOnce() {
+        List<AppointmentIdPairDto> diagnosePairs = appointmentRepository.findDiagnoseIdPairs(appointmentIds);
+        List<AppointmentIdPairDto> treatmentPairs = appointmentRepository.findTreatmentIdPairs(appointmentIds);
+
+        assertThat(diagnosePairs).hasSize(APPOINTMENTS_COUNT);
+        assertThat(treatmentPairs).hasSize(APPOINTMENTS_COUNT);
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void attachSickLeave_isOneUpdate() {
+        int updated = appointmentRepository.attachSickLeave(appointmentIds.get(1),
+                entityManager.getEntityManager().getReference(SickLeave.class, freeSickLeaveId));
+
+        assertThat(updated).isEqualTo(1);
+    }
+
+    // PatientRepository
+
+    @Test
+    @MaxStatements(3)
+    public void patientFindAllByDeletedFalse_mapsInBoundedStatements() {
+        List<PatientDto> dtos = patientRepository.findAllByDeletedFalse().stream()
+                .map(patientMapper::convertToDto)
+                .toList();
+
+        assertThat(dtos).hasSize(patients.size());
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void findVersionById_isOneQuery() {
+        assertThat(patientRepository.findVersionById(patients.get(0).getId())).isPresent();
+    }
+
+    @Test
+    @MaxStatements(3)
+    public void findPatientsByDiagnoseId_mapsInBoundedStatements() {
+        List<PatientDto> dtos = patientRepository.findPatientsByDiagnoseId(diagnose.getId()).stream()
+                .map(patientMapper::convertToDto)
+                .toList();
+
+        assertThat(dtos).hasSize(patients.size());
+    }
+
+    @Test
+    @MaxStatements(3)
+    public void findPatientsByGeneralPractitionerId_mapsInBoundedStatements() {
+        List<PatientDto> dtos = patientRepository.findPatientsByGeneralPractitionerId(gps.get(0).getId()).stream()
+                .map(patientMapper::convertToDto)
+                .toList();
+
+        assertThat(dtos).hasSize(PATIENTS_PER_GP);
+    }
+
+    @Test
+    @MaxStatements(5)
+    public void streamVisitsByPatientId_mapsInBoundedStatements() {
+        List<PatientHistoryEntryDto> entries;
+        try (Stream<DoctorAppointment> visits = patientRepository.streamVisitsByPatientId(patients.get(0).getId())) {
+            entries = appointmentMapper.convertToHistoryEntries(visits.toList(), new HashMap<>(), new HashMap<>());
+        }
+
+        assertThat(entries).hasSize(APPOINTMENTS_PER_PATIENT);
+    }
+
+    // DoctorRepository
+
+    @Test
+    @MaxStatements(3)
+    public void doctorFindAllByDeletedFalse_mapsInBoundedStatements() {
+        List<DoctorDto> dtos = doctorRepository.findAllByDeletedFalse().stream()
+                .map(doctorMapper::convertToDto)
+                .toList();
+
+        assertThat(dtos).hasSize(DOCTORS_COUNT + GPS_COUNT);
+        assertThat(dtos).allSatisfy(dto -> assertThat(dto.getSpecializationIds()).isNotEmpty());
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void findDoctorWithAppointmentCount_isOneQuery() {
+        assertThat(doctorRepository.findDoctorWithAppointmentCount(doctors.get(0).getId()).getAppointmentsCount())
+                .isEqualTo(APPOINTMENTS_COUNT / DOCTORS_COUNT);
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void findAllDoctorsWithAppointmentCount_isOneQuery() {
+        assertThat(doctorRepository.findAllDoctorsWithAppointmentCount()).hasSize(DOCTORS_COUNT + GPS_COUNT);
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void findDoctorsWithMostSickLeaves_isOneQuery() {
+        assertThat(doctorRepository.findDoctorsWithMostSickLeaves()).isNotEmpty();
+    }
+
+    // GeneralPractitionerRepository
+
+    @Test
+    @MaxStatements(2)
+    public void gpFindAllByDeletedFalse_mapsInBoundedStatements() {
+        List<GeneralPractitionerDto> dtos = gpMapper.convertToDtos(gpRepository.findAllByDeletedFalse());
+
+        assertThat(dtos).hasSize(GPS_COUNT);
+        assertThat(dtos).allSatisfy(dto -> assertThat(dto.getPatients()).hasSize(PATIENTS_PER_GP));
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void findAllDoctorsWithPatientCount_isOneQuery() {
+        assertThat(gpRepository.findAllDoctorsWithPatientCount()).hasSize(GPS_COUNT);
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void findGeneralPractitionerWithPatientCount_isOneQuery() {
+        assertThat(gpRepository.findGeneralPractitionerWithPatientCount(gps.get(0).getId()).getPatientCount())
+                .isEqualTo(PATIENTS_PER_GP);
+    }
+
+    private Specialization specialization(String name) {
+        Specialization specialization = new Specialization();
+        specialization.setName(name);
+        entityManager.persist(specialization);
+        return specialization;
+    }
+
+    private User user(String email, Role role, Doctor doctor, Patient patient) {
+        User user = User.builder()
+                .email(email)
+                .password("password")
+                .role(role)
+                .doctor(doctor)
+                .patient(patient)
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+
+}
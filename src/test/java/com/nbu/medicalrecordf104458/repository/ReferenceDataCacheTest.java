@@ -0,0 +1,105 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Treatment;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Checks that Diagnose and Treatment reads are served from the second-level cache and that writes invalidate it.
+// Not wrapped in a test transaction, every repository call gets its own session like a request does
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReferenceDataCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DiagnoseRepository diagnoseRepository;
+    @Autowired
+    private TreatmentRepository treatmentRepository;
+
+    private Statistics statistics;
+    private Diagnose diagnose;
+
+    @BeforeEach
+    public void setUp() {
+        // The regions are shared by every test context in the JVM, each with its own database and the same ids
+        entityManagerFactory.getCache().evictAll();
+
+        diagnose = new Diagnose();
+        diagnose.setName("Flu");
+        diagnose.setDescription("A contagious respiratory illness caused by influenza viruses.");
+        diagnose = diagnoseRepository.save(diagnose);
+
+        Treatment treatment = new Treatment();
+        treatment.setMedicineName("Paracetamol");
+        treatment.setDosageAmount("500mg");
+        treatment.setFrequency("Twice a day");
+        treatmentRepository.save(treatment);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        treatmentRepository.deleteAll();
+        diagnoseRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    public void diagnoseRepo_findById_isServedFromSecondLevelCache() {
+        Diagnose found = diagnoseRepository.findById(diagnose.getId()).orElseThrow();
+
+        assertThat(found.getName()).isEqualTo("Flu");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void diagnoseRepo_findAllByDeletedFalse_isServedFromQueryCache() {
+        diagnoseRepository.findAllByDeletedFalse();
+        long statements = statistics.getPrepareStatementCount();
+
+        assertThat(diagnoseRepository.findAllByDeletedFalse()).hasSize(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void diagnoseRepo_findAllByDeletedFalse_isInvalidatedBySoftDelete() {
+        assertThat(diagnoseRepository.findAllByDeletedFalse()).hasSize(1);
+
+        Diagnose toDelete = diagnoseRepository.findById(diagnose.getId()).orElseThrow();
+        toDelete.setDeleted(true);
+        diagnoseRepository.save(toDelete);
+
+        assertThat(diagnoseRepository.findAllByDeletedFalse()).isEmpty();
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+    }
+
+    @Test
+    public void treatmentRepo_findAll_isServedFromQueryCache() {
+        treatmentRepository.findAll();
+        long statements = statistics.getPrepareStatementCount();
+
+        assertThat(treatmentRepository.findAll()).hasSize(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.config.ResourceVersionListener;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.model.Specialization;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions;
+import com.nbu.medicalrecordf104458.utility.ResourceVersions.Catalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Checks that the ETag versions move on once a write commits, and only then. Not wrapped in a test transaction,
+// the listener only acts on commits
+@DataJpaTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ResourceVersions.class, ResourceVersionListener.class})
+public class ResourceVersionListenerTest {
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private SpecializationRepository specializationRepository;
+    @Autowired
+    private DiagnoseRepository diagnoseRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private GeneralPractitionerRepository gpRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private DoctorAppointmentRepository appointmentRepository;
+
+    private TransactionTemplate transactionTemplate;
+    private Diagnose diagnose;
+    private Patient patient;
+    private DoctorAppointment appointment;
+
+    @BeforeEach
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Specialization specialization = new Specialization();
+        specialization.setName("Cardiology");
+        specialization = specializationRepository.save(specialization);
+
+        diagnose = new Diagnose();
+        diagnose.setName("Flu");
+        diagnose.setDescription("A contagious respiratory illness caused by influenza viruses.");
+        diagnose = diagnoseRepository.save(diagnose);
+
+        Doctor doctor = new Doctor();
+        doctor.setName("Dr. Doctor Doctorov");
+        doctor.setSpecializations(new HashSet<>(Set.of(specialization)));
+        doctor = doctorRepository.save(doctor);
+
+        GeneralPractitioner gp = new GeneralPractitioner();
+        gp.setName("Dr. Lichen Lekar");
+        gp.setSpecializations(new HashSet<>(Set.of(specialization)));
+        gp = gpRepository.save(gp);
+
+        patient = new Patient();
+        patient.setName("Pacient Pacientov");
+        patient.setFamilyDoctor(gp);
+        patient.setLastInsurancePayment(LocalDate.of(2025, 1, 31));
+        patient.setUnifiedCivilNumber(1234L);
+        patient = patientRepository.save(patient);
+
+        appointment = new DoctorAppointment();
+        appointment.setVisitDate(LocalDate.of(2025, 1, 31));
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setDiagnoses(new HashSet<>(Set.of(diagnose)));
+        appointment = appointmentRepository.save(appointment);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        appointmentRepository.deleteAll();
+        patientRepository.deleteAll();
+        gpRepository.deleteAll();
+        doctorRepository.deleteAll();
+        diagnoseRepository.deleteAll();
+        specializationRepository.deleteAll();
+    }
+
+    @Test
+    public void diagnoseUpdate_movesOnlyTheDiagnosesVersion() {
+        String diagnosesETag = resourceVersions.getCatalogETag(Catalog.DIAGNOSES);
+        String treatmentsETag = resourceVersions.getCatalogETag(Catalog.TREATMENTS);
+
+        diagnose.setDescription("Influenza");
+        diagnoseRepository.save(diagnose);
+
+        assertThat(resourceVersions.getCatalogETag(Catalog.DIAGNOSES)).isNotEqualTo(diagnosesETag);
+        assertThat(resourceVersions.getCatalogETag(Catalog.TREATMENTS)).isEqualTo(treatmentsETag);
+    }
+
+    @Test
+    public void appointmentDiagnoseAdded_movesTheDiagnosesVersion() {
+        Diagnose cold = new Diagnose();
+        cold.setName("Cold");
+        cold.setDescription("A mild viral infection of the nose and throat.");
+        Long coldId = diagnoseRepository.save(cold).getId();
+
+        String diagnosesETag = resourceVersions.getCatalogETag(Catalog.DIAGNOSES);
+
+        // Only the appointment's join table rows change, the diagnose rows stay as they are
+        transactionTemplate.executeWithoutResult(status -> appointmentRepository.findById(appointment.getId())
+                .orElseThrow()
+                .getDiagnoses()
+                .add(diagnoseRepository.getReferenceById(coldId)));
+
+        assertThat(resourceVersions.getCatalogETag(Catalog.DIAGNOSES)).isNotEqualTo(diagnosesETag);
+    }
+
+    @Test
+    public void rolledBackWrite_keepsTheVersion() {
+        String diagnosesETag = resourceVersions.getCatalogETag(Catalog.DIAGNOSES);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            diagnoseRepository.findById(diagnose.getId()).orElseThrow().setDescription("Influenza");
+            diagnoseRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(resourceVersions.getCatalogETag(Catalog.DIAGNOSES)).isEqualTo(diagnosesETag);
+    }
+
+    @Test
+    public void patientUpdate_replacesTheCachedVersion() {
+        AtomicInteger loads = new AtomicInteger();
+
+        String eTag = resourceVersions.getPatientETag(patient.getId(), id -> {
+            loads.incrementAndGet();
+            return patientRepository.findVersionById(id).orElseThrow();
+        });
+        resourceVersions.getPatientETag(patient.getId(), id -> {
+            loads.incrementAndGet();
+            return patientRepository.findVersionById(id).orElseThrow();
+        });
+
+        assertThat(loads).hasValue(1);
+
+        patient.setName("Pacient Drug");
+        patient = patientRepository.save(patient);
+
+        String updatedETag = resourceVersions.getPatientETag(patient.getId(), id -> {
+            loads.incrementAndGet();
+            return patientRepository.findVersionById(id).orElseThrow();
+        });
+
+        assertThat(loads).hasValue(2);
+        assertThat(updatedETag).isNotEqualTo(eTag)
+                .isEqualTo("\"patient-" + patient.getId() + "-" + patient.getVersion() + "\"");
+    }
+
+}
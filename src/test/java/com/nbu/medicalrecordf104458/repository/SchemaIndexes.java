@@ -0,0 +1,38 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Reads index definitions from the JDBC metadata of the migrated test schema
+final class SchemaIndexes {
+
+    private SchemaIndexes() {
+        // Private constructor to prevent class instantiation
+    }
+
+    // Columns of the index in key order, empty if the table has no index with that name
+    static List<String> columnsOf(DataSource dataSource, String table, String indexName) throws SQLException {
+        Map<Short, String> columns = new TreeMap<>();
+
+        try (Connection connection = dataSource.getConnection();
+             ResultSet indexInfo = connection.getMetaData()
+                     .getIndexInfo(null, null, table.toUpperCase(Locale.ROOT), false, false)) {
+            while (indexInfo.next()) {
+                if (indexName.equalsIgnoreCase(indexInfo.getString("INDEX_NAME"))) {
+                    columns.put(indexInfo.getShort("ORDINAL_POSITION"),
+                            indexInfo.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+
+        return new ArrayList<>(columns.values());
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.SickLeaveDto;
+import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.DoctorSecurityException;
+import com.nbu.medicalrecordf104458.mapper.SickLeaveMapper;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.SickLeave;
+import com.nbu.medicalrecordf104458.service.DoctorAppointmentService;
+import com.nbu.medicalrecordf104458.service.SickLeaveService;
+import com.nbu.medicalrecordf104458.service.implementation.DoctorAppointmentServiceImpl;
+import com.nbu.medicalrecordf104458.service.implementation.SickLeaveServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Checks that the @PreAuthorize ownership check and the method it guards load the appointment or sick leave once.
+// Each service call opens its own transaction just like a request does
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({DoctorAppointmentServiceImpl.class, SickLeaveServiceImpl.class, SickLeaveMapper.class})
+public class SecuredWriteLoadTest extends CommittedAppointmentTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DoctorAppointmentService appointmentService;
+    @Autowired
+    private SickLeaveService sickLeaveService;
+
+    private Statistics statistics;
+    private Diagnose otherDiagnose;
+
+    @BeforeEach
+    public void setUp() {
+        otherDiagnose = new Diagnose();
+        otherDiagnose.setName("Cold");
+        otherDiagnose.setDescription("A mild viral infection of the nose and throat.");
+        otherDiagnose = diagnoseRepository.save(otherDiagnose);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void addDiagnose_loadsAppointmentOnce() {
+        authenticateDoctor(doctor.getId());
+
+        AppointmentDto result = appointmentService.addDiagnose(appointment.getId(), otherDiagnose.getId());
+
+        assertThat(result.getDiagnoses()).contains(otherDiagnose.getId());
+        assertThat(loadCount(DoctorAppointment.class)).isEqualTo(1);
+    }
+
+    @Test
+    public void createAndDeleteSickLeave_loadEachAggregateOnce() {
+        authenticateDoctor(doctor.getId());
+
+        SickLeaveDto sickLeaveDto = new SickLeaveDto();
+        sickLeaveDto.setStartDate(LocalDate.of(2025, 2, 1));
+        sickLeaveDto.setEndDate(LocalDate.of(2025, 2, 10));
+        sickLeaveDto.setDoctorAppointmentId(appointment.getId());
+
+        SickLeaveDto created = sickLeaveService.createSickLeave(sickLeaveDto);
+
+        assertThat(loadCount(DoctorAppointment.class)).isEqualTo(1);
+
+        statistics.clear();
+        sickLeaveService.deleteSickLeave(created.getId());
+
+        assertThat(loadCount(SickLeave.class)).isEqualTo(1);
+        assertThat(loadCount(DoctorAppointment.class)).isEqualTo(1);
+        assertThat(appointmentRepository.findById(appointment.getId()).orElseThrow().getSickLeave()).isNull();
+    }
+
+    @Test
+    public void addDiagnose_throwsDoctorSecurityExceptionForOtherDoctor() {
+        authenticateDoctor(doctor.getId() + 1);
+
+        assertThatThrownBy(() -> appointmentService.addDiagnose(appointment.getId(), otherDiagnose.getId()))
+                .isInstanceOf(DoctorSecurityException.class);
+        assertThat(appointmentRepository.findDiagnoseIdPairs(List.of(appointment.getId()))).hasSize(1);
+    }
+
+    private long loadCount(Class<?> entityClass) {
+        return statistics.getEntityStatistics(entityClass.getName()).getLoadCount();
+    }
+
+}
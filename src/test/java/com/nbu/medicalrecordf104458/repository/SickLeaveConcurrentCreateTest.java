@@ -0,0 +1,95 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import com.nbu.medicalrecordf104458.dto.SickLeaveDto;
+import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.SickLeaveAlreadyExistsException;
+import com.nbu.medicalrecordf104458.mapper.SickLeaveMapper;
+import com.nbu.medicalrecordf104458.service.SickLeaveService;
+import com.nbu.medicalrecordf104458.service.implementation.SickLeaveServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Fires parallel creates at the same appointment, exactly one sick leave has to end up attached to it and stored
+@Import({SickLeaveServiceImpl.class, SickLeaveMapper.class})
+public class SickLeaveConcurrentCreateTest extends CommittedAppointmentTest {
+
+    private static final int WRITERS = 8;
+
+    @Autowired
+    private SickLeaveRepository sickLeaveRepository;
+    @Autowired
+    private SickLeaveService sickLeaveService;
+
+    @AfterEach
+    public void tearDown() {
+        // Detached from the appointment the way a request does it, deleteAll can't remove both sides of the link
+        authenticateAdmin();
+        sickLeaveRepository.findAll().forEach(sickLeave -> sickLeaveService.deleteSickLeave(sickLeave.getId()));
+    }
+
+    @RepeatedTest(5)
+    public void concurrentCreateSickLeave_attachesExactlyOne() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SickLeaveDto>> creates = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < WRITERS; i++) {
+                LocalDate startDate = LocalDate.of(2025, 2, 1).plusDays(i);
+
+                creates.add(executor.submit(() -> {
+                    authenticateAdmin();
+                    start.await();
+                    return sickLeaveService.createSickLeave(sickLeaveDto(startDate));
+                }));
+            }
+
+            start.countDown();
+
+            List<SickLeaveDto> created = new ArrayList<>();
+            List<Throwable> rejected = new ArrayList<>();
+
+            for (Future<SickLeaveDto> create : creates) {
+                try {
+                    created.add(create.get(30, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    rejected.add(e.getCause());
+                }
+            }
+
+            assertThat(created).hasSize(1);
+            assertThat(rejected).hasSize(WRITERS - 1)
+                    .allMatch(SickLeaveAlreadyExistsException.class::isInstance);
+
+            // The rejected creates rolled their sick leave back, nothing is left without an appointment
+            assertThat(sickLeaveRepository.findAll()).singleElement()
+                    .satisfies(sickLeave -> assertThat(sickLeave.getId()).isEqualTo(created.get(0).getId()));
+            assertThat(appointmentRepository.findById(appointment.getId()).orElseThrow().getSickLeave().getId())
+                    .isEqualTo(created.get(0).getId());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SickLeaveDto sickLeaveDto(LocalDate startDate) {
+        SickLeaveDto sickLeaveDto = new SickLeaveDto();
+        sickLeaveDto.setStartDate(startDate);
+        sickLeaveDto.setEndDate(startDate.plusDays(10));
+        sickLeaveDto.setDoctorAppointmentId(appointment.getId());
+        return sickLeaveDto;
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.nbu.medicalrecordf104458.repository;
 
+import com.nbu.medicalrecordf104458.dto.queries.SickLeaveMonthCountDto;
 import com.nbu.medicalrecordf104458.model.Diagnose;
 import com.nbu.medicalrecordf104458.model.Doctor;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
@@ -14,13 +15,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
@@ -40,6 +46,8 @@ public class SickLeaveRepositoryTest {
     private DoctorAppointmentRepository appointmentRepository;
     @Autowired
     private SickLeaveRepository sickLeaveRepository;
+    @Autowired
+    private DataSource dataSource;
 
     private Specialization specialization;
     private Diagnose diagnose;
@@ -132,4 +140,47 @@ public class SickLeaveRepositoryTest {
         assertThat(deletedSickLeave).isNotPresent();
     }
 
+    @Test
+    public void sickLeaveRepo_findMonthlySickLeaveCountsByCountDesc_returnsBusiestMonthFirst() {
+        saveSickLeave(LocalDate.of(2025, 3, 5));
+        saveSickLeave(LocalDate.of(2025, 3, 20));
+
+        List<SickLeaveMonthCountDto> result = sickLeaveRepository.findMonthlySickLeaveCountsByCountDesc(Limit.of(1));
+
+        assertThat(result).singleElement().satisfies(monthCount -> {
+            assertThat(monthCount.getYear()).isEqualTo(2025);
+            assertThat(monthCount.getMonth()).isEqualTo(3);
+            assertThat(monthCount.getSickLeavesCount()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    public void sickLeaveRepo_findMonthlySickLeaveCounts_returnsMonthsInRange() {
+        saveSickLeave(LocalDate.of(2025, 2, 15));
+        saveSickLeave(LocalDate.of(2025, 4, 1));
+        saveSickLeave(LocalDate.of(2025, 6, 1));
+
+        List<SickLeaveMonthCountDto> result = sickLeaveRepository.findMonthlySickLeaveCounts(
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 4, 30));
+
+        assertThat(result)
+                .extracting(SickLeaveMonthCountDto::getYear, SickLeaveMonthCountDto::getMonth,
+                        SickLeaveMonthCountDto::getSickLeavesCount)
+                .containsExactly(tuple(2025, 2, 2L), tuple(2025, 4, 1L));
+    }
+
+    @Test
+    public void sickLeaveRepo_startDateIndex_exists() throws SQLException {
+        assertThat(SchemaIndexes.columnsOf(dataSource, "sick_leave", "idx_sick_leave_start_date"))
+                .containsExactly("start_date");
+    }
+
+    private void saveSickLeave(LocalDate startDate) {
+        SickLeave newSickLeave = new SickLeave();
+        newSickLeave.setStartDate(startDate);
+        newSickLeave.setEndDate(startDate.plusDays(5));
+        newSickLeave.setDoctorAppointment(appointment);
+        sickLeaveRepository.save(newSickLeave);
+    }
+
 }
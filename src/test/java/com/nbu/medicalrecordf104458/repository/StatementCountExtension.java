@@ -0,0 +1,34 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.List;
+
+// Counts around the test method only, after the @BeforeEach methods and before the @AfterEach ones
+public class StatementCountExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        StatementCountingDataSource.reset();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), MaxStatements.class).ifPresent(max -> {
+            List<String> executed = StatementCountingDataSource.executedStatements();
+
+            if (executed.size() > max.value()) {
+                throw new AssertionError(String.format("Expected at most %d SQL statements, %d were executed:%n%s",
+                        max.value(), executed.size(), String.join(System.lineSeparator(), executed)));
+            }
+        });
+    }
+
+}
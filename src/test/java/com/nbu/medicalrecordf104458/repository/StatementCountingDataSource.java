@@ -0,0 +1,93 @@
+package com.nbu.medicalrecordf104458.repository;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Records the SQL of every statement executed through the wrapped DataSource, a JDBC batch counts once.
+// The record is shared by the whole test JVM, the test classes run one after another
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final List<String> EXECUTED = new CopyOnWriteArrayList<>();
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    public static void reset() {
+        EXECUTED.clear();
+    }
+
+    public static List<String> executedStatements() {
+        return List.copyOf(EXECUTED);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            Object result = invoke(connection, method, args);
+
+            return switch (method.getName()) {
+                case "prepareStatement" -> countingStatement(PreparedStatement.class, (Statement) result, (String) args[0]);
+                case "prepareCall" -> countingStatement(CallableStatement.class, (Statement) result, (String) args[0]);
+                case "createStatement" -> countingStatement(Statement.class, (Statement) result, null);
+                default -> result;
+            };
+        });
+    }
+
+    // A prepared statement knows its SQL up front, a plain one gets it with every execute
+    private static <T extends Statement> T countingStatement(Class<T> type, Statement statement, String preparedSql) {
+        return proxy(type, statement, (method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                EXECUTED.add(preparedSql != null ? preparedSql
+                        : args != null && args.length > 0 ? (String) args[0] : "batch");
+            }
+
+            return invoke(statement, method, args);
+        });
+    }
+
+    // Identity equality for the proxies, so Spring recognises the connection it bound to the transaction
+    private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> handler.handle(method, args);
+                }));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+}
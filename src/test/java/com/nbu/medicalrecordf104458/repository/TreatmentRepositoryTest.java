@@ -97,6 +97,7 @@ public class TreatmentRepositoryTest {
     @AfterEach
     public void tearDown() {
         // Deleting in reverse order to avoid foreign key constraint issues
+        treatmentRepository.deleteAll();
         appointmentRepository.deleteAll();
         patientRepository.deleteAll();
         gpRepository.deleteAll();
@@ -132,6 +133,17 @@ public class TreatmentRepositoryTest {
         assertThat(savedTreatment.getMedicineName()).isEqualTo("Paracetamol");
     }
 
+    @Test
+    public void treatmentRepo_linkAppointment_keepsTreatmentVersion() {
+        Long version = treatment.getVersion();
+
+        treatment.getAppointments().add(appointment);
+        appointment.getTreatments().add(treatment);
+        treatmentRepository.saveAndFlush(treatment);
+
+        assertThat(treatment.getVersion()).isEqualTo(version);
+    }
+
     @Test
     public void treatmentRepo_delete_removesTreatment() {
         treatmentRepository.delete(treatment);
@@ -0,0 +1,217 @@
+package com.nbu.medicalrecordf104458.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nbu.medicalrecordf104458.dto.AppointmentImportErrorDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentImportResultDto;
+import com.nbu.medicalrecordf104458.model.Diagnose;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
+import com.nbu.medicalrecordf104458.model.Patient;
+import com.nbu.medicalrecordf104458.repository.DiagnoseRepository;
+import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
+import com.nbu.medicalrecordf104458.repository.DoctorRepository;
+import com.nbu.medicalrecordf104458.repository.PatientRepository;
+import com.nbu.medicalrecordf104458.repository.SickLeaveRepository;
+import com.nbu.medicalrecordf104458.repository.TreatmentRepository;
+import com.nbu.medicalrecordf104458.service.implementation.AppointmentImportServiceImpl;
+import com.nbu.medicalrecordf104458.utility.AppointmentImportFormat;
+import com.nbu.medicalrecordf104458.utility.AppointmentRecordParser;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AppointmentImportServiceTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private DoctorRepository doctorRepository;
+
+    @Mock
+    private DiagnoseRepository diagnoseRepository;
+
+    @Mock
+    private TreatmentRepository treatmentRepository;
+
+    @Mock
+    private SickLeaveRepository sickLeaveRepository;
+
+    @Mock
+    private DoctorAppointmentRepository appointmentRepository;
+
+    @Spy
+    private AppointmentRecordParser parser = new AppointmentRecordParser(new ObjectMapper().findAndRegisterModules());
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private AppointmentViewService viewService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private AppointmentImportServiceImpl importService;
+
+    private Doctor doctor;
+    private Patient patient;
+    private Diagnose diagnose;
+
+    @BeforeEach
+    void setUp() {
+        diagnose = new Diagnose();
+        diagnose.setId(1L);
+        diagnose.setName("Flu");
+        diagnose.setDescription("A contagious respiratory illness.");
+        diagnose.setAppointments(new HashSet<>());
+
+        doctor = new Doctor();
+        doctor.setId(1L);
+        doctor.setName("Dr. Doctorov");
+        doctor.setAppointments(new HashSet<>());
+
+        GeneralPractitioner gp = new GeneralPractitioner();
+        gp.setId(2L);
+        gp.setName("Dr. Lekar");
+
+        patient = new Patient();
+        patient.setId(1L);
+        patient.setName("Pacientov");
+        patient.setFamilyDoctor(gp);
+        patient.setLastInsurancePayment(LocalDate.of(2025, 1, 31));
+        patient.setUnifiedCivilNumber(1234L);
+    }
+
+    @Test
+    void importService_importAppointments_savesValidRecordsAndReportsTheRest() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+        when(doctorRepository.findAllById(Set.of(1L, 99L))).thenReturn(List.of(doctor));
+        when(patientRepository.findAllById(Set.of(1L))).thenReturn(List.of(patient));
+        when(diagnoseRepository.findAllById(Set.of(1L))).thenReturn(List.of(diagnose));
+
+        String csv = AppointmentRecordParser.CSV_HEADER + "\n" +
+                "2025-01-31,1,1,1,,\n" +
+                "2025-02-01,1,99,1,,\n" +
+                "not-a-date,1,1,1,,\n" +
+                "2025-02-02,1,1,,,\n";
+
+        AppointmentImportResultDto result = importService.importAppointments(
+                new BufferedReader(new StringReader(csv)), AppointmentImportFormat.CSV, 100);
+
+        assertEquals(1, result.getImportedCount());
+        assertEquals(List.of(3L, 4L, 5L), result.getErrors().stream().map(AppointmentImportErrorDto::getLineNumber).toList());
+        assertEquals("No Doctor found with id: 99", result.getErrors().get(0).getMessage());
+        assertTrue(result.getErrors().get(1).getMessage().startsWith("Malformed CSV record"));
+        assertEquals("There must be at least one diagnose for this appointment", result.getErrors().get(2).getMessage());
+
+        verify(appointmentRepository, times(1)).save(any(DoctorAppointment.class));
+        verify(entityManager, times(2)).flush();
+        verify(entityManager).clear();
+    }
+
+    @Test
+    void importService_importAppointments_reportsNullIdsPerRecord() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+        when(doctorRepository.findAllById(Set.of(1L))).thenReturn(List.of(doctor));
+        when(patientRepository.findAllById(Set.of(1L))).thenReturn(List.of(patient));
+        when(diagnoseRepository.findAllById(Set.of(1L))).thenReturn(List.of(diagnose));
+
+        String ndjson = "{\"visitDate\":\"2025-01-31\",\"patientId\":1,\"doctorId\":1,\"diagnoses\":[1,null]}\n" +
+                "{\"visitDate\":\"2025-01-31\",\"patientId\":1,\"doctorId\":1,\"diagnoses\":[1],\"treatments\":[null]}\n" +
+                "{\"visitDate\":\"2025-01-31\",\"patientId\":1,\"doctorId\":1,\"diagnoses\":[1]}\n";
+
+        AppointmentImportResultDto result = importService.importAppointments(
+                new BufferedReader(new StringReader(ndjson)), AppointmentImportFormat.NDJSON, 100);
+
+        assertEquals(1, result.getImportedCount());
+        assertEquals(List.of(1L, 2L), result.getErrors().stream().map(AppointmentImportErrorDto::getLineNumber).toList());
+        assertEquals("Diagnose ids cannot be null", result.getErrors().get(0).getMessage());
+        assertEquals("Treatment ids cannot be null", result.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    void importService_importAppointments_rejectsDeletedRecords() {
+        doctor.setDeleted(true);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+        when(doctorRepository.findAllById(Set.of(1L))).thenReturn(List.of(doctor));
+        when(patientRepository.findAllById(Set.of(1L))).thenReturn(List.of(patient));
+        when(diagnoseRepository.findAllById(Set.of(1L))).thenReturn(List.of(diagnose));
+
+        String ndjson = "{\"visitDate\":\"2025-01-31\",\"patientId\":1,\"doctorId\":1,\"diagnoses\":[1]}\n";
+
+        AppointmentImportResultDto result = importService.importAppointments(
+                new BufferedReader(new StringReader(ndjson)), AppointmentImportFormat.NDJSON, 100);
+
+        assertEquals(0, result.getImportedCount());
+        assertEquals("You can't use records that are marked for deletion!", result.getErrors().get(0).getMessage());
+        verify(appointmentRepository, never()).save(any(DoctorAppointment.class));
+    }
+
+    @Test
+    void importService_importAppointments_splitsIntoChunks() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+        when(doctorRepository.findAllById(Set.of(1L))).thenReturn(List.of(doctor));
+        when(patientRepository.findAllById(Set.of(1L))).thenReturn(List.of(patient));
+        when(diagnoseRepository.findAllById(Set.of(1L))).thenReturn(List.of(diagnose));
+
+        String record = "{\"visitDate\":\"2025-01-31\",\"patientId\":1,\"doctorId\":1,\"diagnoses\":[1]}\n";
+
+        AppointmentImportResultDto result = importService.importAppointments(
+                new BufferedReader(new StringReader(record.repeat(5))), AppointmentImportFormat.NDJSON, 2);
+
+        assertEquals(5, result.getImportedCount());
+        assertTrue(result.getErrors().isEmpty());
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void importService_importAppointments_throwsIllegalArgumentExceptionForChunkSize() {
+        BufferedReader reader = new BufferedReader(new StringReader(""));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                importService.importAppointments(reader, AppointmentImportFormat.NDJSON, 0));
+    }
+
+}
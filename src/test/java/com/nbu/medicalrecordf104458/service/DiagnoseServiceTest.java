@@ -10,6 +10,7 @@ import com.nbu.medicalrecordf104458.model.Patient;
 import com.nbu.medicalrecordf104458.model.Specialization;
 import com.nbu.medicalrecordf104458.repository.DiagnoseRepository;
 import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
+import com.nbu.medicalrecordf104458.service.AppointmentViewService;
 import com.nbu.medicalrecordf104458.service.implementation.DiagnoseServiceImpl;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,6 +22,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -46,6 +48,9 @@ public class DiagnoseServiceTest {
     @Mock
     private DiagnoseMapper diagnoseMapper;
 
+    @Mock
+    private AppointmentViewService viewService;
+
     @InjectMocks
     private DiagnoseServiceImpl diagnoseService;
 
@@ -164,6 +169,7 @@ public class DiagnoseServiceTest {
         verify(diagnoseRepository, times(1)).findById(1L);
         verify(diagnoseRepository, times(1)).save(diagnose);
         verify(appointmentRepository, times(1)).findById(1L);
+        verify(viewService, times(1)).refreshAppointments(Set.of(1L));
         verify(diagnoseMapper, times(1)).convertToDto(any(Diagnose.class));
     }
 
@@ -241,6 +247,7 @@ public class DiagnoseServiceTest {
         verify(diagnoseRepository, times(1)).findById(1L);
         verify(appointmentRepository, times(1)).findById(1L);
         verify(diagnoseRepository, times(1)).save(any(Diagnose.class));
+        verify(viewService, times(1)).refreshAppointments(List.of(1L));
         verify(diagnoseMapper, times(1)).convertToDto(any(Diagnose.class));
     }
 
@@ -259,6 +266,7 @@ public class DiagnoseServiceTest {
         verify(diagnoseRepository, times(1)).findById(1L);
         verify(appointmentRepository, times(1)).findById(1L);
         verify(diagnoseRepository, times(1)).save(any(Diagnose.class));
+        verify(viewService, times(1)).refreshAppointments(List.of(1L));
         verify(diagnoseMapper, times(1)).convertToDto(any(Diagnose.class));
     }
 
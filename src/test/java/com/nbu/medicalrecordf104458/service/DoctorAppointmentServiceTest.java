@@ -1,7 +1,10 @@
 package com.nbu.medicalrecordf104458.service;
 
 import com.nbu.medicalrecordf104458.dto.AppointmentDto;
+import com.nbu.medicalrecordf104458.dto.AppointmentPageDto;
+import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.StaleVersionException;
 import com.nbu.medicalrecordf104458.mapper.DoctorAppointmentMapper;
+import com.nbu.medicalrecordf104458.model.AppointmentView;
 import com.nbu.medicalrecordf104458.model.Diagnose;
 import com.nbu.medicalrecordf104458.model.Doctor;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
@@ -10,6 +13,7 @@ import com.nbu.medicalrecordf104458.model.Patient;
 import com.nbu.medicalrecordf104458.model.SickLeave;
 import com.nbu.medicalrecordf104458.model.Specialization;
 import com.nbu.medicalrecordf104458.model.Treatment;
+import com.nbu.medicalrecordf104458.repository.AppointmentViewRepository;
 import com.nbu.medicalrecordf104458.repository.DiagnoseRepository;
 import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
 import com.nbu.medicalrecordf104458.repository.DoctorRepository;
@@ -17,6 +21,7 @@ import com.nbu.medicalrecordf104458.repository.PatientRepository;
 import com.nbu.medicalrecordf104458.repository.SickLeaveRepository;
 import com.nbu.medicalrecordf104458.repository.TreatmentRepository;
 import com.nbu.medicalrecordf104458.service.implementation.DoctorAppointmentServiceImpl;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,19 +29,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -65,6 +75,14 @@ public class DoctorAppointmentServiceTest {
     @Mock
     private TreatmentRepository treatmentRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private AppointmentViewRepository viewRepository;
+
+    @Mock
+    private AppointmentViewService viewService;
 
     @InjectMocks
     private DoctorAppointmentServiceImpl appointmentService;
@@ -73,6 +91,7 @@ public class DoctorAppointmentServiceTest {
     private AppointmentDto appointmentDto;
     private Diagnose diagnose;
     private DoctorAppointment appointment;
+    private AppointmentView appointmentView;
     private Specialization specialization;
     private GeneralPractitioner gp;
     private Patient patient;
@@ -126,6 +145,10 @@ public class DoctorAppointmentServiceTest {
         sickLeave.setDoctorAppointment(appointment);
         appointment.setSickLeave(sickLeave);
 
+        appointmentView = new AppointmentView(1L, 0L, LocalDate.of(2025, 1, 31), doctor.getId(), doctor.getName(),
+                patient.getId(), patient.getName(), sickLeave.getId());
+        appointmentView.setDiagnoseIds(Set.of(diagnose.getId()));
+
         appointmentDto = new AppointmentDto();
         appointmentDto.setId(1L);
         appointmentDto.setVisitDate(LocalDate.of(2025, 1, 31));
@@ -137,20 +160,76 @@ public class DoctorAppointmentServiceTest {
 
     @Test
     public void doctorAppointmentService_getAllAppointments_returnsAllAppointments() {
-        when(appointmentRepository.findAll()).thenReturn(List.of(appointment));
-        when(appointmentMapper.convertToDto(any(DoctorAppointment.class))).thenReturn(appointmentDto);
+        when(viewRepository.findAll()).thenReturn(List.of(appointmentView));
+        when(appointmentMapper.convertToDto(appointmentView)).thenReturn(appointmentDto);
 
         Set<AppointmentDto> result = appointmentService.getAllAppointments();
 
         assertEquals(1, result.size());
-        verify(appointmentRepository, times(1)).findAll();
-        verify(appointmentMapper, times(1)).convertToDto(any(DoctorAppointment.class));
+        verify(viewRepository, times(1)).findAll();
+        verify(appointmentRepository, never()).findAll();
+    }
+
+    @Test
+    void doctorAppointmentService_getAppointmentsPage_returnsFirstPageWithCursor() {
+        AppointmentView appointmentView2 = new AppointmentView();
+        appointmentView2.setAppointmentId(2L);
+        appointmentView2.setVisitDate(LocalDate.of(2025, 2, 1));
+
+        when(viewRepository.findAllByOrderByVisitDateAscAppointmentIdAsc(Limit.of(2))).thenReturn(List.of(appointmentView, appointmentView2));
+        when(appointmentMapper.convertToDto(appointmentView)).thenReturn(appointmentDto);
+
+        AppointmentPageDto result = appointmentService.getAppointmentsPage(null, null, 1);
+
+        assertEquals(List.of(appointmentDto), result.getAppointments());
+        assertEquals(appointmentDto.getVisitDate(), result.getNextVisitDate());
+        assertEquals(appointmentDto.getId(), result.getNextId());
+    }
+
+    @Test
+    void doctorAppointmentService_getAppointmentsPage_returnsLastPageWithoutCursor() {
+        LocalDate afterVisitDate = LocalDate.of(2025, 1, 1);
+
+        when(viewRepository.findPageAfter(afterVisitDate, 7L, Limit.of(11))).thenReturn(List.of(appointmentView));
+        when(appointmentMapper.convertToDto(appointmentView)).thenReturn(appointmentDto);
+
+        AppointmentPageDto result = appointmentService.getAppointmentsPage(afterVisitDate, 7L, 10);
+
+        assertEquals(1, result.getAppointments().size());
+        assertNull(result.getNextVisitDate());
+        assertNull(result.getNextId());
+    }
+
+    @Test
+    void doctorAppointmentService_getAppointmentsPage_throwsIllegalArgumentExceptionForInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> appointmentService.getAppointmentsPage(null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> appointmentService.getAppointmentsPage(null, null, 501));
+    }
+
+    @Test
+    void doctorAppointmentService_getAppointmentsPage_throwsIllegalArgumentExceptionForHalfCursor() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            appointmentService.getAppointmentsPage(LocalDate.of(2025, 1, 1), null, 10);
+        });
+
+        assertEquals("Both afterVisitDate and afterId are required to continue from a cursor.", exception.getMessage());
+    }
+
+    @Test
+    void doctorAppointmentService_streamAllAppointments_passesEveryAppointmentToConsumer() {
+        when(viewRepository.streamAllOrderedByVisitDate()).thenReturn(Stream.of(appointmentView, appointmentView));
+        when(appointmentMapper.convertToDto(appointmentView)).thenReturn(appointmentDto);
+
+        List<AppointmentDto> result = new ArrayList<>();
+        appointmentService.streamAllAppointments(result::add);
+
+        assertEquals(List.of(appointmentDto, appointmentDto), result);
     }
 
     @Test
     void doctorAppointmentService_getAppointmentById_returnsDoctorDto() {
-        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(appointment));
-        when(appointmentMapper.convertToDto(any(DoctorAppointment.class))).thenReturn(appointmentDto);
+        when(viewRepository.findById(1L)).thenReturn(Optional.of(appointmentView));
+        when(appointmentMapper.convertToDto(appointmentView)).thenReturn(appointmentDto);
 
         AppointmentDto result = appointmentService.getAppointmentById(1L);
 
@@ -160,7 +239,7 @@ public class DoctorAppointmentServiceTest {
 
     @Test
     void doctorAppointmentService_getAppointmentById_throwsEntityNotFound() {
-        when(appointmentRepository.findById(1L)).thenReturn(Optional.empty());
+        when(viewRepository.findById(1L)).thenReturn(Optional.empty());
 
         EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> {
             appointmentService.getAppointmentById(1L);
@@ -179,6 +258,7 @@ public class DoctorAppointmentServiceTest {
 
         assertNotNull(result);
         assertEquals(appointment.getId(), result.getId());
+        verify(viewService).addAppointments(List.of(appointment.getId()));
     }
 
     @Test
@@ -206,17 +286,84 @@ public class DoctorAppointmentServiceTest {
         newAppointmentDto.setSickLeaveId(sickLeave.getId());
 
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(appointment));
-        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
-        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
-        when(diagnoseRepository.findById(1L)).thenReturn(Optional.of(diagnose));
-        when(sickLeaveRepository.findById(1L)).thenReturn(Optional.of(sickLeave));
-        when(appointmentRepository.save(appointment)).thenReturn(appointment);
+        when(appointmentMapper.findDiagnoses(Set.of(1L), appointment.getDiagnoses())).thenReturn(Set.of(diagnose));
+        when(appointmentRepository.saveAndFlush(appointment)).thenReturn(appointment);
         when(appointmentMapper.convertToDto(appointment)).thenReturn(newAppointmentDto);
 
         AppointmentDto result = appointmentService.updateAppointment(1L, newAppointmentDto);
 
         assertNotNull(result);
         assertEquals((LocalDate.of(2025, 1, 31)), result.getVisitDate());
+        // Patient, doctor and sick leave are unchanged, so the loaded references are reused
+        verify(patientRepository, never()).findById(any());
+        verify(doctorRepository, never()).findById(any());
+        verify(sickLeaveRepository, never()).findById(any());
+        verify(viewService).refreshAppointments(List.of(appointment.getId()));
+    }
+
+    @Test
+    void doctorAppointmentService_updateAppointment_loadsChangedPatient() {
+        Patient newPatient = new Patient();
+        newPatient.setId(2L);
+
+        AppointmentDto newAppointmentDto = new AppointmentDto();
+        newAppointmentDto.setVisitDate(LocalDate.of(2025, 1, 31));
+        newAppointmentDto.setDoctorId(doctor.getId());
+        newAppointmentDto.setPatientId(newPatient.getId());
+        newAppointmentDto.setDiagnoses(new HashSet<>(Set.of(diagnose.getId())));
+
+        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(appointment));
+        when(patientRepository.findById(2L)).thenReturn(Optional.of(newPatient));
+        when(appointmentMapper.findDiagnoses(Set.of(1L), appointment.getDiagnoses())).thenReturn(Set.of(diagnose));
+        when(appointmentRepository.saveAndFlush(appointment)).thenReturn(appointment);
+
+        appointmentService.updateAppointment(1L, newAppointmentDto);
+
+        assertEquals(newPatient, appointment.getPatient());
+    }
+
+    @Test
+    void doctorAppointmentService_updateAppointment_throwsEntityNotFoundForDeletedDiagnoses() {
+        Diagnose deletedDiagnose = new Diagnose();
+        deletedDiagnose.setId(3L);
+        deletedDiagnose.setDeleted(true);
+
+        AppointmentDto newAppointmentDto = new AppointmentDto();
+        newAppointmentDto.setVisitDate(LocalDate.of(2025, 1, 31));
+        newAppointmentDto.setDoctorId(doctor.getId());
+        newAppointmentDto.setPatientId(patient.getId());
+        newAppointmentDto.setDiagnoses(new HashSet<>(Set.of(1L, 3L)));
+
+        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(appointment));
+        when(appointmentMapper.findDiagnoses(Set.of(1L, 3L), appointment.getDiagnoses())).thenReturn(Set.of(diagnose, deletedDiagnose));
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> {
+            appointmentService.updateAppointment(1L, newAppointmentDto);
+        });
+
+        assertEquals("No Diagnose found with ids: [3]", exception.getMessage());
+    }
+
+    @Test
+    void doctorAppointmentService_updateAppointment_throwsStaleVersionException() {
+        appointment.setVersion(3L);
+
+        AppointmentDto newAppointmentDto = new AppointmentDto();
+        newAppointmentDto.setVisitDate(LocalDate.of(2025, 1, 31));
+        newAppointmentDto.setDoctorId(doctor.getId());
+        newAppointmentDto.setPatientId(patient.getId());
+        newAppointmentDto.setDiagnoses(new HashSet<>(Set.of(diagnose.getId())));
+        newAppointmentDto.setVersion(2L);
+
+        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(appointment));
+
+        StaleVersionException exception = assertThrows(StaleVersionException.class, () -> {
+            appointmentService.updateAppointment(1L, newAppointmentDto);
+        });
+
+        assertEquals("The appointment with id: 1 was changed since version 2, the current version is 3", exception.getMessage());
+        verify(appointmentRepository, never()).saveAndFlush(any());
+        verify(viewService, never()).refreshAppointments(any());
     }
 
     @Test
@@ -244,6 +391,7 @@ public class DoctorAppointmentServiceTest {
         appointmentService.deleteAppointment(1L);
 
         verify(appointmentRepository).delete(appointment);
+        verify(viewService).refreshAppointments(List.of(1L));
     }
 
     @Test
@@ -254,7 +402,7 @@ public class DoctorAppointmentServiceTest {
 
         appointmentService.addDiagnose(1L, 2L);
 
-        verify(appointmentRepository).save(appointment);
+        verify(appointmentRepository).saveAndFlush(appointment);
         assertTrue(appointment.getDiagnoses().contains(diagnose1));
     }
 
@@ -278,7 +426,7 @@ public class DoctorAppointmentServiceTest {
 
         appointmentService.removeDiagnose(1L, 2L);
 
-        verify(appointmentRepository).save(appointment);
+        verify(appointmentRepository).saveAndFlush(appointment);
         assertFalse(appointment.getDiagnoses().contains(diagnose1));
     }
 
@@ -300,9 +448,12 @@ public class DoctorAppointmentServiceTest {
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(appointment));
         when(treatmentRepository.findById(2L)).thenReturn(Optional.of(treatment1));
 
+        when(appointmentRepository.saveAndFlush(appointment)).thenReturn(appointment);
+
         appointmentService.addTreatment(1L, 2L);
 
-        verify(appointmentRepository).save(appointment);
+        verify(appointmentRepository).saveAndFlush(appointment);
+        verify(viewService).refreshAppointments(List.of(appointment.getId()));
         assertTrue(appointment.getTreatments().contains(treatment1));
     }
 
@@ -327,7 +478,7 @@ public class DoctorAppointmentServiceTest {
 
         appointmentService.removeTreatment(1L, 2L);
 
-        verify(appointmentRepository).save(appointment);
+        verify(appointmentRepository).saveAndFlush(appointment);
         assertFalse(appointment.getTreatments().contains(treatment1));
     }
 
@@ -358,10 +509,10 @@ public class DoctorAppointmentServiceTest {
         newAppointmentDto.setSickLeaveId(sickLeave.getId());
 
         Set<AppointmentDto> expectedAppointmentsDtos = Set.of(appointmentDto);
-        Set<DoctorAppointment> expectedAppointments = Set.of(appointment);
+        List<AppointmentView> expectedAppointments = List.of(appointmentView);
 
-        when(appointmentRepository.findVisitsByDateRange(startDate, endDate)).thenReturn(expectedAppointments);
-        when(appointmentMapper.convertToDto(any(DoctorAppointment.class))).thenReturn(appointmentDto);
+        when(viewRepository.findAllByVisitDateBetween(startDate, endDate)).thenReturn(expectedAppointments);
+        when(appointmentMapper.convertToDto(appointmentView)).thenReturn(appointmentDto);
 
         Set<AppointmentDto> result = appointmentService.findVisitsByDateRange(startDate, endDate);
 
@@ -384,12 +535,12 @@ public class DoctorAppointmentServiceTest {
         newAppointmentDto.setDiagnoses(new HashSet<>(Set.of(diagnose.getId())));
         newAppointmentDto.setSickLeaveId(sickLeave.getId());
 
-        Set<DoctorAppointment> expectedAppointments = Set.of(appointment);
+        List<AppointmentView> expectedAppointments = List.of(appointmentView);
         Set<AppointmentDto> expectedAppointmentsDtos = Set.of(appointmentDto);
 
         when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
-        when(appointmentRepository.findAppointmentsByDoctorAndDateRange(1L, startDate, endDate)).thenReturn(expectedAppointments);
-        when(appointmentMapper.convertToDto(any(DoctorAppointment.class))).thenReturn(appointmentDto);
+        when(viewRepository.findAllByDoctorIdAndVisitDateBetween(1L, startDate, endDate)).thenReturn(expectedAppointments);
+        when(appointmentMapper.convertToDto(appointmentView)).thenReturn(appointmentDto);
 
         Set<AppointmentDto> result = appointmentService.findAppointmentsByDoctorAndDateRange(doctorId, startDate, endDate);
 
@@ -2,6 +2,7 @@ package com.nbu.medicalrecordf104458.service;
 
 import com.nbu.medicalrecordf104458.dto.DoctorDto;
 import com.nbu.medicalrecordf104458.dto.queries.DoctorAppointmentsCountDto;
+import com.nbu.medicalrecordf104458.dto.queries.DoctorSickLeavesCountDto;
 import com.nbu.medicalrecordf104458.mapper.DoctorMapper;
 import com.nbu.medicalrecordf104458.model.Diagnose;
 import com.nbu.medicalrecordf104458.model.Doctor;
@@ -32,6 +33,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -48,6 +50,9 @@ public class DoctorServiceTest {
     @Mock
     private SpecializationRepository specializationRepository;
 
+    @Mock
+    private AppointmentViewService viewService;
+
     @InjectMocks
     private DoctorServiceImpl doctorService;
 
@@ -174,10 +179,10 @@ public class DoctorServiceTest {
 
     @Test
     void doctorService_updateDoctor_returnsDoctorDto() {
-        DoctorDto updateDto = new DoctorDto(1L, "Dr. John Updated", Set.of(specialization.getId()));
+        DoctorDto updateDto = new DoctorDto(1L, "Dr. John Updated", Set.of(specialization.getId()), null);
         when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
         when(specializationRepository.findById(1L)).thenReturn(Optional.of(specialization));
-        when(doctorRepository.save(doctor)).thenReturn(doctor);
+        when(doctorRepository.saveAndFlush(doctor)).thenReturn(doctor);
         when(doctorMapper.convertToDto(doctor)).thenReturn(updateDto);
 
         DoctorDto result = doctorService.updateDoctor(1L, updateDto);
@@ -188,7 +193,7 @@ public class DoctorServiceTest {
 
     @Test
     void doctorService_updateDoctor_throwsEntityNotFound() {
-        DoctorDto updateDto = new DoctorDto(1L, "Dr. John Updated", Set.of());
+        DoctorDto updateDto = new DoctorDto(1L, "Dr. John Updated", Set.of(), null);
         when(doctorRepository.findById(1L)).thenReturn(Optional.empty());
 
         EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> {
@@ -227,7 +232,7 @@ public class DoctorServiceTest {
 
         doctorService.addSpecialization(1L, 2L);
 
-        verify(doctorRepository).save(doctor);
+        verify(doctorRepository).saveAndFlush(doctor);
         assertTrue(doctor.getSpecializations().contains(specialization));
     }
 
@@ -258,7 +263,7 @@ public class DoctorServiceTest {
 
        doctorService.removeSpecialization(1L, 2L);
 
-        verify(doctorRepository).save(doctor);
+        verify(doctorRepository).saveAndFlush(doctor);
         assertFalse(doctor.getSpecializations().contains(specializationToRemove));
     }
 
@@ -310,43 +315,18 @@ public class DoctorServiceTest {
     }
 
     @Test
-    void doctorService_findDoctorsWithMostSickLeaves_returnsDoctorDto() {
-        doctor.setDeleted(false);
-        doctor.getAppointments().add(appointment);
+    void doctorService_findDoctorsWithMostSickLeaves_returnsSickLeavesCountDtos() {
+        Set<DoctorSickLeavesCountDto> countDtos = Set.of(
+                new DoctorSickLeavesCountDto(1L, "Dr. Doctorov", 1L),
+                new DoctorSickLeavesCountDto(2L, "Dr. Lekar", 1L));
 
-        Doctor doctor2 = new Doctor();
-        doctor2.setId(2L);
-        doctor2.setName("Dr. Lekar");
-        doctor2.setAppointments(new HashSet<>());
-        doctor2.setDeleted(false);
-        doctor2.setSpecializations(new HashSet<>(Set.of(specialization)));
+        when(doctorRepository.findDoctorsWithMostSickLeaves()).thenReturn(countDtos);
 
-        DoctorAppointment appointment2 = new DoctorAppointment();
-        appointment2.setId(2L);
-        appointment2.setVisitDate(LocalDate.of(2025, 2, 1));
-        appointment2.setDoctor(doctor2);
-        appointment2.setPatient(patient);
-        appointment2.setDiagnoses(new HashSet<>());
+        Set<DoctorSickLeavesCountDto> result = doctorService.findDoctorsWithMostSickLeaves();
 
-        SickLeave sickLeave2 = new SickLeave();
-        sickLeave2.setId(2L);
-        sickLeave2.setStartDate(LocalDate.of(2025, 2, 1));
-        sickLeave2.setEndDate(LocalDate.of(2025, 2, 5));
-        sickLeave2.setDoctorAppointment(appointment2);
-
-        appointment2.setSickLeave(sickLeave2);
-        doctor2.getAppointments().add(appointment2);
-
-        when(doctorRepository.findAllByDeletedFalse()).thenReturn(Set.of(doctor, doctor2));
-        when(doctorRepository.findById(doctor.getId())).thenReturn(Optional.of(doctor));
-        when(doctorRepository.findById(doctor2.getId())).thenReturn(Optional.of(doctor2));
-
-        Set<DoctorDto> result = doctorService.findDoctorsWithMostSickLeaves();
-
-        assertNotNull(result);
-        assertFalse(result.isEmpty());
-        assertTrue(result.stream().anyMatch(d -> d.getId() == 1L));
-        assertTrue(result.stream().anyMatch(d -> d.getId() == 2L));
+        assertEquals(countDtos, result);
+        verify(doctorRepository, times(1)).findDoctorsWithMostSickLeaves();
+        verify(doctorRepository, never()).findById(any());
     }
 
 }
@@ -25,6 +25,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -53,6 +54,9 @@ public class GeneralPractitionerServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private AppointmentViewService viewService;
+
     @InjectMocks
     private GeneralPractitionerServiceImpl gpService;
 
@@ -128,13 +132,13 @@ public class GeneralPractitionerServiceTest {
     @Test
     public void gpService_getAllGps_returnsAllGps() {
         when(gpRepository.findAllByDeletedFalse()).thenReturn(Set.of(gp));
-        when(gpMapper.convertToDto(any(GeneralPractitioner.class))).thenReturn(gpDto);
+        when(gpMapper.convertToDtos(Set.of(gp))).thenReturn(List.of(gpDto));
 
         Set<GeneralPractitionerDto> result = gpService.getAllDoctors();
 
         assertEquals(1, result.size());
         verify(gpRepository, times(1)).findAllByDeletedFalse();
-        verify(gpMapper, times(1)).convertToDto(any(GeneralPractitioner.class));
+        verify(gpMapper, times(1)).convertToDtos(Set.of(gp));
     }
 
     @Test
@@ -195,7 +199,7 @@ public class GeneralPractitionerServiceTest {
         when(gpRepository.findById(2L)).thenReturn(Optional.of(gp));
         when(specializationRepository.findById(1L)).thenReturn(Optional.of(specialization));
         when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
-        when(gpRepository.save(gp)).thenReturn(gp);
+        when(gpRepository.saveAndFlush(gp)).thenReturn(gp);
         when(gpMapper.convertToDto(gp)).thenReturn(updateGpDto);
 
         GeneralPractitionerDto result = gpService.updateDoctor(2L, updateGpDto);
@@ -252,7 +256,7 @@ public class GeneralPractitionerServiceTest {
 
         gpService.addSpecialization(2L, 2L);
 
-        verify(gpRepository).save(gp);
+        verify(gpRepository).saveAndFlush(gp);
         assertTrue(gp.getSpecializations().contains(specialization));
     }
 
@@ -283,7 +287,7 @@ public class GeneralPractitionerServiceTest {
 
         gpService.removeSpecialization(2L, 2L);
 
-        verify(gpRepository).save(gp);
+        verify(gpRepository).saveAndFlush(gp);
         assertFalse(gp.getSpecializations().contains(specializationToRemove));
     }
 
@@ -308,7 +312,7 @@ public class GeneralPractitionerServiceTest {
 
         gpService.addPatient(2L, 2L);
 
-        verify(gpRepository).save(gp);
+        verify(gpRepository).saveAndFlush(gp);
         assertTrue(gp.getPatients().contains(addPatient));
     }
 
@@ -333,7 +337,7 @@ public class GeneralPractitionerServiceTest {
 
         gpService.removePatient(2L, 2L);
 
-        verify(gpRepository).save(gp);
+        verify(gpRepository).saveAndFlush(gp);
         assertFalse(gp.getPatients().contains(removePatient));
     }
 
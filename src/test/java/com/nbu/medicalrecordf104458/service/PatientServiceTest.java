@@ -2,8 +2,10 @@ package com.nbu.medicalrecordf104458.service;
 
 import com.nbu.medicalrecordf104458.dto.AppointmentDto;
 import com.nbu.medicalrecordf104458.dto.PatientDto;
+import com.nbu.medicalrecordf104458.dto.history.PatientHistoryEntryDto;
 import com.nbu.medicalrecordf104458.mapper.DoctorAppointmentMapper;
 import com.nbu.medicalrecordf104458.mapper.PatientMapper;
+import com.nbu.medicalrecordf104458.model.AppointmentView;
 import com.nbu.medicalrecordf104458.model.Diagnose;
 import com.nbu.medicalrecordf104458.model.Doctor;
 import com.nbu.medicalrecordf104458.model.DoctorAppointment;
@@ -11,10 +13,12 @@ import com.nbu.medicalrecordf104458.model.GeneralPractitioner;
 import com.nbu.medicalrecordf104458.model.Patient;
 import com.nbu.medicalrecordf104458.model.SickLeave;
 import com.nbu.medicalrecordf104458.model.Specialization;
+import com.nbu.medicalrecordf104458.repository.AppointmentViewRepository;
 import com.nbu.medicalrecordf104458.repository.DiagnoseRepository;
 import com.nbu.medicalrecordf104458.repository.GeneralPractitionerRepository;
 import com.nbu.medicalrecordf104458.repository.PatientRepository;
 import com.nbu.medicalrecordf104458.service.implementation.PatientServiceImpl;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,9 +28,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -34,6 +41,9 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -56,6 +66,15 @@ public class PatientServiceTest {
     @Mock
     private GeneralPractitionerRepository gpRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private AppointmentViewRepository viewRepository;
+
+    @Mock
+    private AppointmentViewService viewService;
+
     @InjectMocks
     private PatientServiceImpl patientService;
 
@@ -195,10 +214,10 @@ public class PatientServiceTest {
 
     @Test
     void patientService_updatePatient_returnsPatientDto() {
-        PatientDto updateDto = new PatientDto(1L, "Pacient nov", gp.getId(), LocalDate.of(2025, 1, 31), 2L);
+        PatientDto updateDto = new PatientDto(1L, "Pacient nov", gp.getId(), LocalDate.of(2025, 1, 31), 2L, null);
         when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
         when(gpRepository.findById(2L)).thenReturn(Optional.of(gp));
-        when(patientRepository.save(patient)).thenReturn(patient);
+        when(patientRepository.saveAndFlush(patient)).thenReturn(patient);
         when(patientMapper.convertToDto(patient)).thenReturn(updateDto);
 
         PatientDto result = patientService.updatePatient(1L, updateDto);
@@ -209,7 +228,7 @@ public class PatientServiceTest {
 
     @Test
     void patientService_updatePatient_throwsEntityNotFound() {
-        PatientDto updateDto = new PatientDto(1L, "Pacient nov", gp.getId(), LocalDate.of(2025, 1, 31), 2L);
+        PatientDto updateDto = new PatientDto(1L, "Pacient nov", gp.getId(), LocalDate.of(2025, 1, 31), 2L, null);
         when(patientRepository.findById(1L)).thenReturn(Optional.empty());
 
         EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> {
@@ -298,8 +317,11 @@ public class PatientServiceTest {
     @Test
     void patientService_getVisitsByPatient_returnsAppointmentDtos() {
         when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
-        when(patientRepository.findVisitsByPatientId(1L)).thenReturn(Set.of(appointment));
-        when(appointmentMapper.convertToDto(appointment)).thenReturn(appointmentDto);
+        AppointmentView appointmentView = new AppointmentView();
+        appointmentView.setAppointmentId(appointment.getId());
+
+        when(viewRepository.findAllByPatientId(1L)).thenReturn(List.of(appointmentView));
+        when(appointmentMapper.convertToDto(appointmentView)).thenReturn(appointmentDto);
 
         Set<AppointmentDto> result = patientService.getVisitsByPatient(1L);
 
@@ -308,4 +330,30 @@ public class PatientServiceTest {
         assertTrue(result.contains(appointmentDto));
     }
 
+    @Test
+    void patientService_streamVisitHistory_passesEntriesToConsumer() {
+        PatientHistoryEntryDto entry = new PatientHistoryEntryDto();
+        entry.setAppointmentId(appointment.getId());
+
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+        when(patientRepository.streamVisitsByPatientId(1L)).thenReturn(Stream.of(appointment));
+        when(appointmentMapper.convertToHistoryEntries(eq(List.of(appointment)), anyMap(), anyMap())).thenReturn(List.of(entry));
+
+        List<PatientHistoryEntryDto> result = new ArrayList<>();
+        patientService.streamVisitHistory(1L, result::add);
+
+        assertEquals(List.of(entry), result);
+        verify(entityManager).clear();
+    }
+
+    @Test
+    void patientService_streamVisitHistory_throwsEntityNotFoundException() {
+        patient.setDeleted(true);
+
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+
+        assertThrows(EntityNotFoundException.class, () -> patientService.streamVisitHistory(1L, entry -> {}));
+        verify(patientRepository, never()).streamVisitsByPatientId(1L);
+    }
+
 }
@@ -1,6 +1,8 @@
 package com.nbu.medicalrecordf104458.service;
 
 import com.nbu.medicalrecordf104458.dto.SickLeaveDto;
+import com.nbu.medicalrecordf104458.dto.queries.SickLeaveMonthCountDto;
+import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.InvalidDateException;
 import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.SickLeaveAlreadyExistsException;
 import com.nbu.medicalrecordf104458.mapper.SickLeaveMapper;
 import com.nbu.medicalrecordf104458.model.Diagnose;
@@ -20,6 +22,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDate;
 import java.time.Month;
@@ -35,6 +38,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -51,6 +55,9 @@ public class SickLeaveServiceTest {
     @Mock
     private DoctorAppointmentRepository appointmentRepository;
 
+    @Mock
+    private AppointmentViewService viewService;
+
     @InjectMocks
     private SickLeaveServiceImpl sickLeaveService;
 
@@ -157,7 +164,8 @@ public class SickLeaveServiceTest {
         appointment.setSickLeave(null);
 
         when(sickLeaveMapper.convertToEntity(sickLeaveDto)).thenReturn(sickLeave);
-        when(sickLeaveRepository.save(sickLeave)).thenReturn(sickLeave);
+        when(sickLeaveRepository.saveAndFlush(sickLeave)).thenReturn(sickLeave);
+        when(appointmentRepository.attachSickLeave(appointment.getId(), sickLeave)).thenReturn(1);
         when(sickLeaveMapper.convertToDto(sickLeave)).thenReturn(sickLeaveDto);
 
         SickLeaveDto result = sickLeaveService.createSickLeave(sickLeaveDto);
@@ -169,6 +177,8 @@ public class SickLeaveServiceTest {
     @Test
     void sickLeaveService_createSickLeave_throwsSickLeaveAlreadyExistsException() {
         when(sickLeaveMapper.convertToEntity(sickLeaveDto)).thenReturn(sickLeave);
+        when(sickLeaveRepository.saveAndFlush(sickLeave)).thenReturn(sickLeave);
+        when(appointmentRepository.attachSickLeave(appointment.getId(), sickLeave)).thenReturn(0);
 
         SickLeaveAlreadyExistsException exception = assertThrows(SickLeaveAlreadyExistsException.class, () -> sickLeaveService.createSickLeave(sickLeaveDto));
 
@@ -185,7 +195,7 @@ public class SickLeaveServiceTest {
 
         when(sickLeaveRepository.findById(1L)).thenReturn(Optional.of(sickLeave));
         when(appointmentRepository.findById(1L)).thenReturn(Optional.of(appointment));
-        when(sickLeaveRepository.save(sickLeave)).thenReturn(sickLeave);
+        when(sickLeaveRepository.saveAndFlush(sickLeave)).thenReturn(sickLeave);
         when(sickLeaveMapper.convertToDto(sickLeave)).thenReturn(updateDto);
 
         SickLeaveDto result = sickLeaveService.updateSickLeave(1L, updateDto);
@@ -222,7 +232,8 @@ public class SickLeaveServiceTest {
 
     @Test
     void sickLeaveService_getMonthWithMostSickLeaves_returnsSickLeaveDto() {
-        when(sickLeaveRepository.findAll()).thenReturn(List.of(sickLeave));
+        when(sickLeaveRepository.findMonthlySickLeaveCountsByCountDesc(Limit.of(1)))
+                .thenReturn(List.of(new SickLeaveMonthCountDto(2025, 2, 1L)));
 
         String result = sickLeaveService.getMonthWithMostSickLeaves();
 
@@ -233,4 +244,32 @@ public class SickLeaveServiceTest {
         assertTrue(result.contains("1 sick leaves"));
     }
 
+    @Test
+    void sickLeaveService_getMonthWithMostSickLeaves_returnsNoRecordsMessage() {
+        when(sickLeaveRepository.findMonthlySickLeaveCountsByCountDesc(Limit.of(1))).thenReturn(List.of());
+
+        assertEquals("There are no records of sick leaves.", sickLeaveService.getMonthWithMostSickLeaves());
+    }
+
+    @Test
+    void sickLeaveService_getMonthlySickLeavesHistogram_returnsMonthCounts() {
+        LocalDate startDate = LocalDate.of(2025, 1, 1);
+        LocalDate endDate = LocalDate.of(2025, 12, 31);
+        List<SickLeaveMonthCountDto> histogram = List.of(new SickLeaveMonthCountDto(2025, 2, 1L));
+
+        when(sickLeaveRepository.findMonthlySickLeaveCounts(startDate, endDate)).thenReturn(histogram);
+
+        assertEquals(histogram, sickLeaveService.getMonthlySickLeavesHistogram(startDate, endDate));
+    }
+
+    @Test
+    void sickLeaveService_getMonthlySickLeavesHistogram_throwsInvalidDateException() {
+        LocalDate startDate = LocalDate.of(2025, 12, 31);
+        LocalDate endDate = LocalDate.of(2025, 1, 1);
+
+        assertThrows(InvalidDateException.class, () -> sickLeaveService.getMonthlySickLeavesHistogram(startDate, endDate));
+
+        verify(sickLeaveRepository, never()).findMonthlySickLeaveCounts(any(), any());
+    }
+
 }
@@ -49,6 +49,9 @@ public class TreatmentServiceTest {
     @Mock
     private DoctorAppointmentRepository appointmentRepository;
 
+    @Mock
+    private AppointmentViewService viewService;
+
     @InjectMocks
     private TreatmentServiceImpl treatmentService;
 
@@ -0,0 +1,107 @@
+package com.nbu.medicalrecordf104458.utility;
+
+import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.DoctorSecurityException;
+import com.nbu.medicalrecordf104458.exceptionhandler.exceptions.PatientSecurityException;
+import com.nbu.medicalrecordf104458.model.Doctor;
+import com.nbu.medicalrecordf104458.model.DoctorAppointment;
+import com.nbu.medicalrecordf104458.model.SickLeave;
+import com.nbu.medicalrecordf104458.model.user.AuthenticatedUser;
+import com.nbu.medicalrecordf104458.model.user.Role;
+import com.nbu.medicalrecordf104458.repository.DoctorAppointmentRepository;
+import com.nbu.medicalrecordf104458.repository.SickLeaveRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CustomSecurityCheckerTest {
+
+    @Mock
+    private SickLeaveRepository sickLeaveRepository;
+
+    @Mock
+    private DoctorAppointmentRepository appointmentRepository;
+
+    @InjectMocks
+    private CustomSecurityChecker securityChecker;
+
+    private DoctorAppointment appointment;
+
+    @BeforeEach
+    void setUp() {
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+
+        appointment = new DoctorAppointment();
+        appointment.setId(5L);
+        appointment.setDoctor(doctor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void securityChecker_isDoctorAssociatedWithAppointment_returnsTrueForOwnAppointment() {
+        authenticate(new AuthenticatedUser("doctor@mail.com", Role.DOCTOR, 1L, null));
+        when(appointmentRepository.findById(5L)).thenReturn(Optional.of(appointment));
+
+        assertTrue(securityChecker.isDoctorAssociatedWithAppointment(5L));
+    }
+
+    @Test
+    void securityChecker_isDoctorAssociatedWithAppointment_throwsDoctorSecurityException() {
+        authenticate(new AuthenticatedUser("doctor@mail.com", Role.DOCTOR, 2L, null));
+        when(appointmentRepository.findById(5L)).thenReturn(Optional.of(appointment));
+
+        assertThrows(DoctorSecurityException.class, () -> securityChecker.isDoctorAssociatedWithAppointment(5L));
+    }
+
+    @Test
+    void securityChecker_isDoctorAssociatedWithAppointment_throwsEntityNotFoundException() {
+        authenticate(new AuthenticatedUser("admin@mail.com", Role.ADMIN, null, null));
+        when(appointmentRepository.findById(5L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> securityChecker.isDoctorAssociatedWithAppointment(5L));
+    }
+
+    @Test
+    void securityChecker_isDoctorAssociatedWithSickLeave_returnsTrueForAdmin() {
+        SickLeave sickLeave = new SickLeave();
+        sickLeave.setId(7L);
+        sickLeave.setDoctorAppointment(appointment);
+
+        authenticate(new AuthenticatedUser("admin@mail.com", Role.ADMIN, null, null));
+        when(sickLeaveRepository.findById(7L)).thenReturn(Optional.of(sickLeave));
+
+        assertTrue(securityChecker.isDoctorAssociatedWithSickLeave(7L));
+    }
+
+    @Test
+    void securityChecker_isPatientAccessingOwnData_throwsPatientSecurityException() {
+        authenticate(new AuthenticatedUser("patient@mail.com", Role.PATIENT, null, 2L));
+
+        assertTrue(securityChecker.isPatientAccessingOwnData(2L));
+        assertThrows(PatientSecurityException.class, () -> securityChecker.isPatientAccessingOwnData(3L));
+    }
+
+    private void authenticate(AuthenticatedUser user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+}